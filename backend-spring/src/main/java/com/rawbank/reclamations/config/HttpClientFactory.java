@@ -0,0 +1,125 @@
+package com.rawbank.reclamations.config;
+
+import com.rawbank.reclamations.config.props.HttpClientProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Fabrique des WebClient sortants: un pool de connexions Reactor Netty par service amont
+ * (un amont lent ne peut plus consommer les connexions des autres), délais de connexion et de réponse,
+ * éviction des connexions inactives et HTTP/2 optionnel. Réglages: {@link HttpClientProperties}.
+ * Occupation des pools exportée sous {@code reclamations.http.pool.*{upstream,remote}}.
+ */
+@Component
+public class HttpClientFactory implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpClientFactory.class);
+
+    private final HttpClientProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, HttpClient> clients = new ConcurrentHashMap<>();
+    private final Map<String, ConnectionProvider> providers = new ConcurrentHashMap<>();
+
+    public HttpClientFactory(HttpClientProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Nouveau builder branché sur le pool de {@code upstream}; chaque appelant peut y ajouter
+     * ses en-têtes et filtres. Les builders d'un même amont partagent le pool.
+     */
+    public WebClient.Builder builder(String upstream) {
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(clients.computeIfAbsent(upstream, this::createClient)));
+    }
+
+    private HttpClient createClient(String upstream) {
+        HttpClientProperties.Pool cfg = properties.resolve(upstream);
+        ConnectionProvider provider = ConnectionProvider.builder("reclamations-" + upstream)
+                .maxConnections(cfg.getMaxConnections())
+                .pendingAcquireMaxCount(cfg.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(cfg.getPendingAcquireTimeout())
+                .maxIdleTime(cfg.getMaxIdleTime())
+                .maxLifeTime(cfg.getMaxLifeTime())
+                .evictInBackground(cfg.getEvictInterval())
+                .metrics(true, () -> new PoolMeters(upstream))
+                .build();
+        providers.put(upstream, provider);
+
+        HttpClient client = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) cfg.getConnectTimeout().toMillis())
+                .responseTimeout(cfg.getResponseTimeout())
+                .keepAlive(true);
+        if (Boolean.TRUE.equals(cfg.getHttp2())) {
+            // h2 négocié par ALPN sur les URLs https, repli HTTP/1.1 sinon
+            client = client.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        log.info("Client HTTP '{}': maxConnections={}, pendingAcquireMaxCount={}, connectTimeout={}, responseTimeout={}, http2={}",
+                upstream, cfg.getMaxConnections(), cfg.getPendingAcquireMaxCount(),
+                cfg.getConnectTimeout(), cfg.getResponseTimeout(), cfg.getHttp2());
+        return client;
+    }
+
+    @Override
+    public void destroy() {
+        providers.values().forEach(p -> p.disposeLater().block(Duration.ofSeconds(5)));
+    }
+
+    /** Jauges d'occupation par (amont, adresse distante), retirées quand Reactor Netty libère le pool. */
+    private final class PoolMeters implements ConnectionProvider.MeterRegistrar {
+        private final String upstream;
+        private final Map<String, List<Meter>> meters = new ConcurrentHashMap<>();
+
+        PoolMeters(String upstream) {
+            this.upstream = upstream;
+        }
+
+        @Override
+        public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+            Tags tags = Tags.of("upstream", upstream, "remote", String.valueOf(remoteAddress));
+            List<Meter> registered = new ArrayList<>();
+            registered.add(gauge("reclamations.http.pool.active", "Connexions en cours d'utilisation", tags, metrics, ConnectionPoolMetrics::acquiredSize));
+            registered.add(gauge("reclamations.http.pool.idle", "Connexions ouvertes inactives", tags, metrics, ConnectionPoolMetrics::idleSize));
+            registered.add(gauge("reclamations.http.pool.total", "Connexions ouvertes", tags, metrics, ConnectionPoolMetrics::allocatedSize));
+            registered.add(gauge("reclamations.http.pool.pending", "Requêtes en attente d'une connexion", tags, metrics, ConnectionPoolMetrics::pendingAcquireSize));
+            registered.add(gauge("reclamations.http.pool.max", "Taille maximale du pool", tags, metrics, ConnectionPoolMetrics::maxAllocatedSize));
+            meters.put(id, registered);
+        }
+
+        @Override
+        public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+            List<Meter> registered = meters.remove(id);
+            if (registered != null) registered.forEach(meterRegistry::remove);
+        }
+
+        private Meter gauge(String name, String description, Tags tags, ConnectionPoolMetrics metrics,
+                            ToDoubleFunction<ConnectionPoolMetrics> value) {
+            return Gauge.builder(name, metrics, value)
+                    .tags(tags)
+                    .description(description)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.context.annotation.Bean;
@@ -12,9 +13,12 @@ import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.KafkaAdmin;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,19 +28,36 @@ public class KafkaConfig {
     @Value("${app.kafka.topics.complaints-raw:complaints_raw}")
     private String complaintsTopic;
 
+    // Une partition = au plus un consommateur actif par groupe: borne la concurrence des listeners
+    @Value("${app.kafka.topics.partitions:3}")
+    private int partitions;
+
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
+    // Débit producteur (valeurs du client Kafka par défaut, réglées dans le profil prod)
+    @Value("${app.kafka.producer.linger:0ms}")
+    private Duration linger;
+
+    @Value("${app.kafka.producer.batch-size:16KB}")
+    private DataSize batchSize;
+
+    @Value("${app.kafka.producer.compression-type:none}")
+    private String compressionType;
+
+    @Value("${app.kafka.producer.idempotence:true}")
+    private boolean idempotence;
+
     @Bean
     public NewTopic complaintsTopic() {
         return TopicBuilder.name(complaintsTopic)
-                .partitions(3)
+                .partitions(partitions)
                 .replicas(1)
                 .build();
     }
 
     @Bean
-    public ProducerFactory<String, Object> producerFactory(Environment env) {
+    public ProducerFactory<String, Object> producerFactory(Environment env, MeterRegistry meterRegistry) {
         Map<String, Object> configProps = new HashMap<>();
         String securityProtocol = env.getProperty("spring.kafka.properties.security.protocol", "PLAINTEXT");
         // Forcer bootstrap plaintext local pour accélérer le dev si protocole = PLAINTEXT
@@ -48,6 +69,14 @@ public class KafkaConfig {
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
         configProps.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        // Regroupement et compression des lots; l'envoi idempotent (acks=all) préserve l'ordre par clé malgré les réessais
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, (int) linger.toMillis());
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, (int) batchSize.toBytes());
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, idempotence);
+        if (idempotence) {
+            configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        }
         // Injecter propriétés de sécurité si définies (SASL/TLS)
         copyIfPresent(env, configProps, "spring.kafka.properties.security.protocol", "security.protocol");
         copyIfPresent(env, configProps, "spring.kafka.properties.sasl.mechanism", "sasl.mechanism");
@@ -55,7 +84,10 @@ public class KafkaConfig {
         copyIfPresent(env, configProps, "spring.kafka.properties.ssl.truststore.location", "ssl.truststore.location");
         copyIfPresent(env, configProps, "spring.kafka.properties.ssl.truststore.password", "ssl.truststore.password");
         copyIfPresent(env, configProps, "spring.kafka.properties.ssl.endpoint.identification.algorithm", "ssl.endpoint.identification.algorithm");
-        return new DefaultKafkaProducerFactory<>(configProps);
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(configProps);
+        // Métriques du client producteur: kafka.producer.batch.size.avg, kafka.producer.compression.rate.avg, ...
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
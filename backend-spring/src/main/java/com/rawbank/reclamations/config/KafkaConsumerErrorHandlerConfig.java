@@ -2,34 +2,64 @@ package com.rawbank.reclamations.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import com.rawbank.reclamations.logging.KafkaMdcRecordInterceptor;
+import com.rawbank.reclamations.messaging.ListenerMetricsInterceptor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.core.env.Environment;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaOperations;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.CompositeRecordInterceptor;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.RetryListener;
 import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+import org.springframework.kafka.support.KafkaUtils;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Configuration
 public class KafkaConsumerErrorHandlerConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(KafkaConsumerErrorHandlerConfig.class);
+
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
     @Value("${app.kafka.topics.complaints-raw:complaints_raw}")
     private String complaintsTopic;
 
+    // La DLQ reprend la partition d'origine: autant de partitions que complaints_raw
+    @Value("${app.kafka.topics.partitions:3}")
+    private int partitions;
+
     @Bean
     public NewTopic complaintsDlqTopic() {
-        return new NewTopic(complaintsTopic + ".DLQ", 3, (short) 1);
+        return new NewTopic(complaintsTopic + ".DLQ", partitions, (short) 1);
     }
 
     @Bean
@@ -56,25 +86,162 @@ public class KafkaConsumerErrorHandlerConfig {
         return new DefaultKafkaConsumerFactory<>(props);
     }
 
+    /**
+     * Producteur des valeurs brutes (octets) renvoyées en DLQ, même configuration que le producteur applicatif.
+     * Déclaré en bean pour que ses producteurs soient fermés à l'arrêt du contexte.
+     */
+    @Bean
+    public ProducerFactory<String, byte[]> deadLetterBytesProducerFactory(ProducerFactory<String, Object> producerFactory) {
+        return new DefaultKafkaProducerFactory<>(producerFactory.getConfigurationProperties(),
+                new StringSerializer(), new ByteArraySerializer());
+    }
+
+    /**
+     * Publication en DLQ avec le producteur adapté à la valeur: octets bruts (indexeur par lots) recopiés tels quels,
+     * Map et autres objets sérialisés en JSON par le KafkaTemplate applicatif.
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer deadLetterRecoverer(KafkaTemplate<String, Object> template,
+                                                             ProducerFactory<String, byte[]> deadLetterBytesProducerFactory,
+                                                             MeterRegistry meterRegistry) {
+        KafkaTemplate<String, byte[]> bytesTemplate = new KafkaTemplate<>(deadLetterBytesProducerFactory);
+        Map<Class<?>, KafkaOperations<?, ?>> templates = new LinkedHashMap<>();
+        templates.put(byte[].class, bytesTemplate);
+        templates.put(Object.class, template);
+        return new DeadLetterPublishingRecoverer(templates,
+                (record, ex) -> new org.apache.kafka.common.TopicPartition(record.topic() + ".DLQ", record.partition())) {
+            @Override
+            public void accept(ConsumerRecord<?, ?> record, Consumer<?, ?> consumer, Exception exception) {
+                // Appelé sur le thread du consommateur (gestionnaire d'erreurs ou listener): groupe disponible
+                Counter.builder("reclamations.kafka.dlq")
+                        .description("Enregistrements envoyés en DLQ")
+                        .tag("group", groupOrUnknown())
+                        .tag("topic", record.topic())
+                        .register(meterRegistry)
+                        .increment();
+                super.accept(record, consumer, exception);
+            }
+        };
+    }
+
     @Bean
-    public DefaultErrorHandler defaultErrorHandler(KafkaTemplate<String, Object> template) {
-        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(template,
-                (record, ex) -> new org.apache.kafka.common.TopicPartition(record.topic() + ".DLQ", record.partition()));
+    public DefaultErrorHandler defaultErrorHandler(DeadLetterPublishingRecoverer recoverer, MeterRegistry meterRegistry) {
         ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(3);
         backOff.setInitialInterval(1000L);
         backOff.setMultiplier(2.0);
         backOff.setMaxInterval(8000L);
-        return new DefaultErrorHandler(recoverer, backOff);
+        DefaultErrorHandler handler = new DefaultErrorHandler(recoverer, backOff);
+        // Livraisons en échec, suivies d'un réessai (backoff) ou, au dernier essai, de la DLQ
+        handler.setRetryListeners(new RetryListener() {
+            @Override
+            public void failedDelivery(ConsumerRecord<?, ?> record, Exception ex, int deliveryAttempt) {
+                retried(meterRegistry);
+            }
+
+            @Override
+            public void failedDelivery(ConsumerRecords<?, ?> records, Exception ex, int deliveryAttempt) {
+                retried(meterRegistry);
+            }
+        });
+        return handler;
+    }
+
+    private static void retried(MeterRegistry meterRegistry) {
+        Counter.builder("reclamations.kafka.listener.retries")
+                .description("Livraisons en échec (réessai ou DLQ)")
+                .tag("group", groupOrUnknown())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String groupOrUnknown() {
+        String group = KafkaUtils.getConsumerGroupId();
+        return group != null ? group : "unknown";
     }
 
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory(
             ConsumerFactory<String, Object> consumerFactory,
-            DefaultErrorHandler errorHandler) {
+            DefaultErrorHandler errorHandler,
+            Environment env,
+            MeterRegistry meterRegistry) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configure(factory, consumerFactory, errorHandler, env);
+        // trackingId de la requête d'origine (en-tête X-Request-Id) remis dans le MDC pendant le traitement
+        factory.setRecordInterceptor(new CompositeRecordInterceptor<>(
+                new KafkaMdcRecordInterceptor<>(), new ListenerMetricsInterceptor<>(meterRegistry)));
+        if (!Threading.VIRTUAL.isActive(env) && env.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            log.warn("spring.threads.virtual.enabled ignoré: threads virtuels indisponibles sur Java {} (21+ requis)",
+                    Runtime.version().feature());
+        }
+        return factory;
+    }
+
+    /**
+     * Conteneurs à acquittement manuel (AckMode MANUAL) pour les listeners qui terminent leur traitement
+     * hors du thread du conteneur (worker Power Automate asynchrone): l'offset n'est validé qu'à l'appel
+     * de {@code Acknowledgment.acknowledge()}, quel que soit le thread. Même gestionnaire d'erreurs et même MDC
+     * que les conteneurs par défaut.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> manualAckKafkaListenerContainerFactory(
+            ConsumerFactory<String, Object> consumerFactory,
+            DefaultErrorHandler errorHandler,
+            Environment env,
+            MeterRegistry meterRegistry) {
         ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configure(factory, consumerFactory, errorHandler, env);
+        // Traitement terminé après le retour du listener: durée mesurée par le consommateur, pas par l'intercepteur
+        factory.setRecordInterceptor(new CompositeRecordInterceptor<>(
+                new KafkaMdcRecordInterceptor<>(), new ListenerMetricsInterceptor<>(meterRegistry, false)));
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+
+    /**
+     * Conteneurs en mode lot, valeurs brutes ({@code byte[]}, pas de désérialisation JSON):
+     * le listener reçoit tout le résultat d'un poll, et l'offset est validé
+     * après son retour (AckMode BATCH). Un poll rend au plus {@code max-records} enregistrements; le broker
+     * retient la réponse jusqu'à {@code min-bytes} disponibles ou {@code max-wait} écoulé (politique taille/temps).
+     * Une exception du listener rejoue tout le lot (backoff) puis l'envoie en DLQ.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> batchKafkaListenerContainerFactory(
+            ConsumerFactory<String, Object> consumerFactory,
+            DefaultErrorHandler errorHandler,
+            Environment env,
+            @Value("${app.kafka.batch.max-records:500}") int maxRecords,
+            @Value("${app.kafka.batch.min-bytes:64KB}") DataSize minBytes,
+            @Value("${app.kafka.batch.max-wait:500ms}") Duration maxWait,
+            MeterRegistry meterRegistry) {
+        Map<String, Object> props = new HashMap<>(consumerFactory.getConfigurationProperties());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxRecords);
+        props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, (int) minBytes.toBytes());
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, (int) maxWait.toMillis());
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configure(factory, new DefaultKafkaConsumerFactory<>(props), errorHandler, env);
+        factory.setBatchListener(true);
+        factory.setBatchInterceptor(new ListenerMetricsInterceptor<>(meterRegistry));
+        return factory;
+    }
+
+    private <V> void configure(ConcurrentKafkaListenerContainerFactory<String, V> factory,
+                           ConsumerFactory<String, V> consumerFactory,
+                           DefaultErrorHandler errorHandler,
+                           Environment env) {
         factory.setConsumerFactory(consumerFactory);
         factory.setCommonErrorHandler(errorHandler);
-        return factory;
+        // Observation des listeners (spring.kafka.listener.observation-enabled): timers et appels actifs par conteneur
+        factory.getContainerProperties().setObservationEnabled(
+                env.getProperty("spring.kafka.listener.observation-enabled", Boolean.class, false));
+        if (Threading.VIRTUAL.isActive(env)) {
+            // Consommateurs sur threads virtuels, par cohérence avec Tomcat: toujours un thread par consommateur qui
+            // traite ses enregistrements en série, la concurrence Kafka reste celle du conteneur (app.kafka.concurrency.*)
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("kafka-listener-");
+            executor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(executor);
+        }
     }
 
     private void copyIfPresent(Environment env, Map<String, Object> target, String springKey, String kafkaKey) {
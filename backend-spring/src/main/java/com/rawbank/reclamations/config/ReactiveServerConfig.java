@@ -0,0 +1,29 @@
+package com.rawbank.reclamations.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.embedded.netty.NettyRouteProvider;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Mode réactif (profil {@code reactive}): serveur Reactor Netty.
+ * Tomcat restant sur le classpath pour le mode servlet, Spring Boot le choisirait aussi en mode réactif
+ * (adaptateur servlet, un thread par requête); la fabrique Netty est donc déclarée explicitement.
+ * Les propriétés {@code server.*} et {@code server.netty.*} continuent de s'appliquer.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveServerConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(ObjectProvider<NettyServerCustomizer> serverCustomizers,
+                                                                       ObjectProvider<NettyRouteProvider> routes) {
+        NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+        serverCustomizers.orderedStream().forEach(factory::addServerCustomizers);
+        routes.orderedStream().forEach(factory::addRouteProviders);
+        return factory;
+    }
+}
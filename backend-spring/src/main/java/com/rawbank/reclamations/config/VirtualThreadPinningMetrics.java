@@ -0,0 +1,57 @@
+package com.rawbank.reclamations.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Mode threads virtuels: mesure des épinglages (thread virtuel bloqué sur son thread porteur, typiquement
+ * un appel bloquant dans un bloc synchronized) à partir des événements JFR du JDK, lus en continu.
+ * - {@code reclamations.vthreads.pinned}: durée des épinglages au-delà du seuil
+ * - {@code reclamations.vthreads.submit.failed}: threads virtuels non planifiés (porteurs saturés)
+ * Actif uniquement si {@code spring.threads.virtual.enabled=true} sur un JRE 21+.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMetrics implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMetrics.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String SUBMIT_FAILED_EVENT = "jdk.VirtualThreadSubmitFailed";
+
+    private final RecordingStream stream;
+
+    public VirtualThreadPinningMetrics(MeterRegistry meterRegistry,
+                                       @Value("${app.threads.virtual.pinned-threshold:20ms}") Duration pinnedThreshold) {
+        Timer pinned = Timer.builder("reclamations.vthreads.pinned")
+                .description("Threads virtuels épinglés sur leur thread porteur")
+                .register(meterRegistry);
+        Counter submitFailed = Counter.builder("reclamations.vthreads.submit.failed")
+                .description("Threads virtuels n'ayant pas pu être planifiés")
+                .register(meterRegistry);
+
+        this.stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(pinnedThreshold);
+        stream.enable(SUBMIT_FAILED_EVENT);
+        stream.onEvent(PINNED_EVENT, e -> pinned.record(e.getDuration()));
+        stream.onEvent(SUBMIT_FAILED_EVENT, e -> submitFailed.increment());
+        stream.startAsync();
+        log.info("Threads virtuels actifs: suivi des épinglages au-delà de {}", pinnedThreshold);
+    }
+
+    @Override
+    public void destroy() {
+        stream.close();
+    }
+}
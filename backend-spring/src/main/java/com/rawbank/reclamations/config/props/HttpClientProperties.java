@@ -0,0 +1,87 @@
+package com.rawbank.reclamations.config.props;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Réglages des clients HTTP sortants (un pool de connexions par service amont).
+ * {@code app.http.defaults.*} s'applique à tous; {@code app.http.upstreams.<nom>.*} surcharge champ par champ.
+ */
+@ConfigurationProperties(prefix = "app.http")
+public class HttpClientProperties {
+    private Pool defaults = Pool.withDefaults();
+    private Map<String, Pool> upstreams = new HashMap<>();
+
+    public Pool getDefaults() { return defaults; }
+    public void setDefaults(Pool defaults) { this.defaults = defaults; }
+    public Map<String, Pool> getUpstreams() { return upstreams; }
+    public void setUpstreams(Map<String, Pool> upstreams) { this.upstreams = upstreams; }
+
+    /** Réglages effectifs pour un service amont: surcharges éventuelles, sinon valeurs par défaut. */
+    public Pool resolve(String upstream) {
+        Pool override = upstreams.get(upstream);
+        return override == null ? defaults : override.inherit(defaults);
+    }
+
+    public static class Pool {
+        private Integer maxConnections;
+        private Integer pendingAcquireMaxCount;
+        private Duration pendingAcquireTimeout;
+        private Duration maxIdleTime;
+        private Duration maxLifeTime;
+        private Duration evictInterval;
+        private Duration connectTimeout;
+        private Duration responseTimeout;
+        private Boolean http2;
+
+        static Pool withDefaults() {
+            Pool p = new Pool();
+            p.maxConnections = 50;
+            p.pendingAcquireMaxCount = 500;
+            p.pendingAcquireTimeout = Duration.ofSeconds(5);
+            p.maxIdleTime = Duration.ofSeconds(30);
+            p.maxLifeTime = Duration.ofMinutes(5);
+            p.evictInterval = Duration.ofSeconds(30);
+            p.connectTimeout = Duration.ofSeconds(5);
+            p.responseTimeout = Duration.ofSeconds(30);
+            p.http2 = false;
+            return p;
+        }
+
+        Pool inherit(Pool base) {
+            Pool p = new Pool();
+            p.maxConnections = maxConnections != null ? maxConnections : base.maxConnections;
+            p.pendingAcquireMaxCount = pendingAcquireMaxCount != null ? pendingAcquireMaxCount : base.pendingAcquireMaxCount;
+            p.pendingAcquireTimeout = pendingAcquireTimeout != null ? pendingAcquireTimeout : base.pendingAcquireTimeout;
+            p.maxIdleTime = maxIdleTime != null ? maxIdleTime : base.maxIdleTime;
+            p.maxLifeTime = maxLifeTime != null ? maxLifeTime : base.maxLifeTime;
+            p.evictInterval = evictInterval != null ? evictInterval : base.evictInterval;
+            p.connectTimeout = connectTimeout != null ? connectTimeout : base.connectTimeout;
+            p.responseTimeout = responseTimeout != null ? responseTimeout : base.responseTimeout;
+            p.http2 = http2 != null ? http2 : base.http2;
+            return p;
+        }
+
+        public Integer getMaxConnections() { return maxConnections; }
+        public void setMaxConnections(Integer maxConnections) { this.maxConnections = maxConnections; }
+        public Integer getPendingAcquireMaxCount() { return pendingAcquireMaxCount; }
+        public void setPendingAcquireMaxCount(Integer pendingAcquireMaxCount) { this.pendingAcquireMaxCount = pendingAcquireMaxCount; }
+        public Duration getPendingAcquireTimeout() { return pendingAcquireTimeout; }
+        public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) { this.pendingAcquireTimeout = pendingAcquireTimeout; }
+        public Duration getMaxIdleTime() { return maxIdleTime; }
+        public void setMaxIdleTime(Duration maxIdleTime) { this.maxIdleTime = maxIdleTime; }
+        public Duration getMaxLifeTime() { return maxLifeTime; }
+        public void setMaxLifeTime(Duration maxLifeTime) { this.maxLifeTime = maxLifeTime; }
+        public Duration getEvictInterval() { return evictInterval; }
+        public void setEvictInterval(Duration evictInterval) { this.evictInterval = evictInterval; }
+        public Duration getConnectTimeout() { return connectTimeout; }
+        public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+        public Duration getResponseTimeout() { return responseTimeout; }
+        public void setResponseTimeout(Duration responseTimeout) { this.responseTimeout = responseTimeout; }
+        public Boolean getHttp2() { return http2; }
+        public void setHttp2(Boolean http2) { this.http2 = http2; }
+    }
+}
@@ -0,0 +1,87 @@
+package com.rawbank.reclamations.config.props;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Disjoncteur et cloisonnement (bulkhead) par service amont.
+ * {@code app.resilience.defaults.*} s'applique à tous; {@code app.resilience.upstreams.<nom>.*} surcharge champ par champ.
+ */
+@ConfigurationProperties(prefix = "app.resilience")
+public class ResilienceProperties {
+    private Policy defaults = Policy.withDefaults();
+    private Map<String, Policy> upstreams = new HashMap<>();
+
+    public Policy getDefaults() { return defaults; }
+    public void setDefaults(Policy defaults) { this.defaults = defaults; }
+    public Map<String, Policy> getUpstreams() { return upstreams; }
+    public void setUpstreams(Map<String, Policy> upstreams) { this.upstreams = upstreams; }
+
+    /** Réglages effectifs pour un service amont: surcharges éventuelles, sinon valeurs par défaut. */
+    public Policy resolve(String upstream) {
+        Policy override = upstreams.get(upstream);
+        return override == null ? defaults : override.inherit(defaults);
+    }
+
+    public static class Policy {
+        private Boolean enabled;
+        private Integer slidingWindowSize;
+        private Integer minimumCalls;
+        private Double failureRateThreshold;
+        private Double slowCallRateThreshold;
+        private Duration slowCallDuration;
+        private Duration openDuration;
+        private Integer halfOpenCalls;
+        private Integer maxConcurrentCalls;
+
+        public static Policy withDefaults() {
+            Policy p = new Policy();
+            p.enabled = true;
+            p.slidingWindowSize = 20;
+            p.minimumCalls = 10;
+            p.failureRateThreshold = 0.5;
+            p.slowCallRateThreshold = 0.8;
+            p.slowCallDuration = Duration.ofSeconds(10);
+            p.openDuration = Duration.ofSeconds(30);
+            p.halfOpenCalls = 3;
+            p.maxConcurrentCalls = 25;
+            return p;
+        }
+
+        Policy inherit(Policy base) {
+            Policy p = new Policy();
+            p.enabled = enabled != null ? enabled : base.enabled;
+            p.slidingWindowSize = slidingWindowSize != null ? slidingWindowSize : base.slidingWindowSize;
+            p.minimumCalls = minimumCalls != null ? minimumCalls : base.minimumCalls;
+            p.failureRateThreshold = failureRateThreshold != null ? failureRateThreshold : base.failureRateThreshold;
+            p.slowCallRateThreshold = slowCallRateThreshold != null ? slowCallRateThreshold : base.slowCallRateThreshold;
+            p.slowCallDuration = slowCallDuration != null ? slowCallDuration : base.slowCallDuration;
+            p.openDuration = openDuration != null ? openDuration : base.openDuration;
+            p.halfOpenCalls = halfOpenCalls != null ? halfOpenCalls : base.halfOpenCalls;
+            p.maxConcurrentCalls = maxConcurrentCalls != null ? maxConcurrentCalls : base.maxConcurrentCalls;
+            return p;
+        }
+
+        public Boolean getEnabled() { return enabled; }
+        public void setEnabled(Boolean enabled) { this.enabled = enabled; }
+        public Integer getSlidingWindowSize() { return slidingWindowSize; }
+        public void setSlidingWindowSize(Integer slidingWindowSize) { this.slidingWindowSize = slidingWindowSize; }
+        public Integer getMinimumCalls() { return minimumCalls; }
+        public void setMinimumCalls(Integer minimumCalls) { this.minimumCalls = minimumCalls; }
+        public Double getFailureRateThreshold() { return failureRateThreshold; }
+        public void setFailureRateThreshold(Double failureRateThreshold) { this.failureRateThreshold = failureRateThreshold; }
+        public Double getSlowCallRateThreshold() { return slowCallRateThreshold; }
+        public void setSlowCallRateThreshold(Double slowCallRateThreshold) { this.slowCallRateThreshold = slowCallRateThreshold; }
+        public Duration getSlowCallDuration() { return slowCallDuration; }
+        public void setSlowCallDuration(Duration slowCallDuration) { this.slowCallDuration = slowCallDuration; }
+        public Duration getOpenDuration() { return openDuration; }
+        public void setOpenDuration(Duration openDuration) { this.openDuration = openDuration; }
+        public Integer getHalfOpenCalls() { return halfOpenCalls; }
+        public void setHalfOpenCalls(Integer halfOpenCalls) { this.halfOpenCalls = halfOpenCalls; }
+        public Integer getMaxConcurrentCalls() { return maxConcurrentCalls; }
+        public void setMaxConcurrentCalls(Integer maxConcurrentCalls) { this.maxConcurrentCalls = maxConcurrentCalls; }
+    }
+}
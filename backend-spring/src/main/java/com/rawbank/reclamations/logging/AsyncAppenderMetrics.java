@@ -0,0 +1,57 @@
+package com.rawbank.reclamations.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Métriques des appenders asynchrones ({@link MeteredAsyncAppender}, profil {@code prod}):
+ * - {@code reclamations.logging.async.dropped}: événements de log abandonnés (anneau plein)
+ * - {@code reclamations.logging.async.queue}: événements en attente d'écriture
+ * - {@code reclamations.logging.async.capacity}: taille de l'anneau
+ * Sans appender asynchrone configuré (profils de dev), aucune métrique n'est enregistrée.
+ */
+@Component
+public class AsyncAppenderMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (MeteredAsyncAppender appender : asyncAppenders().values()) {
+            String name = appender.getName();
+            FunctionCounter.builder("reclamations.logging.async.dropped", appender, MeteredAsyncAppender::droppedCount)
+                    .tag("appender", name)
+                    .description("Événements de log abandonnés, anneau plein")
+                    .register(registry);
+            Gauge.builder("reclamations.logging.async.queue", appender, MeteredAsyncAppender::queueSize)
+                    .tag("appender", name)
+                    .description("Événements de log en attente d'écriture")
+                    .register(registry);
+            Gauge.builder("reclamations.logging.async.capacity", appender, MeteredAsyncAppender::getRingBufferSize)
+                    .tag("appender", name)
+                    .description("Taille de l'anneau de l'appender asynchrone")
+                    .register(registry);
+        }
+    }
+
+    private static Map<String, MeteredAsyncAppender> asyncAppenders() {
+        Map<String, MeteredAsyncAppender> found = new LinkedHashMap<>();
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) return found;
+        for (Logger logger : context.getLoggerList()) {
+            for (Iterator<Appender<ILoggingEvent>> it = logger.iteratorForAppenders(); it.hasNext(); ) {
+                if (it.next() instanceof MeteredAsyncAppender async) found.putIfAbsent(async.getName(), async);
+            }
+        }
+        return found;
+    }
+}
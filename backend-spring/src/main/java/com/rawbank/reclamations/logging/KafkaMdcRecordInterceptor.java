@@ -0,0 +1,43 @@
+package com.rawbank.reclamations.logging;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.slf4j.MDC;
+import org.springframework.kafka.listener.RecordInterceptor;
+import reactor.util.context.ContextView;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Prolonge le contexte de la requête HTTP dans les consommateurs Kafka: le trackingId posé en en-tête
+ * par le producteur ({@link #HEADER}) est remis dans le MDC le temps du traitement de l'enregistrement.
+ * Les .block() des workers capturent ce MDC (propagation automatique): il suit aussi les appels WebClient.
+ */
+public class KafkaMdcRecordInterceptor<K, V> implements RecordInterceptor<K, V> {
+
+    public static final String HEADER = LoggingMdcFilter.HDR_REQUEST_ID;
+
+    /** En-tête trackingId à joindre à un enregistrement produit: MDC porté par le Context Reactor, sinon MDC du thread. */
+    public static void propagate(Headers headers, ContextView context) {
+        Map<String, String> mdc = context.getOrDefault(MdcThreadLocalAccessor.KEY, null);
+        String trackingId = mdc != null ? mdc.get("trackingId") : MDC.get("trackingId");
+        if (trackingId != null) headers.add(HEADER, trackingId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public ConsumerRecord<K, V> intercept(ConsumerRecord<K, V> record, Consumer<K, V> consumer) {
+        Header header = record.headers().lastHeader(HEADER);
+        if (header != null && header.value() != null) {
+            MDC.put("trackingId", new String(header.value(), StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+
+    @Override
+    public void afterRecord(ConsumerRecord<K, V> record, Consumer<K, V> consumer) {
+        MDC.remove("trackingId");
+    }
+}
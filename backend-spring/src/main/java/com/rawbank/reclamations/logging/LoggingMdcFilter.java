@@ -6,55 +6,50 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.net.InetAddress;
-import java.net.UnknownHostException;
 import java.time.Instant;
 import java.util.UUID;
 
+/**
+ * Champs MDC d'une requête servlet. Le nom d'hôte (constant) n'est plus résolu ici: il est ajouté
+ * à chaque ligne par l'encodeur (serverHost, logback-spring.xml).
+ * Les Mono/Flux renvoyés par les contrôleurs emportent ce MDC dans leur Context Reactor (capture faite par
+ * Spring MVC, restauration par {@link MdcThreadLocalAccessor}): les logs émis sur les threads Netty
+ * (SharePoint, [EVT]...) gardent le trackingId, qui est aussi transmis aux consommateurs Kafka
+ * ({@link KafkaMdcRecordInterceptor}).
+ */
 @Component
 @Order(1)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class LoggingMdcFilter implements Filter {
 
-    private static final String HDR_REQUEST_ID = "X-Request-Id";
-    private static final String HDR_USER_ID = "X-User-Id";
-    private static final String HDR_DEVICE_ID = "X-Device-Id";
+    static final String HDR_REQUEST_ID = "X-Request-Id";
+    static final String HDR_USER_ID = "X-User-Id";
+    static final String HDR_DEVICE_ID = "X-Device-Id";
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
         HttpServletRequest req = (HttpServletRequest) request;
-        HttpServletResponse res = (HttpServletResponse) response;
 
-        String requestId = headerOrGenerate(req, HDR_REQUEST_ID);
-        String userId = safe(req.getHeader(HDR_USER_ID));
-        String deviceId = safe(req.getHeader(HDR_DEVICE_ID));
-        String userAgent = safe(req.getHeader("User-Agent"));
-        String ip = safe(req.getRemoteAddr());
-        String method = req.getMethod();
-        String path = req.getRequestURI();
-        String query = safe(req.getQueryString());
-        String host = localHostname();
-
-        put("trackingId", requestId);
-        put("userId", userId);
-        put("deviceId", deviceId);
-        put("userAgent", userAgent);
-        put("clientIp", ip);
-        put("httpMethod", method);
-        put("httpPath", path);
-        put("httpQuery", query);
-        put("serverHost", host);
+        String requestId = req.getHeader(HDR_REQUEST_ID);
+        put("trackingId", requestId == null || requestId.isEmpty() ? UUID.randomUUID().toString() : requestId);
+        put("userId", req.getHeader(HDR_USER_ID));
+        put("deviceId", req.getHeader(HDR_DEVICE_ID));
+        put("userAgent", req.getHeader("User-Agent"));
+        put("clientIp", req.getRemoteAddr());
+        put("httpMethod", req.getMethod());
+        put("httpPath", req.getRequestURI());
+        put("httpQuery", req.getQueryString());
         put("timestamp", Instant.now().toString());
 
         try {
             chain.doFilter(request, response);
         } finally {
-            put("httpStatus", String.valueOf(res.getStatus()));
             MDC.clear();
         }
     }
@@ -64,21 +59,4 @@ public class LoggingMdcFilter implements Filter {
             MDC.put(key, value);
         }
     }
-
-    private static String safe(String s) {
-        return s == null ? "" : s;
-    }
-
-    private static String headerOrGenerate(HttpServletRequest req, String name) {
-        String v = req.getHeader(name);
-        return (v == null || v.isEmpty()) ? UUID.randomUUID().toString() : v;
-    }
-
-    private static String localHostname() {
-        try {
-            return InetAddress.getLocalHost().getHostName();
-        } catch (UnknownHostException e) {
-            return "unknown";
-        }
-    }
 }
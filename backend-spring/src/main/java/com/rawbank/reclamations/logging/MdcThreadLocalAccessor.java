@@ -0,0 +1,38 @@
+package com.rawbank.reclamations.logging;
+
+import io.micrometer.context.ThreadLocalAccessor;
+import org.slf4j.MDC;
+
+import java.util.Map;
+
+/**
+ * Pont entre le MDC (ThreadLocal) et le Context Reactor: avec la propagation automatique
+ * ({@code spring.reactor.context-propagation=auto}), le MDC placé dans le Context sous {@link #KEY}
+ * est restauré sur le thread qui exécute chaque opérateur, puis effacé ensuite.
+ * Enregistré via {@code META-INF/services/io.micrometer.context.ThreadLocalAccessor}.
+ */
+public class MdcThreadLocalAccessor implements ThreadLocalAccessor<Map<String, String>> {
+
+    public static final String KEY = "reclamations.mdc";
+
+    @Override
+    public Object key() {
+        return KEY;
+    }
+
+    @Override
+    public Map<String, String> getValue() {
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        return mdc == null || mdc.isEmpty() ? null : mdc;
+    }
+
+    @Override
+    public void setValue(Map<String, String> value) {
+        MDC.setContextMap(value);
+    }
+
+    @Override
+    public void setValue() {
+        MDC.clear();
+    }
+}
@@ -0,0 +1,34 @@
+package com.rawbank.reclamations.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import net.logstash.logback.appender.LoggingEventAsyncDisruptorAppender;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appender asynchrone à anneau (Disruptor) qui expose son remplissage et ses pertes:
+ * l'encodage JSON et l'écriture sont faits par un thread dédié, l'appelant ne fait que publier l'événement.
+ * Anneau plein: l'événement est abandonné (compté) plutôt que de bloquer le thread de requête,
+ * selon {@code appendTimeout}. Mesures publiées par {@link AsyncAppenderMetrics}.
+ */
+public class MeteredAsyncAppender extends LoggingEventAsyncDisruptorAppender {
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    /** Événements abandonnés (anneau plein ou appender arrêté). */
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    /** Événements publiés en attente d'écriture (0 si l'appender n'est pas démarré). */
+    public long queueSize() {
+        if (!isStarted() || getDisruptor() == null) return 0;
+        return getRingBufferSize() - getDisruptor().getRingBuffer().remainingCapacity();
+    }
+
+    @Override
+    protected void fireEventAppendFailed(ILoggingEvent event, Throwable reason) {
+        dropped.incrementAndGet();
+        super.fireEventAppendFailed(event, reason);
+    }
+}
@@ -0,0 +1,63 @@
+package com.rawbank.reclamations.logging;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Journalisation DEBUG des payloads complets, bornée:
+ * - rien n'est rendu si le niveau DEBUG est inactif pour le logger;
+ * - un appel sur {@code app.logging.payload.sample-every} seulement est journalisé;
+ * - le rendu ({@code toString} différé) s'arrête à {@code app.logging.payload.max-chars} caractères.
+ */
+@Component
+public class PayloadLogSampler {
+
+    private final int sampleEvery;
+    private final int maxChars;
+    private final AtomicLong calls = new AtomicLong();
+
+    public PayloadLogSampler(@Value("${app.logging.payload.sample-every:1}") int sampleEvery,
+                             @Value("${app.logging.payload.max-chars:2048}") int maxChars) {
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.maxChars = Math.max(0, maxChars);
+    }
+
+    /** {@code message} doit contenir un unique {@code {}} qui recevra le payload. */
+    public void debug(Logger log, String message, Map<String, ?> payload) {
+        if (payload == null || !log.isDebugEnabled()) return;
+        if (sampleEvery > 1 && calls.getAndIncrement() % sampleEvery != 0) return;
+        log.debug(message, new Rendered(payload, maxChars));
+    }
+
+    /** Rendu "{clé=valeur, ...}" tronqué à {@code maxChars}, suivi du nombre de champs omis. */
+    static String render(Map<String, ?> payload, int maxChars) {
+        StringBuilder sb = new StringBuilder(Math.min(maxChars, 256) + 32).append('{');
+        int written = 0;
+        for (Iterator<? extends Map.Entry<String, ?>> it = payload.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, ?> e = it.next();
+            if (written > 0) sb.append(", ");
+            sb.append(e.getKey()).append('=').append(e.getValue());
+            written++;
+            if (sb.length() > maxChars) {
+                sb.setLength(maxChars);
+                sb.append("...");
+                int omitted = payload.size() - written;
+                if (omitted > 0) sb.append(" (+").append(omitted).append(" champs)");
+                return sb.append('}').toString();
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    private record Rendered(Map<String, ?> payload, int maxChars) {
+        @Override
+        public String toString() {
+            return render(payload, maxChars);
+        }
+    }
+}
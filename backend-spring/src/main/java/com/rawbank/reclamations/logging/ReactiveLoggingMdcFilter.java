@@ -0,0 +1,55 @@
+package com.rawbank.reclamations.logging;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Équivalent réactif de {@link LoggingMdcFilter} (mode WebFlux/Netty): les champs MDC de la requête
+ * sont placés dans le Context Reactor et non dans le ThreadLocal du thread d'entrée, un même thread
+ * d'event loop servant des milliers de requêtes entrelacées. {@link MdcThreadLocalAccessor} les
+ * restaure autour de chaque opérateur de la chaîne. Le nom d'hôte est ajouté par l'encodeur (serverHost).
+ */
+@Component
+@Order(1)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLoggingMdcFilter implements WebFilter {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest req = exchange.getRequest();
+        String requestId = req.getHeaders().getFirst(LoggingMdcFilter.HDR_REQUEST_ID);
+
+        Map<String, String> mdc = new HashMap<>(16);
+        put(mdc, "trackingId", requestId == null || requestId.isEmpty() ? UUID.randomUUID().toString() : requestId);
+        put(mdc, "userId", req.getHeaders().getFirst(LoggingMdcFilter.HDR_USER_ID));
+        put(mdc, "deviceId", req.getHeaders().getFirst(LoggingMdcFilter.HDR_DEVICE_ID));
+        put(mdc, "userAgent", req.getHeaders().getFirst("User-Agent"));
+        InetSocketAddress remote = req.getRemoteAddress();
+        if (remote != null && remote.getAddress() != null) put(mdc, "clientIp", remote.getAddress().getHostAddress());
+        put(mdc, "httpMethod", req.getMethod().name());
+        put(mdc, "httpPath", req.getPath().value());
+        put(mdc, "httpQuery", req.getURI().getRawQuery());
+        put(mdc, "timestamp", Instant.now().toString());
+
+        return chain.filter(exchange)
+                .contextWrite(ctx -> ctx.put(MdcThreadLocalAccessor.KEY, mdc));
+    }
+
+    private static void put(Map<String, String> mdc, String key, String value) {
+        if (value != null && !value.isEmpty()) {
+            mdc.put(key, value);
+        }
+    }
+}
@@ -15,7 +15,8 @@ public class ComplaintsAuditConsumer {
 
     @KafkaListener(
             topics = "${app.kafka.topics.complaints-raw:complaints_raw}",
-            groupId = "${app.kafka.groups.audit:reclamations-audit}"
+            groupId = "${app.kafka.groups.audit:reclamations-audit}",
+            concurrency = "${app.kafka.concurrency.audit:1}"
     )
     public void onComplaintSubmitted(ConsumerRecord<String, Object> record) {
         Object value = record.value();
@@ -25,8 +26,8 @@ public class ComplaintsAuditConsumer {
         }
         @SuppressWarnings("unchecked")
         Map<String, Object> payload = (Map<String, Object>) value;
-        log.info("[AUDIT] Réclamation immuable enregistrée key={} offset={} partition={} payloadKeys={}",
-                record.key(), record.offset(), record.partition(), payload.keySet());
+        log.info("[AUDIT] Réclamation immuable enregistrée key={} offset={} partition={} champs={}",
+                record.key(), record.offset(), record.partition(), payload.size());
         // TODO: envoyer une notification (email/Slack/SMS) si nécessaire
     }
 }
@@ -0,0 +1,146 @@
+package com.rawbank.reclamations.messaging;
+
+import com.rawbank.reclamations.service.ElasticsearchService;
+import com.rawbank.reclamations.service.ElasticsearchService.BulkDocument;
+import com.rawbank.reclamations.service.ElasticsearchService.BulkItemFailure;
+import com.rawbank.reclamations.service.ElasticsearchService.BulkResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Indexation Elasticsearch par lots (mode par défaut, {@code app.kafka.indexer.mode=batch}):
+ * chaque poll devient une indexation {@code _bulk}, l'offset du lot n'est validé qu'après la réponse.
+ * Les valeurs sont lues en octets et recopiées telles quelles dans le corps NDJSON (ni Map ni re-sérialisation);
+ * l'identifiant du document vient de l'en-tête {@link ComplaintsEventPublisher#TRACKING_ID_HEADER}
+ * (absent sur les événements plus anciens: identifiant attribué par Elasticsearch).
+ * - refus individuels temporaires (429, 5xx): seuls ces documents sont renvoyés, {@code item-retries} fois au plus;
+ * - refus définitifs (mapping, document invalide) ou réessais épuisés: l'enregistrement correspondant part en DLQ;
+ * - échec de la requête entière (Elasticsearch injoignable): exception, le lot complet est rejoué par le conteneur;
+ *   lors d'un nouvel essai de documents refusés, seuls ces documents partent en DLQ (rejouer le lot renverrait
+ *   en DLQ les enregistrements déjà écartés).
+ */
+@Component
+@ConditionalOnProperty(name = "app.kafka.indexer.mode", havingValue = "batch", matchIfMissing = true)
+public class ComplaintsBulkIndexingConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(ComplaintsBulkIndexingConsumer.class);
+
+    private final ElasticsearchService elasticsearchService;
+    private final ConsumerRecordRecoverer deadLetter;
+    private final int itemRetries;
+    private final Duration itemBackoff;
+    private final Counter retried;
+    private final Counter deadLettered;
+
+    public ComplaintsBulkIndexingConsumer(ElasticsearchService elasticsearchService,
+                                          ConsumerRecordRecoverer deadLetterRecoverer,
+                                          @Value("${app.kafka.indexer.item-retries:2}") int itemRetries,
+                                          @Value("${app.kafka.indexer.item-backoff:1s}") Duration itemBackoff,
+                                          MeterRegistry meterRegistry) {
+        this.elasticsearchService = elasticsearchService;
+        this.deadLetter = deadLetterRecoverer;
+        this.itemRetries = Math.max(0, itemRetries);
+        this.itemBackoff = itemBackoff;
+        this.retried = Counter.builder("reclamations.indexer.items")
+                .tag("outcome", "retried")
+                .description("Documents du lot renvoyés ou écartés après un refus Elasticsearch")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("reclamations.indexer.items")
+                .tag("outcome", "dead-lettered")
+                .description("Documents du lot renvoyés ou écartés après un refus Elasticsearch")
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(
+            topics = "${app.kafka.topics.complaints-raw:complaints_raw}",
+            groupId = "${app.kafka.groups.indexer:reclamations-indexer}",
+            concurrency = "${app.kafka.concurrency.indexer:${app.kafka.topics.partitions:3}}",
+            containerFactory = "batchKafkaListenerContainerFactory"
+    )
+    public void onComplaintsSubmitted(List<ConsumerRecord<String, byte[]>> records) {
+        List<ConsumerRecord<String, byte[]>> pending = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, byte[]> record : records) {
+            if (record.value() != null && record.value().length > 0) {
+                pending.add(record);
+            } else {
+                log.warn("[IDX] Event vide ignoré offset={} partition={}", record.offset(), record.partition());
+            }
+        }
+        log.debug("[IDX] Lot reçu: {} enregistrements ({} indexables)", records.size(), pending.size());
+
+        for (int attempt = 0; !pending.isEmpty(); attempt++) {
+            if (attempt > 0) pause(attempt);
+            BulkResult result;
+            try {
+                result = elasticsearchService.bulkIndex(documents(pending)).block();
+            } catch (RuntimeException e) {
+                // Premier essai: erreur propagée, le conteneur rejoue le lot
+                if (attempt == 0) throw e;
+                log.error("[IDX] Nouvel essai {}/{} en échec, {} documents envoyés en DLQ: {}",
+                        attempt, itemRetries, pending.size(), e.getMessage());
+                for (ConsumerRecord<String, byte[]> record : pending) {
+                    deadLetter.accept(record, e);
+                    deadLettered.increment();
+                }
+                return;
+            }
+            if (result == null || result.failures().isEmpty()) return;
+
+            List<ConsumerRecord<String, byte[]>> retry = new ArrayList<>();
+            for (BulkItemFailure failure : result.failures()) {
+                ConsumerRecord<String, byte[]> record = pending.get(failure.index());
+                if (failure.retryable() && attempt < itemRetries) {
+                    retry.add(record);
+                } else {
+                    deadLetter(record, failure);
+                }
+            }
+            retried.increment(retry.size());
+            if (!retry.isEmpty()) {
+                log.warn("[IDX] {} documents refusés temporairement par Elasticsearch, nouvel essai {}/{}",
+                        retry.size(), attempt + 1, itemRetries);
+            }
+            pending = retry;
+        }
+    }
+
+    private static List<BulkDocument> documents(List<ConsumerRecord<String, byte[]>> records) {
+        List<BulkDocument> docs = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, byte[]> record : records) {
+            Header id = record.headers().lastHeader(ComplaintsEventPublisher.TRACKING_ID_HEADER);
+            docs.add(new BulkDocument(id == null ? null : new String(id.value(), StandardCharsets.UTF_8), record.value()));
+        }
+        return docs;
+    }
+
+    private void deadLetter(ConsumerRecord<String, byte[]> record, BulkItemFailure failure) {
+        log.error("[IDX] Indexation refusée offset={} partition={} status={}: {}",
+                record.offset(), record.partition(), failure.status(), failure.reason());
+        deadLetter.accept(record, new IllegalStateException(
+                "Indexation refusée par Elasticsearch (" + failure.status() + "): " + failure.reason()));
+        deadLettered.increment();
+    }
+
+    private void pause(int attempt) {
+        try {
+            Thread.sleep(itemBackoff.multipliedBy(1L << Math.min(attempt - 1, 10)).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Indexation interrompue", e);
+        }
+    }
+}
@@ -37,11 +37,11 @@ public class ComplaintsEventConsumer {
         }
         @SuppressWarnings("unchecked")
         Map<String, Object> payload = (Map<String, Object>) value;
-        log.info("Reçu événement complaints.submitted offset={} partition={}", record.offset(), record.partition());
+        log.debug("Reçu événement complaints.submitted offset={} partition={}", record.offset(), record.partition());
 
         powerAutomateService.submit(payload)
                 .flatMap(pa -> {
-                    log.info("PowerAutomate OK");
+                    log.debug("PowerAutomate OK");
                     return elasticsearchService.indexDocument(payload).defaultIfEmpty(Map.of());
                 })
                 .doOnError(e -> log.error("Erreur traitement asynchrone de la réclamation: {}", e.getMessage()))
@@ -1,34 +1,96 @@
 package com.rawbank.reclamations.messaging;
 
+import com.rawbank.reclamations.logging.KafkaMdcRecordInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Publication des réclamations soumises sur {@code app.kafka.topics.complaints-raw}.
+ * Les événements sont clés par {@code app.kafka.producer.key-field} (NUMEROCLIENT par défaut):
+ * ceux d'un même client vont sur la même partition et sont consommés dans l'ordre.
+ * Sans valeur pour ce champ, ou avec la valeur du gabarit ({@value #KEY_PLACEHOLDER}, default-payload.json), l'événement
+ * est clé par son TRACKINGID: toutes les réclamations sans client identifié sur une même clé surchargeraient une partition.
+ * Sans TRACKINGID non plus, il part sans clé (partition choisie par le producteur).
+ * Le TRACKINGID est aussi posé en en-tête ({@link #TRACKING_ID_HEADER}): l'indexeur en tire l'identifiant
+ * du document sans relire le JSON.
+ * Latence d'envoi (jusqu'à l'acquittement du broker): {@code reclamations.kafka.send{topic,outcome}}.
+ */
 @Component
 public class ComplaintsEventPublisher {
 
+    public static final String TRACKING_ID_HEADER = "X-Tracking-Id";
+    /** Valeur par défaut du gabarit pour les champs client non renseignés: pas une clé de partitionnement. */
+    static final String KEY_PLACEHOLDER = "N/A";
+
     private final KafkaTemplate<String, Object> kafkaTemplate;
     private final String topic;
+    private final String keyField;
+    private final Timer sendOk;
+    private final Timer sendError;
 
     public ComplaintsEventPublisher(KafkaTemplate<String, Object> kafkaTemplate,
-                                    @Value("${app.kafka.topics.complaints-raw:complaints_raw}") String topic) {
+                                    @Value("${app.kafka.topics.complaints-raw:complaints_raw}") String topic,
+                                    @Value("${app.kafka.producer.key-field:NUMEROCLIENT}") String keyField,
+                                    MeterRegistry meterRegistry) {
         this.kafkaTemplate = kafkaTemplate;
         this.topic = topic;
+        this.keyField = keyField;
+        this.sendOk = sendTimer(meterRegistry, topic, "success");
+        this.sendError = sendTimer(meterRegistry, topic, "error");
     }
 
     public Mono<Void> publishSubmitted(Map<String, Object> finalPayload) {
-        return Mono.create(sink ->
-                kafkaTemplate.send(topic, finalPayload)
-                        .whenComplete((result, ex) -> {
-                            if (ex != null) {
-                                sink.error(ex);
-                            } else {
-                                sink.success();
-                            }
-                        })
-        );
+        return Mono.<Void>create(sink -> {
+            String trackingId = keyOf(finalPayload, "TRACKINGID");
+            ProducerRecord<String, Object> record = new ProducerRecord<>(topic, partitionKey(finalPayload, keyField, trackingId), finalPayload);
+            // trackingId de la requête HTTP transmis aux consommateurs (logs corrélés de bout en bout)
+            KafkaMdcRecordInterceptor.propagate(record.headers(), sink.contextView());
+            if (trackingId != null) record.headers().add(TRACKING_ID_HEADER, trackingId.getBytes(StandardCharsets.UTF_8));
+            long start = System.nanoTime();
+            kafkaTemplate.send(record)
+                    .whenComplete((result, ex) -> {
+                        (ex != null ? sendError : sendOk).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        if (ex != null) {
+                            sink.error(ex);
+                        } else {
+                            sink.success();
+                        }
+                    });
+        // send() peut bloquer (attente des métadonnées, tampon plein): jamais sur un thread d'event loop
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /** Valeur d'un champ du payload (clé de partitionnement, TRACKINGID) sans espaces autour, null si absente ou vide. */
+    static String keyOf(Map<String, Object> payload, String field) {
+        if (payload == null || field == null || field.isBlank()) return null;
+        Object value = payload.get(field);
+        if (value == null) return null;
+        String key = value.toString().trim();
+        return key.isEmpty() ? null : key;
+    }
+
+    /** Clé de partitionnement: {@code keyField} s'il est renseigné (hors valeur du gabarit), sinon le TRACKINGID. */
+    static String partitionKey(Map<String, Object> payload, String keyField, String trackingId) {
+        String key = keyOf(payload, keyField);
+        return key == null || KEY_PLACEHOLDER.equalsIgnoreCase(key) ? trackingId : key;
+    }
+
+    private static Timer sendTimer(MeterRegistry registry, String topic, String outcome) {
+        return Timer.builder("reclamations.kafka.send")
+                .tag("topic", topic)
+                .tag("outcome", outcome)
+                .description("Latence d'envoi Kafka jusqu'à l'acquittement du broker")
+                .publishPercentileHistogram()
+                .register(registry);
     }
 }
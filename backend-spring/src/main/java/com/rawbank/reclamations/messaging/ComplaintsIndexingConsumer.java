@@ -4,6 +4,7 @@ import com.rawbank.reclamations.service.ElasticsearchService;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
@@ -11,6 +12,7 @@ import reactor.core.publisher.Mono;
 import java.util.Map;
 
 @Component
+@ConditionalOnProperty(name = "app.kafka.indexer.mode", havingValue = "record")
 public class ComplaintsIndexingConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(ComplaintsIndexingConsumer.class);
@@ -23,7 +25,8 @@ public class ComplaintsIndexingConsumer {
 
     @KafkaListener(
             topics = "${app.kafka.topics.complaints-raw:complaints_raw}",
-            groupId = "${app.kafka.groups.indexer:reclamations-indexer}"
+            groupId = "${app.kafka.groups.indexer:reclamations-indexer}",
+            concurrency = "${app.kafka.concurrency.indexer:${app.kafka.topics.partitions:3}}"
     )
     public void onComplaintSubmitted(ConsumerRecord<String, Object> record) {
         Object value = record.value();
@@ -33,10 +36,10 @@ public class ComplaintsIndexingConsumer {
         }
         @SuppressWarnings("unchecked")
         Map<String, Object> payload = (Map<String, Object>) value;
-        log.info("[IDX] Reçu événement offset={} partition={}", record.offset(), record.partition());
+        log.debug("[IDX] Reçu événement offset={} partition={}", record.offset(), record.partition());
 
         elasticsearchService.indexDocument(payload)
-                .doOnSuccess(x -> log.info("[IDX] Indexation OK"))
+                .doOnSuccess(x -> log.debug("[IDX] Indexation OK"))
                 .doOnError(e -> log.error("[IDX] Erreur indexation: {}", e.getMessage()))
                 .onErrorResume(e -> Mono.empty())
                 .block();
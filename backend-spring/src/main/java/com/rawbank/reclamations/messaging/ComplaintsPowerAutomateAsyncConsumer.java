@@ -0,0 +1,135 @@
+package com.rawbank.reclamations.messaging;
+
+import com.rawbank.reclamations.logging.MdcThreadLocalAccessor;
+import com.rawbank.reclamations.service.resilience.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worker Power Automate non bloquant (mode {@code async}): le thread du conteneur lance l'appel et passe
+ * à l'enregistrement suivant. Jusqu'à {@code app.kafka.powerautomate.max-in-flight} appels en cours par partition;
+ * la limite atteinte, la partition est mise en pause et reprend dès qu'un appel se termine.
+ * Offsets acquittés manuellement, dans l'ordre, au fil des réponses ({@link InFlightPartitionDispatcher}).
+ * Comme en mode {@code sync}, une erreur Power Automate est journalisée et l'enregistrement acquitté;
+ * une exception levée avant l'appel passe par le gestionnaire d'erreurs du conteneur (réessais puis DLQ).
+ * Un appel refusé (circuit ouvert, cloison pleine) est réessayé avec la politique du gestionnaire d'erreurs
+ * (3 réessais, attente 1s doublée, 8s max) en gardant sa place dans la fenêtre, puis envoyé en DLQ et acquitté.
+ */
+@Component
+@ConditionalOnProperty(name = "app.kafka.powerautomate.mode", havingValue = "async")
+public class ComplaintsPowerAutomateAsyncConsumer implements ConsumerSeekAware {
+
+    static final String LISTENER_ID = "powerautomate-async";
+
+    private static final Logger log = LoggerFactory.getLogger(ComplaintsPowerAutomateAsyncConsumer.class);
+
+    // Même politique que le DefaultErrorHandler des conteneurs (KafkaConsumerErrorHandlerConfig)
+    private static final int REJECTED_RETRIES = 3;
+    private static final Duration REJECTED_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration REJECTED_MAX_BACKOFF = Duration.ofSeconds(8);
+
+    private final PowerAutomateEventHandler handler;
+    private final ObjectProvider<KafkaListenerEndpointRegistry> registry;
+    private final ConsumerRecordRecoverer deadLetter;
+    private final InFlightPartitionDispatcher dispatcher;
+    private final Counter pauses;
+
+    public ComplaintsPowerAutomateAsyncConsumer(PowerAutomateEventHandler handler,
+                                                ObjectProvider<KafkaListenerEndpointRegistry> registry,
+                                                ConsumerRecordRecoverer deadLetter,
+                                                @Value("${app.kafka.powerautomate.max-in-flight:4}") int maxInFlight,
+                                                @Value("${app.kafka.groups.powerautomate:reclamations-pa-worker}") String groupId,
+                                                MeterRegistry meterRegistry) {
+        this.handler = handler;
+        this.registry = registry;
+        this.deadLetter = deadLetter;
+        this.pauses = Counter.builder("reclamations.kafka.partition.pauses")
+                .description("Mises en pause d'une partition, limite d'appels en cours atteinte")
+                .tag("listener", LISTENER_ID)
+                .register(meterRegistry);
+        // Le listener rend la main dès l'appel lancé (mesure désactivée dans l'intercepteur): durée réelle relevée ici
+        Timer processed = ListenerMetricsInterceptor.processingTimer(meterRegistry, groupId, true);
+        Timer failed = ListenerMetricsInterceptor.processingTimer(meterRegistry, groupId, false);
+        this.dispatcher = new InFlightPartitionDispatcher(maxInFlight, new InFlightPartitionDispatcher.PartitionControl() {
+            @Override
+            public void pause(TopicPartition partition) {
+                MessageListenerContainer container = container();
+                if (container == null) return;
+                pauses.increment();
+                log.debug("[PA] {} appels en cours, pause de la partition {}", maxInFlight, partition);
+                container.pausePartition(partition);
+            }
+
+            @Override
+            public void resume(TopicPartition partition) {
+                MessageListenerContainer container = container();
+                if (container != null) container.resumePartition(partition);
+            }
+        }, (partition, durationNanos, success) -> (success ? processed : failed).record(durationNanos, TimeUnit.NANOSECONDS));
+        Gauge.builder("reclamations.powerautomate.inflight", dispatcher, InFlightPartitionDispatcher::inFlight)
+                .description("Appels Power Automate en cours (worker asynchrone)")
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(
+            id = LISTENER_ID,
+            idIsGroup = false,
+            topics = "${app.kafka.topics.complaints-raw:complaints_raw}",
+            groupId = "${app.kafka.groups.powerautomate:reclamations-pa-worker}",
+            concurrency = "${app.kafka.concurrency.powerautomate:${app.kafka.topics.partitions:3}}",
+            containerFactory = "manualAckKafkaListenerContainerFactory"
+    )
+    public void onComplaintSubmitted(ConsumerRecord<String, Object> record, Acknowledgment ack) {
+        Mono<Void> work = handler.handle(record)
+                .retryWhen(Retry.backoff(REJECTED_RETRIES, REJECTED_BACKOFF)
+                        .maxBackoff(REJECTED_MAX_BACKOFF)
+                        .jitter(0)
+                        .filter(CallNotPermittedException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                // Envoi DLQ bloquant (attente de l'acquittement du broker): hors des threads Netty
+                .onErrorResume(CallNotPermittedException.class, e -> Mono.<Void>fromRunnable(() -> deadLetter.accept(record, e))
+                        .subscribeOn(Schedulers.boundedElastic()));
+        // L'appel peut démarrer plus tard depuis un autre thread: MDC de l'enregistrement figé dans le Context
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        if (mdc != null && !mdc.isEmpty()) {
+            work = work.contextWrite(ctx -> ctx.put(MdcThreadLocalAccessor.KEY, mdc));
+        }
+        dispatcher.dispatch(new TopicPartition(record.topic(), record.partition()), work, ack::acknowledge);
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        dispatcher.revoke(partitions);
+    }
+
+    private MessageListenerContainer container() {
+        KafkaListenerEndpointRegistry r = registry.getIfAvailable();
+        return r != null ? r.getListenerContainer(LISTENER_ID) : null;
+    }
+}
@@ -0,0 +1,49 @@
+package com.rawbank.reclamations.messaging;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Retard (lag) par partition d'un conteneur de listeners, lu dans les métriques de ses consommateurs
+ * ({@code records-lag}, groupe {@code consumer-fetch-manager-metrics}): aucun appel au broker.
+ * Seules les partitions assignées et déjà lues au moins une fois sont présentes.
+ */
+public final class ConsumerLag {
+
+    static final String LAG_METRIC = "records-lag";
+    static final String FETCH_GROUP = "consumer-fetch-manager-metrics";
+
+    private ConsumerLag() {}
+
+    public static Map<TopicPartition, Long> byPartition(MessageListenerContainer container) {
+        return byPartition(container.metrics());
+    }
+
+    static Map<TopicPartition, Long> byPartition(Map<String, Map<MetricName, ? extends Metric>> metricsByClient) {
+        Map<TopicPartition, Long> lag = new HashMap<>();
+        for (Map<MetricName, ? extends Metric> metrics : metricsByClient.values()) {
+            metrics.forEach((name, metric) -> {
+                if (!LAG_METRIC.equals(name.name()) || !FETCH_GROUP.equals(name.group())) return;
+                String topic = name.tags().get("topic");
+                String partition = name.tags().get("partition");
+                if (topic == null || partition == null) return;
+                // NaN tant que la partition n'a pas été lue
+                if (metric.metricValue() instanceof Double d && !d.isNaN()) {
+                    lag.put(new TopicPartition(topic, Integer.parseInt(partition)), Math.max(0L, d.longValue()));
+                }
+            });
+        }
+        return lag;
+    }
+
+    public static long total(Map<TopicPartition, Long> lag) {
+        long sum = 0;
+        for (long l : lag.values()) sum += l;
+        return sum;
+    }
+}
@@ -0,0 +1,75 @@
+package com.rawbank.reclamations.messaging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Retard des listeners par partition, {@code reclamations.kafka.consumer.lag{group,topic,partition}}, et par groupe
+ * pour le health check ({@link KafkaLagHealthIndicator}). Lu toutes les {@code app.kafka.lag.refresh-interval}
+ * dans les métriques des consommateurs ({@link ConsumerLag}); les partitions qui ne sont plus assignées disparaissent.
+ */
+@Component
+public class ConsumerLagMetrics implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsumerLagMetrics.class);
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final MultiGauge lagGauge;
+    private final Disposable ticker;
+
+    public ConsumerLagMetrics(KafkaListenerEndpointRegistry registry,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.kafka.lag.refresh-interval:15s}") Duration refreshInterval) {
+        this.registry = registry;
+        this.lagGauge = MultiGauge.builder("reclamations.kafka.consumer.lag")
+                .description("Enregistrements en attente de lecture, par partition")
+                .register(meterRegistry);
+        this.ticker = Flux.interval(refreshInterval, refreshInterval, Schedulers.boundedElastic())
+                .subscribe(tick -> refresh(), e -> log.error("[Kafka] Mesure du retard arrêtée: {}", e.getMessage()));
+    }
+
+    /** Retard total par groupe de consommateurs, conteneurs en cours d'exécution uniquement. */
+    public Map<String, Long> lagByGroup() {
+        Map<String, Long> byGroup = new LinkedHashMap<>();
+        for (MessageListenerContainer container : registry.getListenerContainers()) {
+            if (!container.isRunning()) continue;
+            Map<TopicPartition, Long> lag = ConsumerLag.byPartition(container);
+            if (!lag.isEmpty()) byGroup.merge(container.getGroupId(), ConsumerLag.total(lag), Long::sum);
+        }
+        return byGroup;
+    }
+
+    private void refresh() {
+        List<MultiGauge.Row<?>> rows = new ArrayList<>();
+        for (MessageListenerContainer container : registry.getListenerContainers()) {
+            if (!container.isRunning()) continue;
+            String group = container.getGroupId();
+            ConsumerLag.byPartition(container).forEach((tp, lag) -> rows.add(MultiGauge.Row.of(
+                    Tags.of("group", group, "topic", tp.topic(), "partition", String.valueOf(tp.partition())), lag)));
+        }
+        lagGauge.register(rows, true);
+    }
+
+    @Override
+    public void destroy() {
+        ticker.dispose();
+    }
+}
@@ -0,0 +1,177 @@
+package com.rawbank.reclamations.messaging;
+
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Traitements asynchrones d'enregistrements Kafka, au plus {@code maxInFlight} en cours par partition.
+ * Les enregistrements d'une partition démarrent dans l'ordre des offsets; au-delà de la limite ils attendent
+ * en file (reste du poll courant) et la partition est mise en pause jusqu'à ce qu'un traitement se termine.
+ * L'acquittement est rendu dans l'ordre: à chaque fin de traitement, seul le dernier offset du préfixe terminé
+ * est acquitté, un offset n'est donc jamais validé tant qu'un offset antérieur est en cours.
+ */
+public class InFlightPartitionDispatcher {
+
+    /**
+     * Mise en pause / reprise de la consommation d'une partition (conteneur Kafka). Appelé sous le verrou
+     * de la partition: l'implémentation doit être rapide et non bloquante (demande enregistrée par le conteneur).
+     */
+    public interface PartitionControl {
+        void pause(TopicPartition partition);
+
+        void resume(TopicPartition partition);
+    }
+
+    /** Fin d'un traitement: durée depuis son démarrage effectif (attente en file exclue), hors verrou. */
+    public interface ProcessingListener {
+        void processed(TopicPartition partition, long durationNanos, boolean success);
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(InFlightPartitionDispatcher.class);
+
+    private final int maxInFlight;
+    private final PartitionControl control;
+    private final ProcessingListener listener;
+    private final Map<TopicPartition, Lane> lanes = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public InFlightPartitionDispatcher(int maxInFlight, PartitionControl control) {
+        this(maxInFlight, control, (partition, durationNanos, success) -> {});
+    }
+
+    public InFlightPartitionDispatcher(int maxInFlight, PartitionControl control, ProcessingListener listener) {
+        if (maxInFlight < 1) throw new IllegalArgumentException("maxInFlight doit être >= 1: " + maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.control = control;
+        this.listener = listener;
+    }
+
+    /**
+     * Soumet le traitement d'un enregistrement; {@code ack} est appelé (éventuellement sur un autre thread)
+     * quand cet enregistrement et tous ceux qui le précèdent sur la partition sont terminés.
+     * À appeler dans l'ordre des offsets, depuis le thread du consommateur.
+     */
+    public void dispatch(TopicPartition partition, Mono<?> work, Runnable ack) {
+        Lane lane = lanes.computeIfAbsent(partition, Lane::new);
+        Entry entry = new Entry(work, ack);
+        List<Entry> toStart;
+        synchronized (lane) {
+            lane.window.add(entry);
+            lane.waiting.add(entry);
+            toStart = lane.startable();
+            // Sous le verrou: une fin de traitement ne peut pas reprendre la partition avant sa mise en pause
+            if (!lane.paused && lane.running >= maxInFlight) {
+                lane.paused = true;
+                control.pause(partition);
+            }
+        }
+        start(lane, toStart);
+    }
+
+    /**
+     * Partitions retirées par un rééquilibrage: les enregistrements en attente sont abandonnés (ils seront relus
+     * par le nouveau propriétaire depuis le dernier offset validé), les traitements en cours ne sont plus acquittés.
+     */
+    public void revoke(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            Lane lane = lanes.remove(partition);
+            if (lane == null) continue;
+            synchronized (lane) {
+                lane.revoked = true;
+                lane.waiting.clear();
+                lane.window.clear();
+                // Sans reprise explicite, la pause demandée serait réappliquée si la partition revient
+                if (lane.paused) control.resume(partition);
+                lane.paused = false;
+            }
+        }
+    }
+
+    /** Traitements en cours, toutes partitions confondues. */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private void start(Lane lane, List<Entry> entries) {
+        for (Entry entry : entries) {
+            inFlight.incrementAndGet();
+            long startedAt = System.nanoTime();
+            entry.work
+                .doFinally(signal -> {
+                    listener.processed(lane.partition, System.nanoTime() - startedAt, signal == SignalType.ON_COMPLETE);
+                    complete(lane, entry);
+                })
+                .subscribe(null, e -> log.error("[Kafka] Traitement asynchrone en échec partition={}: {}", lane.partition, e.getMessage()));
+        }
+    }
+
+    private void complete(Lane lane, Entry entry) {
+        inFlight.decrementAndGet();
+        List<Entry> toStart;
+        synchronized (lane) {
+            if (lane.revoked) return;
+            entry.done = true;
+            lane.running--;
+            Entry last = null;
+            while (!lane.window.isEmpty() && lane.window.peekFirst().done) {
+                last = lane.window.pollFirst();
+            }
+            // Acquittement sous le verrou: deux fins de traitement concurrentes ne peuvent pas l'inverser
+            if (last != null) last.ack.run();
+            toStart = lane.startable();
+            if (lane.paused && lane.running < maxInFlight) {
+                lane.paused = false;
+                control.resume(lane.partition);
+            }
+        }
+        start(lane, toStart);
+    }
+
+    private final class Lane {
+        private final TopicPartition partition;
+        /** Enregistrements non acquittés (démarrés ou non), dans l'ordre des offsets. */
+        private final ArrayDeque<Entry> window = new ArrayDeque<>();
+        /** Enregistrements pas encore démarrés. */
+        private final ArrayDeque<Entry> waiting = new ArrayDeque<>();
+        private int running;
+        private boolean paused;
+        private boolean revoked;
+
+        private Lane(TopicPartition partition) {
+            this.partition = partition;
+        }
+
+        // Appelé sous le verrou de la voie
+        private List<Entry> startable() {
+            if (waiting.isEmpty() || running >= maxInFlight) return List.of();
+            List<Entry> started = new ArrayList<>();
+            while (!waiting.isEmpty() && running < maxInFlight) {
+                started.add(waiting.pollFirst());
+                running++;
+            }
+            return started;
+        }
+    }
+
+    private static final class Entry {
+        private final Mono<?> work;
+        private final Runnable ack;
+        private boolean done;
+
+        private Entry(Mono<?> work, Runnable ack) {
+            this.work = work;
+            this.ack = ack;
+        }
+    }
+}
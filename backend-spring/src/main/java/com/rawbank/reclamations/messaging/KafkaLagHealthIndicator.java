@@ -0,0 +1,43 @@
+package com.rawbank.reclamations.messaging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Composant {@code kafkaLag} de /actuator/health: {@code DEGRADED} dès qu'un groupe de consommateurs accumule
+ * plus de {@code app.kafka.lag.degraded-threshold} enregistrements de retard. Reste UP sans mesure (Kafka injoignable,
+ * démarrage): la disponibilité du broker n'est pas l'objet de ce contrôle.
+ * DEGRADED est classé entre DOWN et UP ({@code management.endpoint.health.status.order}) et répond 200.
+ */
+@Component
+public class KafkaLagHealthIndicator implements HealthIndicator {
+
+    public static final Status DEGRADED = new Status("DEGRADED", "Retard de consommation au-delà du seuil");
+
+    private final ConsumerLagMetrics lagMetrics;
+    private final long threshold;
+
+    public KafkaLagHealthIndicator(ConsumerLagMetrics lagMetrics,
+                                   @Value("${app.kafka.lag.degraded-threshold:10000}") long threshold) {
+        this.lagMetrics = lagMetrics;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public Health health() {
+        return health(lagMetrics.lagByGroup(), threshold);
+    }
+
+    static Health health(Map<String, Long> lagByGroup, long threshold) {
+        boolean degraded = lagByGroup.values().stream().anyMatch(lag -> lag > threshold);
+        return Health.status(degraded ? DEGRADED : Status.UP)
+                .withDetail("threshold", threshold)
+                .withDetail("groups", lagByGroup)
+                .build();
+    }
+}
@@ -0,0 +1,125 @@
+package com.rawbank.reclamations.messaging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ajustement de la concurrence des conteneurs {@code @KafkaListener} selon le retard mesuré (opt-in).
+ * Toutes les {@code interval}, pour chaque conteneur: cible = retard total / {@code lag-per-consumer} (arrondi
+ * au-dessus), bornée par {@code min-concurrency} et {@code max-concurrency} (au plus une partition par consommateur).
+ * Montée directe à la cible, descente d'un consommateur à la fois; au plus un changement par {@code cooldown}.
+ * Un changement redémarre le conteneur (stop puis start): le groupe se rééquilibre.
+ */
+@Component
+@ConditionalOnProperty(name = "app.kafka.autoscale.enabled", havingValue = "true")
+public class ListenerConcurrencyController implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ListenerConcurrencyController.class);
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final MeterRegistry meterRegistry;
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final long lagPerConsumer;
+    private final long cooldownNanos;
+    private final Map<String, Long> lastChange = new ConcurrentHashMap<>();
+    private final Disposable ticker;
+
+    public ListenerConcurrencyController(KafkaListenerEndpointRegistry registry,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${app.kafka.autoscale.min-concurrency:1}") int minConcurrency,
+                                         @Value("${app.kafka.autoscale.max-concurrency:${app.kafka.topics.partitions:3}}") int maxConcurrency,
+                                         @Value("${app.kafka.topics.partitions:3}") int partitions,
+                                         @Value("${app.kafka.autoscale.lag-per-consumer:1000}") long lagPerConsumer,
+                                         @Value("${app.kafka.autoscale.interval:30s}") Duration interval,
+                                         @Value("${app.kafka.autoscale.cooldown:2m}") Duration cooldown) {
+        if (minConcurrency < 1 || minConcurrency > maxConcurrency || lagPerConsumer < 1) {
+            throw new IllegalArgumentException("app.kafka.autoscale: min-concurrency (" + minConcurrency
+                    + ") doit être entre 1 et max-concurrency (" + maxConcurrency + "), lag-per-consumer >= 1");
+        }
+        this.registry = registry;
+        this.meterRegistry = meterRegistry;
+        this.minConcurrency = minConcurrency;
+        // Au-delà du nombre de partitions, les consommateurs en trop restent sans partition
+        this.maxConcurrency = Math.max(minConcurrency, Math.min(maxConcurrency, partitions));
+        this.lagPerConsumer = lagPerConsumer;
+        this.cooldownNanos = cooldown.toNanos();
+        this.ticker = Flux.interval(interval, interval, Schedulers.boundedElastic())
+                .subscribe(tick -> adjustAll(), e -> log.error("[Kafka] Ajustement de concurrence arrêté: {}", e.getMessage()));
+        log.info("[Kafka] Concurrence des listeners ajustée selon le retard: {}..{} consommateurs, {} messages par consommateur",
+                minConcurrency, this.maxConcurrency, lagPerConsumer);
+    }
+
+    /**
+     * Concurrence visée pour un retard donné: montée directe au besoin, descente d'un pas
+     * pour éviter les oscillations (chaque changement coûte un rééquilibrage).
+     */
+    static int target(long lag, int current, int min, int max, long lagPerConsumer) {
+        long needed = (lag + lagPerConsumer - 1) / lagPerConsumer;
+        int wanted = (int) Math.max(min, Math.min(max, needed));
+        if (wanted > current) return wanted;
+        if (wanted < current) return Math.max(min, Math.min(max, current - 1));
+        return current;
+    }
+
+    private void adjustAll() {
+        for (MessageListenerContainer container : registry.getListenerContainers()) {
+            try {
+                adjust(container);
+            } catch (RuntimeException e) {
+                log.warn("[Kafka] Ajustement de concurrence impossible pour {}: {}", container.getListenerId(), e.getMessage());
+            }
+        }
+    }
+
+    private void adjust(MessageListenerContainer container) {
+        if (!(container instanceof ConcurrentMessageListenerContainer<?, ?> concurrent) || !concurrent.isRunning()) return;
+        Map<TopicPartition, Long> lag = ConsumerLag.byPartition(concurrent);
+        if (lag.isEmpty()) return; // pas encore de mesure (démarrage, redémarrage en cours)
+        long total = ConsumerLag.total(lag);
+        int current = concurrent.getConcurrency();
+        int target = target(total, current, minConcurrency, maxConcurrency, lagPerConsumer);
+        if (target == current) return;
+
+        String id = concurrent.getListenerId();
+        long now = System.nanoTime();
+        Long last = lastChange.get(id);
+        if (last != null && now - last < cooldownNanos) return;
+        lastChange.put(id, now);
+
+        log.info("[Kafka] Listener {} (groupe {}): retard {} => concurrence {} -> {}",
+                id, concurrent.getGroupId(), total, current, target);
+        Counter.builder("reclamations.kafka.listener.rescale")
+                .description("Changements de concurrence d'un conteneur de listeners")
+                .tag("listener", id)
+                .tag("direction", target > current ? "up" : "down")
+                .register(meterRegistry)
+                .increment();
+        concurrent.stop(() -> {
+            concurrent.setConcurrency(target);
+            concurrent.start();
+        });
+    }
+
+    @Override
+    public void destroy() {
+        ticker.dispose();
+    }
+}
@@ -0,0 +1,143 @@
+package com.rawbank.reclamations.messaging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.RecordInterceptor;
+import org.springframework.kafka.support.KafkaUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métriques des listeners Kafka, par groupe de consommateurs (tag {@code group}):
+ * - {@code reclamations.kafka.listener.records}: enregistrements reçus (débit en enregistrements/s)
+ * - {@code reclamations.kafka.listener.processing{outcome=success|failure}}: durée de traitement, par enregistrement
+ *   ou par lot selon le conteneur (histogramme). Conteneurs à acquittement asynchrone: mesure désactivée ici
+ *   ({@code timeProcessing=false}), la durée réelle est enregistrée à la fin du traitement ({@link #processingTimer})
+ * - {@code reclamations.kafka.record.age}: âge de l'enregistrement à sa réception (maintenant - horodatage Kafka), bout en bout
+ * Chaque livraison est comptée, réessais compris.
+ */
+public class ListenerMetricsInterceptor<V> implements RecordInterceptor<String, V>, BatchInterceptor<String, V> {
+
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED = Duration.ofMinutes(5);
+
+    private final MeterRegistry registry;
+    private final boolean timeProcessing;
+    private final Map<String, GroupMeters> meters = new ConcurrentHashMap<>();
+    // intercept() et success()/failure() sont appelés sur le thread du consommateur
+    private final ThreadLocal<Long> started = new ThreadLocal<>();
+
+    public ListenerMetricsInterceptor(MeterRegistry registry) {
+        this(registry, true);
+    }
+
+    /** @param timeProcessing false si le listener rend la main avant la fin du traitement (acquittement asynchrone) */
+    public ListenerMetricsInterceptor(MeterRegistry registry, boolean timeProcessing) {
+        this.registry = registry;
+        this.timeProcessing = timeProcessing;
+    }
+
+    /** Timer {@code reclamations.kafka.listener.processing} d'un groupe, pour les traitements terminés hors du listener. */
+    public static Timer processingTimer(MeterRegistry registry, String group, boolean success) {
+        return GroupMeters.processing(registry, group, success ? "success" : "failure");
+    }
+
+    @Override
+    public ConsumerRecord<String, V> intercept(ConsumerRecord<String, V> record, Consumer<String, V> consumer) {
+        GroupMeters m = meters();
+        m.records.increment();
+        recordAge(m, record, System.currentTimeMillis());
+        if (timeProcessing) started.set(System.nanoTime());
+        return record;
+    }
+
+    @Override
+    public void success(ConsumerRecord<String, V> record, Consumer<String, V> consumer) {
+        stop(true);
+    }
+
+    @Override
+    public void failure(ConsumerRecord<String, V> record, Exception exception, Consumer<String, V> consumer) {
+        stop(false);
+    }
+
+    @Override
+    public ConsumerRecords<String, V> intercept(ConsumerRecords<String, V> records, Consumer<String, V> consumer) {
+        GroupMeters m = meters();
+        m.records.increment(records.count());
+        long now = System.currentTimeMillis();
+        for (ConsumerRecord<String, V> record : records) recordAge(m, record, now);
+        if (timeProcessing) started.set(System.nanoTime());
+        return records;
+    }
+
+    @Override
+    public void success(ConsumerRecords<String, V> records, Consumer<String, V> consumer) {
+        stop(true);
+    }
+
+    @Override
+    public void failure(ConsumerRecords<String, V> records, Exception exception, Consumer<String, V> consumer) {
+        stop(false);
+    }
+
+    private void stop(boolean success) {
+        Long start = started.get();
+        if (start == null) return;
+        started.remove();
+        GroupMeters m = meters();
+        (success ? m.success : m.failure).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static void recordAge(GroupMeters m, ConsumerRecord<?, ?> record, long now) {
+        // Horodatage absent (-1) sur les très anciens formats de message
+        if (record.timestamp() >= 0) m.age.record(Math.max(0L, now - record.timestamp()), TimeUnit.MILLISECONDS);
+    }
+
+    private GroupMeters meters() {
+        String group = KafkaUtils.getConsumerGroupId();
+        return meters.computeIfAbsent(group != null ? group : "unknown", g -> new GroupMeters(registry, g));
+    }
+
+    private static final class GroupMeters {
+        private final Counter records;
+        private final Timer age;
+        private final Timer success;
+        private final Timer failure;
+
+        private GroupMeters(MeterRegistry registry, String group) {
+            this.records = Counter.builder("reclamations.kafka.listener.records")
+                    .description("Enregistrements Kafka reçus par les listeners")
+                    .tag("group", group)
+                    .register(registry);
+            this.age = Timer.builder("reclamations.kafka.record.age")
+                    .description("Âge des enregistrements à leur réception (maintenant - horodatage Kafka)")
+                    .tag("group", group)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(MIN_EXPECTED)
+                    .maximumExpectedValue(MAX_EXPECTED)
+                    .register(registry);
+            this.success = processing(registry, group, "success");
+            this.failure = processing(registry, group, "failure");
+        }
+
+        private static Timer processing(MeterRegistry registry, String group, String outcome) {
+            return Timer.builder("reclamations.kafka.listener.processing")
+                    .description("Durée de traitement par les listeners Kafka")
+                    .tag("group", group)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(MIN_EXPECTED)
+                    .maximumExpectedValue(MAX_EXPECTED)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.rawbank.reclamations.messaging;
+
+import com.rawbank.reclamations.service.PowerAutomateService;
+import com.rawbank.reclamations.service.SubmissionTrackingService;
+import com.rawbank.reclamations.service.resilience.CallNotPermittedException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Traitement d'un événement {@code complaints_raw} par le worker Power Automate, partagé par le consommateur
+ * bloquant ({@link ComplaintsPowerAutomateConsumer}) et le consommateur asynchrone ({@link ComplaintsPowerAutomateAsyncConsumer}).
+ * Les vérifications locales (payload, numéro déjà présent) sont faites à l'appel: une exception remonte au conteneur
+ * comme auparavant. Le Mono rendu porte l'appel Power Automate; ses erreurs sont journalisées puis ignorées,
+ * sauf un refus de la protection amont ({@link CallNotPermittedException}: circuit ouvert, cloison pleine):
+ * l'appel n'a pas eu lieu, l'erreur est rendue pour que l'enregistrement soit réessayé puis envoyé en DLQ.
+ */
+@Component
+public class PowerAutomateEventHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(PowerAutomateEventHandler.class);
+
+    private final PowerAutomateService powerAutomateService;
+    private final SubmissionTrackingService trackingService;
+
+    public PowerAutomateEventHandler(PowerAutomateService powerAutomateService,
+                                     SubmissionTrackingService trackingService) {
+        this.powerAutomateService = powerAutomateService;
+        this.trackingService = trackingService;
+    }
+
+    public Mono<Void> handle(ConsumerRecord<String, Object> record) {
+        Object value = record.value();
+        if (!(value instanceof Map)) {
+            log.warn("[PA] Event payload inattendu: {}", value == null ? "null" : value.getClass());
+            return Mono.empty();
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> payload = (Map<String, Object>) value;
+        log.debug("[PA] Reçu événement offset={} partition={}", record.offset(), record.partition());
+
+        String trackingId = String.valueOf(payload.getOrDefault("TRACKINGID", ""));
+        String already = extractComplaintNumber(payload);
+        if (already != null && !already.isBlank()) {
+            if (!trackingId.isBlank()) trackingService.complete(trackingId, already);
+            log.debug("[PA] Numéro déjà présent dans l'événement, aucun appel PA. trackingId={} numéro={}", trackingId, already);
+            return Mono.empty();
+        }
+
+        return powerAutomateService.submit(payload)
+            .doOnSuccess(resp -> {
+                String complaintNumber = extractComplaintNumber(resp);
+                if (!trackingId.isBlank() && complaintNumber != null && !complaintNumber.isBlank()) {
+                    trackingService.complete(trackingId, complaintNumber);
+                    log.info("[PA] Complète trackingId={} numéro={}", trackingId, complaintNumber);
+                } else {
+                    log.debug("[PA] PowerAutomate OK (trackingId='{}', numero introuvable)", trackingId);
+                }
+            })
+            .doOnError(e -> {
+                if (e instanceof CallNotPermittedException) log.warn("[PA] Appel refusé, réessai: {}", e.getMessage());
+                else log.error("[PA] Erreur PowerAutomate: {}", e.getMessage());
+            })
+            .onErrorResume(e -> !(e instanceof CallNotPermittedException), e -> Mono.empty())
+            .then();
+    }
+
+    private String extractComplaintNumber(Map<String, Object> response) {
+        if (response == null) return null;
+        String[] keys = new String[] {"numero", "NUMERO", "complaintNumber", "reference", "ticket", "id"};
+        for (String k : keys) {
+            Object v = response.get(k);
+            if (v instanceof String s && !s.isBlank()) return s;
+            if (v instanceof Number n) return String.valueOf(n);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.rawbank.reclamations.model;
+
+/**
+ * Compte client tel que renvoyé par la passerelle comptes (accountList ou rawComptes normalisé).
+ * Les champs absents de la réponse restent null.
+ */
+public record Account(String agencyCode, String accountNumber, String suffix, String currencyCode) {
+
+    /** Vrai si les trois composantes du numéro sont présentes. */
+    public boolean isComplete() {
+        return agencyCode != null && accountNumber != null && suffix != null;
+    }
+
+    /** Format agencyCode-accountNumber-suffix affiché dans le formulaire (COMPTESOURCE). */
+    public String formatted() {
+        return agencyCode + "-" + accountNumber + "-" + suffix;
+    }
+}
@@ -0,0 +1,21 @@
+package com.rawbank.reclamations.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Résultat d'une recherche de comptes dans un lot (une ligne NDJSON de {@code POST /api/accounts/batch}).
+ * {@code clientId} ou {@code phone} reprend la valeur demandée pour permettre la corrélation côté appelant.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AccountLookupResult(String clientId, String phone, boolean ok, List<String> accounts, String error) {
+
+    public static AccountLookupResult success(String clientId, String phone, List<String> accounts) {
+        return new AccountLookupResult(clientId, phone, true, accounts, null);
+    }
+
+    public static AccountLookupResult failure(String clientId, String phone, String error) {
+        return new AccountLookupResult(clientId, phone, false, null, error);
+    }
+}
@@ -0,0 +1,30 @@
+package com.rawbank.reclamations.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Détail client normalisé (nom et comptes), quelle que soit la forme de réponse de la passerelle
+ * (cutomerDetail, customerDetail, rawComptes par téléphone).
+ */
+public record CustomerProfile(String customerName, List<Account> accounts) {
+
+    public static final CustomerProfile EMPTY = new CustomerProfile(null, List.of());
+
+    public CustomerProfile {
+        accounts = accounts == null ? List.of() : List.copyOf(accounts);
+    }
+
+    public boolean isEmpty() {
+        return (customerName == null || customerName.isBlank()) && accounts.isEmpty();
+    }
+
+    /** Comptes complets au format agencyCode-accountNumber-suffix. */
+    public List<String> formattedAccounts() {
+        List<String> formatted = new ArrayList<>(accounts.size());
+        for (Account a : accounts) {
+            if (a.isComplete()) formatted.add(a.formatted());
+        }
+        return formatted;
+    }
+}
@@ -1,12 +1,43 @@
 package com.rawbank.reclamations.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.rawbank.reclamations.model.Account;
 import com.rawbank.reclamations.model.ComplaintDto;
+import com.rawbank.reclamations.model.CustomerProfile;
 import com.rawbank.reclamations.service.accounts.AccountsService;
+import com.rawbank.reclamations.service.cache.ExpiringCache;
+import com.rawbank.reclamations.service.cache.SingleFlight;
+import com.rawbank.reclamations.service.normalize.InputNormalizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
 public class ComplaintsService {
@@ -21,18 +52,100 @@ public class ComplaintsService {
     private final AccountsService accountsService;
     private final SubmissionTrackingService submissionTrackingService;
 
+    /** Soumission différée: réclamation acceptée immédiatement, traitée par le pipeline en arrière-plan. */
+    private record PendingSubmission(String trackingId, ComplaintDto payload) {}
+
+    private final boolean asyncMode;
+    private final int queueCapacity;
+    private final Duration shutdownTimeout;
+    // Pipeline construit uniquement en mode async (null sinon)
+    private final ArrayBlockingQueue<PendingSubmission> queue;
+    private final Sinks.Many<PendingSubmission> pipeline;
+    private final Disposable pipelineSubscription;
+    private final CountDownLatch pipelineTerminated = new CountDownLatch(1);
+    // Soumissions acceptées (202) pas encore terminées, en file ou en cours: marquées en échec si l'arrêt les abandonne
+    private final Set<String> unfinished = ConcurrentHashMap.newKeySet();
+    private final Counter asyncCompleted;
+    private final Counter asyncFailed;
+    private final Counter asyncRejected;
+
+    /** Résultat d'une soumission avec clé d'idempotence et empreinte de la réclamation qui l'a produit. */
+    private record IdempotentResult(String digest, String value) {}
+
+    // Idempotency-Key -> complaintNumber (mode sync) ou trackingId (mode async); erreurs non mémorisées
+    private final ExpiringCache<String, IdempotentResult> idempotentResults;
+    // Soumissions en cours pour une même clé: les répétitions rejoignent l'appel en vol
+    private final SingleFlight<String, IdempotentResult> idempotentCalls;
+    // Empreinte stable d'une réclamation: propriétés et clés de Map triées
+    private static final ObjectMapper DIGEST_MAPPER = JsonMapper.builder()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+    private static final int IDEMPOTENCY_KEY_MAX_LENGTH = 255;
+
     public ComplaintsService(EventPublisherService eventPublisherService,
                              PayloadBuilderService payloadBuilderService,
                              AccountsService accountsService,
                              MotifBccResolver motifBccResolver,
                              SubmissionTrackingService submissionTrackingService,
-                             SharepointListService sharepointListService) {
+                             SharepointListService sharepointListService,
+                             @Value("${app.complaints.submit-mode:sync}") String submitMode,
+                             @Value("${app.complaints.async.queue-capacity:1000}") int queueCapacity,
+                             @Value("${app.complaints.async.concurrency:8}") int concurrency,
+                             @Value("${app.complaints.async.shutdown-timeout:30s}") Duration shutdownTimeout,
+                             @Value("${app.complaints.idempotency.ttl:24h}") Duration idempotencyTtl,
+                             @Value("${app.complaints.idempotency.max-size:100000}") int idempotencyMaxSize,
+                             @Value("${app.complaints.idempotency.max-wait:60s}") Duration idempotencyMaxWait,
+                             MeterRegistry meterRegistry) {
         this.eventPublisherService = eventPublisherService;
         this.payloadBuilderService = payloadBuilderService;
         this.accountsService = accountsService;
         this.motifBccResolver = motifBccResolver;
         this.submissionTrackingService = submissionTrackingService;
         this.sharepointListService = sharepointListService;
+
+        // Pas de période "stale": une clé expirée ne doit jamais déclencher une nouvelle soumission en arrière-plan
+        this.idempotentResults = new ExpiringCache<>("idempotency", idempotencyMaxSize, idempotencyTtl, Duration.ZERO, meterRegistry);
+        this.idempotentCalls = new SingleFlight<>("idempotency", idempotencyMaxWait, meterRegistry);
+
+        this.asyncMode = "async".equalsIgnoreCase(submitMode);
+        this.asyncCompleted = asyncResult(meterRegistry, "completed");
+        this.asyncFailed = asyncResult(meterRegistry, "failed");
+        this.asyncRejected = asyncResult(meterRegistry, "rejected");
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.shutdownTimeout = shutdownTimeout;
+        if (!asyncMode) {
+            this.queue = null;
+            this.pipeline = null;
+            this.pipelineSubscription = null;
+            pipelineTerminated.countDown();
+            return;
+        }
+        // File bornée: au-delà de la capacité la soumission est refusée plutôt que d'accumuler en mémoire
+        this.queue = new ArrayBlockingQueue<>(this.queueCapacity);
+        this.pipeline = Sinks.many().unicast().onBackpressureBuffer(queue);
+        this.pipelineSubscription = pipeline.asFlux()
+                .flatMap(job -> process(job.payload(), job.trackingId())
+                        .doOnSuccess(number -> asyncCompleted.increment())
+                        .doOnError(e -> {
+                            asyncFailed.increment();
+                            log.error("Soumission différée {} en échec: {}", job.trackingId(), e.getMessage());
+                        })
+                        .onErrorResume(e -> Mono.empty())
+                        // Interrompue par l'arrêt (CANCEL): reste à marquer en échec
+                        .doFinally(signal -> {
+                            if (signal != SignalType.CANCEL) unfinished.remove(job.trackingId());
+                        }), Math.max(1, concurrency))
+                .doFinally(signal -> pipelineTerminated.countDown())
+                .subscribe();
+        Gauge.builder("reclamations.complaints.async.queue", queue, ArrayBlockingQueue::size)
+                .description("Soumissions différées en attente de traitement")
+                .register(meterRegistry);
+        log.info("Soumission des réclamations en mode asynchrone (file={}, concurrence={})", this.queueCapacity, concurrency);
+    }
+
+    public boolean isAsyncMode() {
+        return asyncMode;
     }
 
     /**
@@ -41,122 +154,194 @@ public class ComplaintsService {
      * Ne retourne PAS de ResponseEntity, laisse le contrôleur gérer HTTP.
      */
     public Mono<String> submit(ComplaintDto payload) {
-        log.debug("ComplaintsService.submit: build + enrich + publish");
+        return Mono.defer(() -> {
+            String trackingId = java.util.UUID.randomUUID().toString();
+            submissionTrackingService.markPending(trackingId);
+            return process(payload, trackingId);
+        });
+    }
 
-        // Prépare les surcharges serveur
-        java.util.Map<String, Object> overrides = new java.util.HashMap<>();
-        overrides.put("SITE", "WEB");
-        overrides.put("ZONE", "ONLINE");
-        overrides.put("DEPARTEMENT", "Direction IT / Développement Applicatif");
-        overrides.put("CANALUTILISE", "WEB");
-        overrides.put("GERANTAGENCE", "");
-        // DEVISE: provient du formulaire, sera validée/ajustée avec le compte sélectionné plus bas
-        if (payload.getDEVISE() != null && !payload.getDEVISE().isBlank()) {
-            overrides.put("DEVISE", payload.getDEVISE());
+    /**
+     * Mode asynchrone: enregistre la réclamation comme "pending" et rend aussitôt son trackingId.
+     * Enrichissement, création SharePoint et publication sont faits par le pipeline borné,
+     * qui met à jour le suivi ({@code GET /api/complaints/{trackingId}}).
+     */
+    public Mono<String> submitAsync(ComplaintDto payload) {
+        if (!asyncMode) return Mono.error(new IllegalStateException("Soumission asynchrone désactivée"));
+        String trackingId = java.util.UUID.randomUUID().toString();
+        submissionTrackingService.markPending(trackingId);
+        unfinished.add(trackingId);
+        Sinks.EmitResult result;
+        // tryEmitNext n'accepte pas d'émissions concurrentes: sérialisées ici
+        synchronized (pipeline) {
+            result = pipeline.tryEmitNext(new PendingSubmission(trackingId, payload));
+        }
+        if (result.isFailure()) {
+            unfinished.remove(trackingId);
+            asyncRejected.increment();
+            if (result == Sinks.EmitResult.FAIL_TERMINATED) {
+                submissionTrackingService.fail(trackingId, "Service en cours d'arrêt");
+                return Mono.error(new IllegalStateException("Service en cours d'arrêt, réessayer plus tard"));
+            }
+            submissionTrackingService.fail(trackingId, "File de soumission pleine");
+            log.warn("Soumission différée refusée ({}): file pleine ({} en attente)", result, queue.size());
+            return Mono.error(new IllegalStateException("File de soumission pleine, réessayer plus tard"));
         }
-        if (payload.getAWSTemplateFormatVersion() == null) overrides.put("AWSTemplateFormatVersion", "");
+        return Mono.just(trackingId);
+    }
+
+    /**
+     * Soumission avec clé d'idempotence (en-tête Idempotency-Key): une répétition avec la même clé
+     * renvoie le résultat d'origine (complaintNumber, ou trackingId en mode async) ou rejoint la soumission
+     * en cours, sans nouvel appel SharePoint ni nouvel événement Kafka. Sans clé: soumission normale.
+     * La même clé avec une réclamation différente est refusée ({@link IdempotencyKeyMismatchException}).
+     */
+    public Mono<String> submit(ComplaintDto payload, String idempotencyKey) {
+        return idempotent(idempotencyKey, "sync:", payload, () -> submit(payload));
+    }
+
+    public Mono<String> submitAsync(ComplaintDto payload, String idempotencyKey) {
+        return idempotent(idempotencyKey, "async:", payload, () -> submitAsync(payload));
+    }
+
+    private Mono<String> idempotent(String idempotencyKey, String mode, ComplaintDto payload, Supplier<Mono<String>> submission) {
+        if (!StringUtils.hasText(idempotencyKey)) return Mono.defer(submission);
+        if (idempotencyKey.length() > IDEMPOTENCY_KEY_MAX_LENGTH) {
+            return Mono.error(new IllegalArgumentException("Idempotency-Key trop longue (max " + IDEMPOTENCY_KEY_MAX_LENGTH + " caractères)"));
+        }
+        String digest = digest(payload);
+        // Résultat mémorisé dans l'appel partagé lui-même (avant sa sortie des appels en vol): il est conservé
+        // même si le client d'origine a abandonné la requête, cas typique d'un retry après timeout
+        return idempotentResults.get(mode + idempotencyKey, k -> idempotentCalls.execute(k,
+                        () -> Mono.defer(submission)
+                                .map(value -> new IdempotentResult(digest, value))
+                                .doOnNext(result -> idempotentResults.put(k, result))))
+                .flatMap(result -> result.digest().equals(digest)
+                        ? Mono.just(result.value())
+                        : Mono.error(new IdempotencyKeyMismatchException("Idempotency-Key déjà utilisée pour une autre réclamation")));
+    }
+
+    /** SHA-256 du JSON de la réclamation, propriétés triées: indépendant de l'ordre des champs envoyés. */
+    static String digest(ComplaintDto payload) {
+        try {
+            byte[] json = DIGEST_MAPPER.writeValueAsBytes(payload);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Empreinte de la réclamation impossible: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Arrêt: plus aucune soumission acceptée, les soumissions déjà acceptées (202) sont traitées pendant au plus
+     * {@code app.complaints.async.shutdown-timeout}. Au-delà, le pipeline est interrompu et celles qui restent
+     * sont marquées en échec pour que le client ne les attende pas indéfiniment.
+     */
+    @PreDestroy
+    void stopPipeline() {
+        if (!asyncMode) return;
+        synchronized (pipeline) {
+            pipeline.tryEmitComplete();
+        }
+        try {
+            if (pipelineTerminated.await(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pipelineSubscription.dispose();
+        List<String> abandoned = List.copyOf(unfinished);
+        abandoned.forEach(trackingId -> {
+            asyncFailed.increment();
+            submissionTrackingService.fail(trackingId, "Soumission interrompue par l'arrêt du service");
+        });
+        log.warn("Arrêt du pipeline de soumission après {}: {} soumission(s) non traitée(s) marquée(s) en échec",
+                shutdownTimeout, abandoned.size());
+    }
+
+    private Mono<String> process(ComplaintDto payload, String trackingId) {
+        log.debug("ComplaintsService.submit: build + enrich + publish");
+
+        // Gabarit compilé (défauts + SITE/ZONE/DEPARTEMENT/CANALUTILISE/GERANTAGENCE imposés) complété par le formulaire;
+        // les surcharges propres à la requête sont écrites directement dans le payload final
+        Map<String, Object> finalPayload = payloadBuilderService.buildSubmission(payload);
+        // DEVISE: reprise du formulaire par le gabarit, validée/ajustée avec le compte sélectionné plus bas
+        if (payload.getAWSTemplateFormatVersion() == null) finalPayload.put("AWSTemplateFormatVersion", "");
         // MOTIFBCC: toujours dérivé du TYPERECLAMATION via le resolver (repli sur le type si non mappé)
         String autoMotif = motifBccResolver.resolve(payload.getTYPERECLAMATION());
         if (autoMotif != null && !autoMotif.isBlank()) {
-            overrides.put("MOTIFBCC", autoMotif);
+            finalPayload.put("MOTIFBCC", autoMotif);
         } else if (payload.getTYPERECLAMATION() != null && !payload.getTYPERECLAMATION().isBlank()) {
-            overrides.put("MOTIFBCC", payload.getTYPERECLAMATION());
+            finalPayload.put("MOTIFBCC", payload.getTYPERECLAMATION());
         }
 
-        if (payload.getAVISMOTIVE() == null) overrides.put("AVISMOTIVE", payload.getMOTIF());
-        
+        if (payload.getAVISMOTIVE() == null) finalPayload.put("AVISMOTIVE", payload.getMOTIF());
+
         // MONTANTCONVERTI côté surcharge: priorité au champ fourni, sinon dérivé de MONTANT
         if (payload.getMONTANTCONVERTI() != null && !payload.getMONTANTCONVERTI().isBlank()) {
-            overrides.put("MONTANTCONVERTI", payload.getMONTANTCONVERTI());
+            finalPayload.put("MONTANTCONVERTI", payload.getMONTANTCONVERTI());
         } else if (payload.getMONTANT() != null) {
             Object amt = payload.getMONTANT();
             if (amt instanceof String str) {
-                String normalized = str.replaceAll("[\\s\u00A0\u202F]", "").replace(".", "").replace(',', '.');
-                overrides.put("MONTANTCONVERTI", normalized);
+                finalPayload.put("MONTANTCONVERTI", InputNormalizer.amountText(str));
             } else if (amt instanceof Number num) {
-                overrides.put("MONTANTCONVERTI", String.valueOf(num.doubleValue()));
+                finalPayload.put("MONTANTCONVERTI", String.valueOf(num.doubleValue()));
             } else {
-                overrides.put("MONTANTCONVERTI", amt.toString());
+                finalPayload.put("MONTANTCONVERTI", amt.toString());
             }
         }
-        overrides.put("Conditions", new java.util.HashMap<>());
+        // Conditions remplacées: NOMCLIENT ne provient que de customerName (ni défaut, ni formulaire)
+        finalPayload.put("Conditions", Map.of());
 
         String clientId = payload.getNUMEROCLIENT();
         String phone = payload.getTELEPHONECLIENT();
-        Mono<java.util.Map<String, Object>> detailMono;
-        if (clientId != null && clientId.matches("^\\d{8}$")) {
-            detailMono = accountsService.getCustomerDetail(clientId).onErrorResume(e -> Mono.just(java.util.Map.of()));
-        } else if (phone != null && phone.replaceAll("\\D", "").matches("^\\d{10}$")) {
-            detailMono = accountsService.getCustomerDetailByPhone(phone).onErrorResume(e -> Mono.just(java.util.Map.of()));
+        Mono<CustomerProfile> detailMono;
+        if (clientId != null && InputNormalizer.isDigits(clientId, 8)) {
+            detailMono = accountsService.getCustomerDetail(clientId).onErrorResume(e -> Mono.just(CustomerProfile.EMPTY));
+        } else if (InputNormalizer.phoneDigits(phone, 10) != null) {
+            detailMono = accountsService.getCustomerDetailByPhone(phone).onErrorResume(e -> Mono.just(CustomerProfile.EMPTY));
         } else {
-            detailMono = Mono.just(java.util.Map.of());
+            detailMono = Mono.just(CustomerProfile.EMPTY);
         }
 
         return detailMono.flatMap(detail -> {
-            String trackingId = java.util.UUID.randomUUID().toString();
             // NOMCLIENT doit provenir strictement de customerName
-            Object nomClient = detail.get("customerName");
-            if (nomClient instanceof String s && !s.isBlank()) {
-                @SuppressWarnings("unchecked")
-                java.util.Map<String, Object> condMap = (java.util.Map<String, Object>) overrides.get("Conditions");
-                condMap.put("NOMCLIENT", s);
+            String nomClient = detail.customerName();
+            if (nomClient != null && !nomClient.isBlank()) {
+                finalPayload.put("Conditions", Map.of("NOMCLIENT", nomClient));
             }
             // AGENCECLIENT doit provenir de agencyCode d'un des comptes dans accountList
-            Object accountListObj = detail.get("accountList");
-            if (accountListObj instanceof java.util.List<?> list && !list.isEmpty()) {
-                for (Object o : list) {
-                    if (o instanceof java.util.Map<?, ?> acc) {
-                        Object agencyCode = acc.get("agencyCode");
-                        if (agencyCode instanceof String s && !s.isBlank()) {
-                            overrides.put("AGENCECLIENT", s);
-                            // si on a COMPTESOURCE, tenter de faire matcher et en déduire la devise
-                            String selected = payload.getCOMPTESOURCE();
-                            Object accountNumber = acc.get("accountNumber");
-                            Object suffix = acc.get("suffix");
-                            if (selected != null && accountNumber instanceof String an && suffix instanceof String su) {
-                                String composed = s + "-" + an + "-" + su;
-                                if (selected.equals(composed)) {
-                                    Object currencyCode = acc.get("currencyCode");
-                                    String mapped = null;
-                                    if (currencyCode instanceof Number n) {
-                                        int code = n.intValue();
-                                        mapped = switch (code) {
-                                            case 181 -> "CDF";
-                                            case 840 -> "USD";
-                                            case 955 -> "EURO"; 
-                                            case 826 -> "GBP";
-                                            default -> null;
-                                        };
-                                    } else if (currencyCode instanceof String cs && !cs.isBlank()) {
-                                        String csTrim = cs.trim();
-                                        mapped = switch (csTrim) {
-                                            case "181" -> "CDF";
-                                            case "840" -> "USD";
-                                            case "955" -> "EURO"; 
-                                            case "826" -> "GBP";
-                                            default -> null;
-                                        };
-                                    }
-                                    if (mapped != null) {
-                                        String formDevise = payload.getDEVISE();
-                                        if (formDevise != null && !formDevise.equalsIgnoreCase(mapped)) {
-                                            log.warn("Mismatch devise: formulaire='{}' vs compte='{}' (pris compte)", formDevise, mapped);
-                                        }
-                                        overrides.put("DEVISE", mapped);
-                                    }
-                                }
+            for (Account acc : detail.accounts()) {
+                String agencyCode = acc.agencyCode();
+                if (agencyCode != null && !agencyCode.isBlank()) {
+                    finalPayload.put("AGENCECLIENT", agencyCode);
+                    // si on a COMPTESOURCE, tenter de faire matcher et en déduire la devise
+                    String selected = payload.getCOMPTESOURCE();
+                    if (selected != null && acc.isComplete() && selected.equals(acc.formatted())) {
+                        String currencyCode = acc.currencyCode();
+                        String mapped = null;
+                        if (currencyCode != null && !currencyCode.isBlank()) {
+                            mapped = switch (currencyCode.trim()) {
+                                case "181" -> "CDF";
+                                case "840" -> "USD";
+                                case "955" -> "EURO"; 
+                                case "826" -> "GBP";
+                                default -> null;
+                            };
+                        }
+                        if (mapped != null) {
+                            String formDevise = payload.getDEVISE();
+                            if (formDevise != null && !formDevise.equalsIgnoreCase(mapped)) {
+                                log.warn("Mismatch devise: formulaire='{}' vs compte='{}' (pris compte)", formDevise, mapped);
                             }
-                            break;
+                            finalPayload.put("DEVISE", mapped);
                         }
                     }
+                    break;
                 }
             }
             // Ne pas enrichir GERANTAGENCE ni MONTANTCONVERTI depuis l'API externe: gérés côté surcharge ci-dessus
 
-            overrides.put("TRACKINGID", trackingId);
-            java.util.Map<String, Object> finalPayload = payloadBuilderService.buildWithOverrides(payload, overrides);
+            finalPayload.put("TRACKINGID", trackingId);
             // Création synchrone de l'item dans SharePoint et récupération d'un identifiant immédiatement
-            submissionTrackingService.markPending(trackingId);
             return sharepointListService.createItem(finalPayload)
                     .map(resp -> extractComplaintNumber(resp))
                     .flatMap(number -> {
@@ -170,7 +355,7 @@ public class ComplaintsService {
                         // Publier l'événement métier enrichi (audit, indexation, etc.)
                         return eventPublisherService.publish(finalPayload).thenReturn(number);
                     });
-        });
+        }).doOnError(e -> submissionTrackingService.fail(trackingId, e.getMessage()));
     }
 
     private String extractComplaintNumber(Map<String, Object> response) {
@@ -190,4 +375,11 @@ public class ComplaintsService {
     public Mono<SubmissionTrackingService.Status> status(String trackingId) {
         return submissionTrackingService.get(trackingId);
     }
+
+    private static Counter asyncResult(MeterRegistry registry, String result) {
+        return Counter.builder("reclamations.complaints.async")
+                .tag("result", result)
+                .description("Soumissions différées par issue")
+                .register(registry);
+    }
 }
@@ -1,42 +1,115 @@
 package com.rawbank.reclamations.service;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.rawbank.reclamations.config.HttpClientFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import org.springframework.core.ParameterizedTypeReference;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class ElasticsearchService {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final JsonFactory JSON = new JsonFactory();
+    /** Taille typique d'une ligne d'action {"index":{"_index":...,"_id":...}}. */
+    private static final int ACTION_LINE_ESTIMATE = 96;
+    /** Réponse _bulk réduite à ce que lit {@link #parseBulkResponse}: quelques octets par document réussi. */
+    private static final String BULK_FILTER_PATH = "errors,items.*.status,items.*.error";
+
+    /** Échec d'indexation d'un document du lot, repéré par sa position dans la liste envoyée. */
+    public record BulkItemFailure(int index, int status, String reason) {
+        /** Rejet temporaire (file d'indexation pleine, nœud indisponible): un nouvel essai peut réussir. */
+        public boolean retryable() {
+            return status == 429 || status >= 500;
+        }
+    }
+
+    /** Document à indexer tel que reçu: JSON déjà sérialisé et identifiant optionnel (null: attribué par Elasticsearch). */
+    public record BulkDocument(String id, byte[] source) {}
+
+    /** Résultat d'une indexation en masse: documents envoyés et échecs individuels. */
+    public record BulkResult(int count, List<BulkItemFailure> failures) {}
+
     private final WebClient webClient;
     private final String indexName;
+    private final int maxActions;
+    private final long maxBytes;
+    private final Timer bulkLatency;
+    private final DistributionSummary bulkSize;
+    private final DistributionSummary bulkBytes;
+    private final Counter docsIndexed;
+    private final Counter docsFailed;
 
     public ElasticsearchService(
+            HttpClientFactory httpClientFactory,
             @Value("${elasticsearch.url:http://localhost:9200}") String esUrl,
             @Value("${elasticsearch.index:reclamations}") String indexName,
             @Value("${elasticsearch.username:}") String username,
-            @Value("${elasticsearch.password:}") String password
+            @Value("${elasticsearch.password:}") String password,
+            @Value("${elasticsearch.bulk.max-actions:1000}") int maxActions,
+            @Value("${elasticsearch.bulk.max-size:5MB}") DataSize maxSize,
+            @Value("${elasticsearch.bulk.max-response-size:16MB}") DataSize maxResponseSize,
+            MeterRegistry meterRegistry
     ) {
         this.indexName = indexName;
-        WebClient.Builder builder = WebClient.builder()
+        this.maxActions = Math.max(1, maxActions);
+        this.maxBytes = maxSize.toBytes();
+        WebClient.Builder builder = httpClientFactory.builder("elasticsearch")
                 .baseUrl(esUrl)
-                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                // Réponse _bulk lue en entier: la limite par défaut (256KB) est vite atteinte avec des erreurs par document
+                .codecs(c -> c.defaultCodecs().maxInMemorySize((int) Math.min(Integer.MAX_VALUE, maxResponseSize.toBytes())));
         if (StringUtils.hasText(username)) {
             String token = Base64.getEncoder()
                     .encodeToString((username + ":" + (password == null ? "" : password)).getBytes(StandardCharsets.UTF_8));
             builder.defaultHeader(HttpHeaders.AUTHORIZATION, "Basic " + token);
         }
         this.webClient = builder.build();
+        this.bulkLatency = Timer.builder("reclamations.es.bulk")
+                .description("Latence des requêtes _bulk Elasticsearch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.bulkSize = DistributionSummary.builder("reclamations.es.bulk.size")
+                .description("Documents par requête _bulk")
+                .register(meterRegistry);
+        this.bulkBytes = DistributionSummary.builder("reclamations.es.bulk.bytes")
+                .baseUnit("bytes")
+                .description("Taille des corps _bulk envoyés")
+                .register(meterRegistry);
+        this.docsIndexed = Counter.builder("reclamations.es.bulk.docs")
+                .tag("outcome", "indexed")
+                .description("Documents traités par _bulk")
+                .register(meterRegistry);
+        this.docsFailed = Counter.builder("reclamations.es.bulk.docs")
+                .tag("outcome", "failed")
+                .description("Documents traités par _bulk")
+                .register(meterRegistry);
     }
 
     public Mono<Map<String, Object>> indexDocument(Map<String, Object> document) {
@@ -52,4 +125,176 @@ public class ElasticsearchService {
                         "Erreur Elasticsearch (" + resp.statusCode().value() + "): " + body))))
             .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {});
     }
+
+    /**
+     * Indexation en masse via {@code POST /_bulk}: les documents sont découpés en requêtes d'au plus
+     * {@code elasticsearch.bulk.max-actions} documents et {@code elasticsearch.bulk.max-size} octets, envoyées l'une après l'autre.
+     * Le JSON de chaque document est recopié tel quel dans le corps NDJSON (aucune désérialisation).
+     * Une erreur HTTP sur une requête entière fait échouer le Mono; les refus individuels sont rendus dans {@link BulkResult#failures()}.
+     */
+    public Mono<BulkResult> bulkIndex(List<BulkDocument> documents) {
+        if (documents.isEmpty()) return Mono.just(new BulkResult(0, List.of()));
+        return Mono.fromCallable(() -> chunks(documents))
+                .flatMapMany(Flux::fromIterable)
+                .concatMap(this::sendBulk)
+                .collectList()
+                .map(parts -> {
+                    List<BulkItemFailure> failures = new ArrayList<>();
+                    parts.forEach(failures::addAll);
+                    return new BulkResult(documents.size(), failures);
+                });
+    }
+
+    /** Corps NDJSON prêt à envoyer et position de son premier document dans la liste d'origine. */
+    private record Chunk(int offset, int count, byte[] body) {}
+
+    private List<Chunk> chunks(List<BulkDocument> documents) throws IOException {
+        // Tampon dimensionné d'après les sources (+ ligne d'action): pas de recopies par agrandissement
+        long estimate = 0;
+        for (BulkDocument doc : documents) estimate += doc.source().length + ACTION_LINE_ESTIMATE;
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(estimate, Integer.MAX_VALUE - 8));
+        // Bornes des lots dans le tampon unique: {premier document, nombre, début, fin}
+        List<int[]> bounds = new ArrayList<>();
+        int firstDoc = 0;
+        int firstByte = 0;
+        for (int i = 0; i < documents.size(); i++) {
+            BulkDocument doc = documents.get(i);
+            int before = out.size();
+            writeAction(out, doc.id());
+            writeSource(out, doc.source());
+            // Lot plein: le document courant ouvre le lot suivant
+            if (i > firstDoc && (i - firstDoc == maxActions || out.size() - firstByte > maxBytes)) {
+                bounds.add(new int[] {firstDoc, i - firstDoc, firstByte, before});
+                firstDoc = i;
+                firstByte = before;
+            }
+        }
+        bounds.add(new int[] {firstDoc, documents.size() - firstDoc, firstByte, out.size()});
+        byte[] all = out.toByteArray();
+        if (bounds.size() == 1) return List.of(new Chunk(0, documents.size(), all));
+        List<Chunk> chunks = new ArrayList<>(bounds.size());
+        for (int[] b : bounds) chunks.add(new Chunk(b[0], b[1], Arrays.copyOfRange(all, b[2], b[3])));
+        return chunks;
+    }
+
+    private void writeAction(ByteArrayOutputStream out, String id) throws IOException {
+        try (JsonGenerator g = JSON.createGenerator(out)) {
+            g.writeStartObject();
+            g.writeObjectFieldStart("index");
+            g.writeStringField("_index", indexName);
+            if (StringUtils.hasText(id)) g.writeStringField("_id", id);
+            g.writeEndObject();
+            g.writeEndObject();
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Source sur une seule ligne NDJSON. Un JSON valide ne contient de saut de ligne brut qu'en blanc
+     * entre deux jetons (jamais dans une chaîne): le remplacer par une espace ne change pas le document.
+     * Copie uniquement dans ce cas (JSON indenté), le JSON compact du producteur est écrit directement.
+     */
+    public static void writeSource(ByteArrayOutputStream out, byte[] source) {
+        int i = 0;
+        while (i < source.length && source[i] != '\n' && source[i] != '\r') i++;
+        if (i == source.length) {
+            out.write(source, 0, source.length);
+        } else {
+            byte[] line = source.clone();
+            for (; i < line.length; i++) {
+                if (line[i] == '\n' || line[i] == '\r') line[i] = ' ';
+            }
+            out.write(line, 0, line.length);
+        }
+        out.write('\n');
+    }
+
+    private Mono<List<BulkItemFailure>> sendBulk(Chunk chunk) {
+        long start = System.nanoTime();
+        return webClient.post()
+                .uri(b -> b.path("/_bulk").queryParam("filter_path", BULK_FILTER_PATH).build())
+                .contentType(NDJSON)
+                .bodyValue(chunk.body())
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, resp ->
+                    resp.bodyToMono(String.class)
+                        .defaultIfEmpty("")
+                        .flatMap(body -> Mono.error(new IllegalStateException(
+                            "Erreur Elasticsearch _bulk (" + resp.statusCode().value() + "): " + body))))
+                .bodyToMono(byte[].class)
+                .map(body -> {
+                    bulkLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    bulkSize.record(chunk.count());
+                    bulkBytes.record(chunk.body().length);
+                    List<BulkItemFailure> failures = parseBulkResponse(body, chunk.offset(), chunk.count());
+                    docsIndexed.increment(chunk.count() - failures.size());
+                    docsFailed.increment(failures.size());
+                    return failures;
+                });
+    }
+
+    /**
+     * Lecture en flux de la réponse _bulk: seuls les éléments en échec (status hors 2xx) sont retenus,
+     * avec leur position décalée de {@code offset}. Un élément absent de la réponse compte comme échec (status 0).
+     */
+    static List<BulkItemFailure> parseBulkResponse(byte[] body, int offset, int expected) {
+        List<BulkItemFailure> failures = new ArrayList<>();
+        int seen = 0;
+        try (JsonParser p = JSON.createParser(body)) {
+            if (p.nextToken() == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = p.currentName();
+                    JsonToken t = p.nextToken();
+                    if ("items".equals(field) && t == JsonToken.START_ARRAY) {
+                        while (p.nextToken() == JsonToken.START_OBJECT) {
+                            // { "index": { "_id", "status", "error": { "type", "reason" } } }
+                            int status = 0;
+                            String reason = null;
+                            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                                if (p.nextToken() != JsonToken.START_OBJECT) {
+                                    p.skipChildren();
+                                    continue;
+                                }
+                                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                                    String name = p.currentName();
+                                    JsonToken v = p.nextToken();
+                                    if ("status".equals(name) && v == JsonToken.VALUE_NUMBER_INT) {
+                                        status = p.getIntValue();
+                                    } else if ("error".equals(name)) {
+                                        reason = v == JsonToken.START_OBJECT ? readError(p) : p.getValueAsString();
+                                    } else {
+                                        p.skipChildren();
+                                    }
+                                }
+                            }
+                            if (seen < expected && (status < 200 || status >= 300)) {
+                                failures.add(new BulkItemFailure(offset + seen, status, reason));
+                            }
+                            seen++;
+                        }
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Réponse _bulk illisible: " + e.getMessage(), e);
+        }
+        for (int i = seen; i < expected; i++) {
+            failures.add(new BulkItemFailure(offset + i, 0, "élément absent de la réponse _bulk"));
+        }
+        return failures;
+    }
+
+    private static String readError(JsonParser p) throws IOException {
+        String type = null, reason = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            JsonToken v = p.nextToken();
+            if ("type".equals(name) && v == JsonToken.VALUE_STRING) type = p.getText();
+            else if ("reason".equals(name) && v == JsonToken.VALUE_STRING) reason = p.getText();
+            else p.skipChildren();
+        }
+        return type == null ? reason : type + ": " + reason;
+    }
 }
@@ -1,5 +1,6 @@
 package com.rawbank.reclamations.service;
 
+import com.rawbank.reclamations.logging.PayloadLogSampler;
 import com.rawbank.reclamations.messaging.ComplaintsEventPublisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,9 +15,11 @@ public class EventPublisherService {
     private static final Logger log = LoggerFactory.getLogger(EventPublisherService.class);
 
     private final ComplaintsEventPublisher eventPublisher;
+    private final PayloadLogSampler payloadLog;
 
-    public EventPublisherService(ComplaintsEventPublisher eventPublisher) {
+    public EventPublisherService(ComplaintsEventPublisher eventPublisher, PayloadLogSampler payloadLog) {
         this.eventPublisher = eventPublisher;
+        this.payloadLog = payloadLog;
     }
 
     /**
@@ -25,7 +28,7 @@ public class EventPublisherService {
      */
     public Mono<Void> publish(Map<String, Object> finalPayload) {
         log.info("[EVT] Publish complaint NUMEROCLIENT={} EXTOURNE={} TYPE={}", finalPayload.get("NUMEROCLIENT"), finalPayload.get("EXTOURNE"), finalPayload.get("TYPERECLAMATION"));
-        log.debug("[EVT] Final payload: {}", finalPayload);
+        payloadLog.debug(log, "[EVT] Final payload: {}", finalPayload);
         return eventPublisher.publishSubmitted(finalPayload);
     }
 }
@@ -0,0 +1,12 @@
+package com.rawbank.reclamations.service;
+
+/**
+ * Clé d'idempotence déjà utilisée pour une réclamation différente: la requête est refusée (422)
+ * au lieu de renvoyer le résultat d'une autre soumission.
+ */
+public class IdempotencyKeyMismatchException extends IllegalStateException {
+
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
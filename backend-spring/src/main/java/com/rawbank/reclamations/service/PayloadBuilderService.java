@@ -6,113 +6,173 @@ import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 
 import com.rawbank.reclamations.model.ComplaintDto;
+import com.rawbank.reclamations.service.normalize.InputNormalizer;
 
 @Service
 public class PayloadBuilderService {
-    private final ObjectMapper objectMapper;
-    private final Map<String, Object> defaults;
+
+    /**
+     * Surcharges serveur constantes d'une soumission web: elles priment sur le formulaire
+     * et sont compilées une fois dans le gabarit de soumission.
+     */
+    static final Map<String, Object> SUBMISSION_OVERRIDES = Map.of(
+            "SITE", "WEB",
+            "ZONE", "ONLINE",
+            "DEPARTEMENT", "Direction IT / Développement Applicatif",
+            "CANALUTILISE", "WEB",
+            "GERANTAGENCE", "");
+
+    /** Champs ajoutés après construction (TRACKINGID, complaintNumber...): évite un redimensionnement. */
+    private static final int EXTRA_FIELDS = 4;
+
+    /**
+     * Gabarit immuable: valeurs par défaut (Conditions comprises, non modifiables) et champs imposés
+     * côté serveur. Chaque payload part d'une copie superficielle: aucune copie profonde par requête.
+     */
+    static final class Template {
+        private final Map<String, Object> fields;
+        private final Set<String> serverFields;
+        private final int capacity;
+
+        Template(Map<String, Object> defaults, Map<String, Object> overrides) {
+            Map<String, Object> f = new LinkedHashMap<>();
+            defaults.forEach((k, v) -> f.put(k, freeze(v)));
+            overrides.forEach((k, v) -> f.put(k, freeze(v)));
+            this.fields = Collections.unmodifiableMap(f);
+            this.serverFields = Set.copyOf(overrides.keySet());
+            this.capacity = (int) ((f.size() + EXTRA_FIELDS) / 0.75f) + 1;
+        }
+
+        Map<String, Object> instantiate() {
+            Map<String, Object> payload = new LinkedHashMap<>(capacity);
+            payload.putAll(fields);
+            return payload;
+        }
+
+        boolean isServerField(String key) {
+            return serverFields.contains(key);
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> conditions() {
+            return fields.get("Conditions") instanceof Map<?, ?> m ? (Map<String, Object>) m : null;
+        }
+
+        // Objets imbriqués du JSON par défaut figés: partagés sans risque entre requêtes
+        @SuppressWarnings("unchecked")
+        private static Object freeze(Object v) {
+            if (v instanceof Map<?, ?> m) {
+                Map<String, Object> copy = new LinkedHashMap<>();
+                ((Map<String, Object>) m).forEach((k, x) -> copy.put(k, freeze(x)));
+                return Collections.unmodifiableMap(copy);
+            }
+            if (v instanceof java.util.List<?> l) {
+                return l.stream().map(Template::freeze).toList();
+            }
+            return v;
+        }
+    }
+
+    private final Template defaultsTemplate;
+    private final Template submissionTemplate;
 
     public PayloadBuilderService(ObjectMapper objectMapper) throws IOException {
-        this.objectMapper = objectMapper;
         ClassPathResource cpr = new ClassPathResource("default-payload.json");
+        Map<String, Object> defaults;
         if (!cpr.exists()) {
-            this.defaults = Map.of();
+            defaults = Map.of();
         } else {
-            this.defaults = objectMapper.readValue(cpr.getInputStream(), new TypeReference<Map<String, Object>>() {});
+            defaults = objectMapper.readValue(cpr.getInputStream(), new TypeReference<Map<String, Object>>() {});
         }
+        this.defaultsTemplate = new Template(defaults, Map.of());
+        this.submissionTemplate = new Template(defaults, SUBMISSION_OVERRIDES);
     }
 
-    @SuppressWarnings("unchecked")
     public Map<String, Object> build(ComplaintDto dto) {
-        Map<String, Object> base = deepCopy(defaults);
-        if (dto != null) {
-            Map<String, Object> incoming = new HashMap<>();
-            // Map DTO fields -> payload keys
-            putIfNotNull(incoming, "SITE", dto.getSITE());
-            putIfNotNull(incoming, "ZONE", dto.getZONE());
-            putIfNotNull(incoming, "DEPARTEMENT", dto.getDEPARTEMENT());
-            putIfNotNull(incoming, "DOMAINE", dto.getDOMAINE());
-            putIfNotNull(incoming, "AWSTemplateFormatVersion", dto.getAWSTemplateFormatVersion());
-            putIfNotNull(incoming, "TYPERECLAMATION", dto.getTYPERECLAMATION());
-            putIfNotNull(incoming, "CANALUTILISE", dto.getCANALUTILISE());
-            putIfNotNull(incoming, "MOTIFBCC", dto.getMOTIFBCC());
-            putIfNotNull(incoming, "AGENCECLIENT", dto.getAGENCECLIENT());
-            putIfNotNull(incoming, "NUMEROCLIENT", dto.getNUMEROCLIENT());
-            if (dto.getConditions() != null) incoming.put("Conditions", dto.getConditions());
-            putIfNotNull(incoming, "TELEPHONECLIENT", dto.getTELEPHONECLIENT());
-            putIfNotNull(incoming, "COMPTESOURCE", dto.getCOMPTESOURCE());
-            putIfNotNull(incoming, "DATETRANSACTION", dto.getDATETRANSACTION());
-
-            // Normalisation NUMEROCARTE
-            if (dto.getNUMEROCARTE() != null) {
-                incoming.put("NUMEROCARTE", dto.getNUMEROCARTE().replaceAll("\\s+", ""));
-            }
-
-            // Normalisation MONTANT
-            Object amount = dto.getMONTANT();
-            if (amount instanceof String str) {
-                String normalized = str.replaceAll("[\\s\u00A0\u202F]", "").replace(".", "").replace(',', '.');
-                try { incoming.put("MONTANT", Double.parseDouble(normalized)); }
-                catch (NumberFormatException ignored) { incoming.put("MONTANT", str); }
-            } else if (amount != null) {
-                incoming.put("MONTANT", amount);
-            }
+        Map<String, Object> payload = defaultsTemplate.instantiate();
+        if (dto != null) apply(defaultsTemplate, dto, payload);
+        return payload;
+    }
 
-            putIfNotNull(incoming, "MONTANTCONVERTI", dto.getMONTANTCONVERTI());
-            putIfNotNull(incoming, "DEVISE", dto.getDEVISE());
-            if (dto.getEXTOURNE() != null) incoming.put("EXTOURNE", dto.getEXTOURNE());
-            putIfNotNull(incoming, "GERANTAGENCE", dto.getGERANTAGENCE());
-            putIfNotNull(incoming, "MOTIF", dto.getMOTIF());
-            putIfNotNull(incoming, "DESCRIPTION", dto.getDESCRIPTION());
-            putIfNotNull(incoming, "AVISMOTIVE", dto.getAVISMOTIVE());
-
-            // Merge avec defaults
-            base.putAll(incoming);
-
-            // Fusion Conditions si présentes des deux côtés
-            Object inCond = incoming.get("Conditions");
-            Object baseCond = defaults.get("Conditions");
-            if (inCond instanceof Map && baseCond instanceof Map) {
-                Map<String, Object> merged = new HashMap<>((Map<String, Object>) baseCond);
-                merged.putAll((Map<String, Object>) inCond);
-                base.put("Conditions", merged);
-            }
-        }
-        return base;
+    /**
+     * Payload d'une soumission web: gabarit (défauts + surcharges serveur constantes) complété par le DTO.
+     * Les champs imposés par le serveur ne sont pas lus depuis le DTO; l'appelant ajoute ensuite
+     * directement ses surcharges propres à la requête (MOTIFBCC, Conditions, TRACKINGID...).
+     */
+    public Map<String, Object> buildSubmission(ComplaintDto dto) {
+        Map<String, Object> payload = submissionTemplate.instantiate();
+        if (dto != null) apply(submissionTemplate, dto, payload);
+        return payload;
     }
 
     /**
      * Construit le payload final à partir du DTO, puis applique des surcharges côté serveur.
      * Utile pour compléter/forcer des champs attendus par l'API externe que le client ne fournit pas.
+     * Des Conditions fournies en surcharge remplacent celles du payload.
      */
     public Map<String, Object> buildWithOverrides(ComplaintDto dto, Map<String, Object> serverOverrides) {
         Map<String, Object> payload = build(dto);
         if (serverOverrides != null && !serverOverrides.isEmpty()) {
             payload.putAll(serverOverrides);
-            // Fusion spécifique pour objets imbriqués connus
-            Object ovCond = serverOverrides.get("Conditions");
-            Object payCond = payload.get("Conditions");
-            if (ovCond instanceof Map && payCond instanceof Map) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> payCondMap = new HashMap<>((Map<String, Object>) payCond);
-                @SuppressWarnings("unchecked")
-                Map<String, Object> ovCondMap = (Map<String, Object>) ovCond;
-                payCondMap.putAll(ovCondMap);
-                payload.put("Conditions", payCondMap);
-            }
         }
         return payload;
     }
 
-    private void putIfNotNull(Map<String, Object> map, String key, Object value) {
-        if (value != null) map.put(key, value);
+    private static void apply(Template template, ComplaintDto dto, Map<String, Object> payload) {
+        // Map DTO fields -> payload keys
+        put(template, payload, "SITE", dto.getSITE());
+        put(template, payload, "ZONE", dto.getZONE());
+        put(template, payload, "DEPARTEMENT", dto.getDEPARTEMENT());
+        put(template, payload, "DOMAINE", dto.getDOMAINE());
+        put(template, payload, "AWSTemplateFormatVersion", dto.getAWSTemplateFormatVersion());
+        put(template, payload, "TYPERECLAMATION", dto.getTYPERECLAMATION());
+        put(template, payload, "CANALUTILISE", dto.getCANALUTILISE());
+        put(template, payload, "MOTIFBCC", dto.getMOTIFBCC());
+        put(template, payload, "AGENCECLIENT", dto.getAGENCECLIENT());
+        put(template, payload, "NUMEROCLIENT", dto.getNUMEROCLIENT());
+
+        // Fusion Conditions: défauts du gabarit complétés par ceux du DTO (une seule copie)
+        if (dto.getConditions() != null) {
+            Map<String, Object> base = template.conditions();
+            Map<String, Object> merged = base != null ? new LinkedHashMap<>(base) : new LinkedHashMap<>();
+            merged.putAll(dto.getConditions());
+            payload.put("Conditions", merged);
+        }
+
+        put(template, payload, "TELEPHONECLIENT", dto.getTELEPHONECLIENT());
+        put(template, payload, "COMPTESOURCE", dto.getCOMPTESOURCE());
+        put(template, payload, "DATETRANSACTION", dto.getDATETRANSACTION());
+
+        // Normalisation NUMEROCARTE
+        put(template, payload, "NUMEROCARTE", InputNormalizer.cardNumber(dto.getNUMEROCARTE()));
+
+        // Normalisation MONTANT
+        Object amount = dto.getMONTANT();
+        if (amount instanceof String str) {
+            // Lecture exacte (BigDecimal); saisie conservée telle quelle si ce n'est pas un montant
+            BigDecimal parsed = InputNormalizer.parseAmount(str);
+            put(template, payload, "MONTANT", parsed != null ? parsed : str);
+        } else {
+            put(template, payload, "MONTANT", amount);
+        }
+
+        put(template, payload, "MONTANTCONVERTI", dto.getMONTANTCONVERTI());
+        put(template, payload, "DEVISE", dto.getDEVISE());
+        put(template, payload, "EXTOURNE", dto.getEXTOURNE());
+        put(template, payload, "GERANTAGENCE", dto.getGERANTAGENCE());
+        put(template, payload, "MOTIF", dto.getMOTIF());
+        put(template, payload, "DESCRIPTION", dto.getDESCRIPTION());
+        put(template, payload, "AVISMOTIVE", dto.getAVISMOTIVE());
     }
 
-    private Map<String, Object> deepCopy(Map<String, Object> src) {
-        return objectMapper.convertValue(src, new TypeReference<Map<String, Object>>() {});
+    private static void put(Template template, Map<String, Object> payload, String key, Object value) {
+        if (value != null && !template.isServerField(key)) payload.put(key, value);
     }
 }
@@ -1,5 +1,11 @@
 package com.rawbank.reclamations.service;
 
+import com.rawbank.reclamations.config.HttpClientFactory;
+import com.rawbank.reclamations.service.auth.BearerTokenFilter;
+import com.rawbank.reclamations.service.auth.TokenBroker;
+import com.rawbank.reclamations.service.resilience.UpstreamGuard;
+import com.rawbank.reclamations.service.resilience.UpstreamGuards;
+import com.rawbank.reclamations.service.resilience.UpstreamHttpException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -12,21 +18,23 @@ import reactor.core.publisher.Mono;
 import org.springframework.core.ParameterizedTypeReference;
 
 import java.util.Map;
-import java.util.Objects;
 
 @Service
 public class PowerAutomateService {
 
     private final WebClient webClient;
-    private final WebClient tokenClient;
+    private final WebClient oauthClient;
     private final String endpoint;
     private final String tokenUrl;
     private final String clientId;
     private final String clientSecret;
-    private final String scope;
     private final boolean forceError;
+    private final UpstreamGuard guard;
 
     public PowerAutomateService(
+            HttpClientFactory httpClientFactory,
+            TokenBroker tokenBroker,
+            UpstreamGuards upstreamGuards,
             @Value("${powerautomate.url:}") String endpoint,
             @Value("${powerautomate.apiKeyHeaderName:}") String apiKeyHeaderName,
                 @Value("${powerautomate.apiKey:}") String apiKey,
@@ -40,19 +48,23 @@ public class PowerAutomateService {
             this.tokenUrl = tokenUrl;
             this.clientId = clientId;
             this.clientSecret = clientSecret;
-            this.scope = scope;
             this.forceError = forceError;
+            // Circuit ouvert ou cloison pleine => CallNotPermittedException immédiate; le worker Kafka la laisse remonter
+            // (réessais avec attente puis DLQ), les autres erreurs Power Automate restent journalisées puis acquittées
+            this.guard = upstreamGuards.guard("powerautomate");
 
-            WebClient.Builder builder = WebClient.builder();
+            WebClient.Builder builder = httpClientFactory.builder("powerautomate");
         if (StringUtils.hasText(apiKeyHeaderName) && StringUtils.hasText(apiKey)) {
             builder.defaultHeader(apiKeyHeaderName, apiKey);
         }
         builder.defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
         this.webClient = builder.build();
 
-            // Token client sans Content-Type par défaut (sera défini par requête)
-            this.tokenClient = WebClient.builder()
-                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+            // Jeton client_credentials mis en cache par le TokenBroker, ajouté par filtre (invalidation + rejeu sur 401)
+            TokenBroker.ClientCredentials credentials =
+                    new TokenBroker.ClientCredentials("powerautomate", tokenUrl, clientId, clientSecret, scope);
+            this.oauthClient = builder.clone()
+                .filter(new BearerTokenFilter(tokenBroker.source(credentials)))
                 .build();
     }
 
@@ -60,23 +72,23 @@ public class PowerAutomateService {
         if (!StringUtils.hasText(endpoint)) {
             return Mono.error(new IllegalStateException("Power Automate endpoint non configuré"));
         }
+        return guard.protect(() -> send(payload));
+    }
+
+    private Mono<Map<String, Object>> send(Map<String, Object> payload) {
             // Si tokenUrl et credentials fournis, obtenir un token et appeler avec Authorization
             if (StringUtils.hasText(tokenUrl) && StringUtils.hasText(clientId) && StringUtils.hasText(clientSecret)) {
-                    return getAccessToken()
-                        .flatMap(token -> webClient.post()
+                    return oauthClient.post()
                             .uri(endpoint)
-                            .headers(h -> {
-                            h.setBearerAuth(token);
-                            if (forceError) h.set("X-Force-Error", "true");
-                            })
+                            .headers(h -> { if (forceError) h.set("X-Force-Error", "true"); })
                         .body(BodyInserters.fromValue(payload))
                         .retrieve()
                         .onStatus(HttpStatusCode::isError, resp ->
                             resp.bodyToMono(String.class)
                                 .defaultIfEmpty("")
-                                .flatMap(body -> Mono.error(new IllegalStateException(
+                                .flatMap(body -> Mono.error(new UpstreamHttpException(resp.statusCode().value(),
                                     "Erreur Power Automate (" + resp.statusCode().value() + "): " + body))))
-                        .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {}));
+                        .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {});
             }
 
             // Sinon, appel direct (clé API éventuelle déjà injectée en header par défaut)
@@ -88,37 +100,8 @@ public class PowerAutomateService {
                 .onStatus(HttpStatusCode::isError, resp ->
                     resp.bodyToMono(String.class)
                         .defaultIfEmpty("")
-                        .flatMap(body -> Mono.error(new IllegalStateException(
+                        .flatMap(body -> Mono.error(new UpstreamHttpException(resp.statusCode().value(),
                             "Erreur Power Automate (" + resp.statusCode().value() + "): " + body))))
                 .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {});
     }
-
-            private Mono<String> getAccessToken() {
-            if (!StringUtils.hasText(tokenUrl)) {
-                return Mono.error(new IllegalStateException("powerautomate.tokenUrl non configuré"));
-            }
-            org.springframework.util.LinkedMultiValueMap<String, String> form = new org.springframework.util.LinkedMultiValueMap<>();
-            form.add("grant_type", "client_credentials");
-            form.add("client_id", Objects.toString(clientId, ""));
-            form.add("client_secret", Objects.toString(clientSecret, ""));
-            if (StringUtils.hasText(scope)) form.add("scope", scope);
-
-            return tokenClient.post()
-                .uri(tokenUrl)
-                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
-                .body(BodyInserters.fromFormData(form))
-                .retrieve()
-                .onStatus(HttpStatusCode::isError, resp ->
-                    resp.bodyToMono(String.class)
-                        .defaultIfEmpty("")
-                        .flatMap(body -> Mono.error(new IllegalStateException(
-                            "Erreur token Power Automate (" + resp.statusCode().value() + "): " + body))))
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .map(map -> {
-                    Object at = map.get("access_token");
-                    return at == null ? null : at.toString();
-                })
-                .filter(StringUtils::hasText)
-                .switchIfEmpty(Mono.error(new IllegalStateException("Réponse token invalide (access_token manquant)")));
-            }
 }
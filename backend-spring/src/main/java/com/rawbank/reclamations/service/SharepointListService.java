@@ -1,7 +1,16 @@
 package com.rawbank.reclamations.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.rawbank.reclamations.config.HttpClientFactory;
 import com.rawbank.reclamations.service.accounts.SharepointAuthService;
+import com.rawbank.reclamations.service.auth.BearerTokenFilter;
+import com.rawbank.reclamations.service.batch.MicroBatcher;
+import com.rawbank.reclamations.service.resilience.UpstreamGuard;
+import com.rawbank.reclamations.service.resilience.UpstreamGuards;
+import com.rawbank.reclamations.service.resilience.UpstreamHttpException;
 import io.github.cdimascio.dotenv.Dotenv;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,7 +21,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -20,22 +34,47 @@ public class SharepointListService {
 
     private static final Logger log = LoggerFactory.getLogger(SharepointListService.class);
     private final WebClient webClient;
-    private final SharepointAuthService authService;
     private final String createItemUrl;
     private final String graphBaseUrl;
     private final String graphSiteId;
     private final String graphListId;
     private final boolean forceError;
+    private final UpstreamGuard guard;
+    // Regroupement optionnel des créations Graph en requêtes $batch (null si désactivé)
+    private final MicroBatcher<Map<String, Object>, Map<String, Object>> graphBatcher;
+    // Writers Jackson construits une fois: corps JSON produit directement en octets, sans résolution par requête
+    private final ObjectWriter itemWriter;
+    private final ObjectWriter graphItemWriter;
+    /** Limite Graph: 20 requêtes par $batch. */
+    private static final int GRAPH_BATCH_LIMIT = 20;
+    /** Item limité (429) dans un $batch: réessais dans un lot suivant, attente Retry-After plafonnée. */
+    private static final int THROTTLED_ITEM_RETRIES = 2;
+    private static final Duration THROTTLED_ITEM_DEFAULT_WAIT = Duration.ofSeconds(1);
+    private static final Duration THROTTLED_ITEM_MAX_WAIT = Duration.ofSeconds(2);
 
-    public SharepointListService(SharepointAuthService authService,
+    public SharepointListService(HttpClientFactory httpClientFactory,
+                                 SharepointAuthService authService,
+                                 UpstreamGuards upstreamGuards,
+                                 ObjectMapper objectMapper,
                                  @Value("${sharepoint.list.create.url:}") String createItemUrl,
                                  @Value("${graph.base.url:https://graph.microsoft.com/v1.0}") String graphBaseUrl,
                                  @Value("${graph.site.id:}") String graphSiteId,
                                  @Value("${graph.list.id:}") String graphListId,
-                                 @Value("${app.test.forceError:false}") boolean forceError) {
-        this.webClient = WebClient.builder().build();
-        this.authService = authService;
+                                 @Value("${app.test.forceError:false}") boolean forceError,
+                                 @Value("${graph.batch.enabled:false}") boolean batchEnabled,
+                                 @Value("${graph.batch.window:20ms}") Duration batchWindow,
+                                 @Value("${graph.batch.max-size:20}") int batchMaxSize,
+                                 MeterRegistry meterRegistry) {
+        // Jeton SharePoint/Graph ajouté par filtre: invalidé et requête rejouée une fois sur 401
+        this.webClient = httpClientFactory.builder("sharepoint")
+                .filter(new BearerTokenFilter(authService))
+                .build();
         this.forceError = forceError;
+        this.itemWriter = objectMapper.writerFor(Map.class);
+        // Graph attend { "fields": { ...champs... } }
+        this.graphItemWriter = itemWriter.withRootName("fields");
+        // Disjoncteur + cloison: Graph lent ou en erreur => échec immédiat au lieu d'empiler les createItem
+        this.guard = upstreamGuards.guard("sharepoint");
 
         // Load optional .env from repo and module for fallbacks
         Dotenv dotenvRepo = null;
@@ -66,55 +105,166 @@ public class SharepointListService {
         this.graphBaseUrl = graphBaseUrlResolved;
         this.graphSiteId = graphSiteIdResolved;
         this.graphListId = graphListIdResolved;
+
+        this.graphBatcher = batchEnabled
+                ? new MicroBatcher<>("graph-create-item", Math.min(batchMaxSize, GRAPH_BATCH_LIMIT), batchWindow,
+                        this::createItemsBatch, meterRegistry)
+                : null;
     }
 
     public Mono<Map<String, Object>> createItem(Map<String, Object> payload) {
         if (!StringUtils.hasText(createItemUrl)) {
             return Mono.error(new IllegalStateException("URL création item SharePoint non configurée"));
         }
+        return guard.protect(() -> send(payload));
+    }
+
+    private Mono<Map<String, Object>> send(Map<String, Object> payload) {
         // If Graph site/list ids are configured, use Graph API
         if (StringUtils.hasText(graphSiteId) && StringUtils.hasText(graphListId)) {
-            String url = graphBaseUrl;
-            if (!StringUtils.hasText(url)) url = "https://graph.microsoft.com/v1.0";
-            String endpoint = url + "/sites/" + graphSiteId + "/lists/" + graphListId + "/items";
-            // Graph expects { "fields": { ...mapped fields... } }
-            Map<String, Object> graphBody = Map.of("fields", payload);
-            return authService.getToken()
-                .flatMap(token -> webClient.post()
+            if (graphBatcher != null) {
+                return graphBatcher.submit(payload)
+                        .retryWhen(throttledItemRetry(THROTTLED_ITEM_RETRIES, THROTTLED_ITEM_DEFAULT_WAIT, THROTTLED_ITEM_MAX_WAIT))
+                        .doOnSuccess(resp -> log.info("Item SharePoint créé via Graph ($batch)"));
+            }
+            String endpoint = graphBaseUrl() + itemsPath();
+            return Mono.fromCallable(() -> graphItemWriter.writeValueAsBytes(payload))
+                    .flatMap(body -> webClient.post()
                     .uri(endpoint)
                     .contentType(MediaType.APPLICATION_JSON)
-                    .headers(h -> { h.setBearerAuth(token); if (forceError) h.set("X-Force-Error", "true"); })
-                    .bodyValue(graphBody)
+                    .headers(h -> { if (forceError) h.set("X-Force-Error", "true"); })
+                    .bodyValue(body)
                     .retrieve()
                     .onStatus(HttpStatusCode::isError, resp -> resp.bodyToMono(String.class)
                         .defaultIfEmpty("")
-                        .flatMap(body -> Mono.error(new IllegalStateException("Erreur Graph create item (" + resp.statusCode().value() + "): " + body))))
+                        .flatMap(err -> Mono.error(new UpstreamHttpException(resp.statusCode().value(),"Erreur Graph create item (" + resp.statusCode().value() + "): " + err))))
                     .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {}))
-                .map(resp -> {
-                // Normalize Graph response into { fields: { ... }, id: ... }
-                Object fields = resp.get("fields");
-                if (fields instanceof Map<?,?> f) {
-                    @SuppressWarnings("unchecked") Map<String, Object> out = (Map<String, Object>) f;
-                    Object id = resp.get("id");
-                    if (id != null) out.put("id", id);
-                    return out;
-                }
-                return resp;
-                })
+                .map(SharepointListService::normalizeGraphItem)
                 .doOnSuccess(resp -> log.info("Item SharePoint créé via Graph"));
         }
         // Default: call direct SharePoint list create URL
-        return authService.getToken()
-            .flatMap(token -> webClient.post()
+        return Mono.fromCallable(() -> itemWriter.writeValueAsBytes(payload))
+                .flatMap(body -> webClient.post()
                 .uri(createItemUrl)
                 .contentType(MediaType.APPLICATION_JSON)
-                .headers(h -> { h.setBearerAuth(token); if (forceError) h.set("X-Force-Error", "true"); })
-                .bodyValue(payload)
+                .headers(h -> { if (forceError) h.set("X-Force-Error", "true"); })
+                .bodyValue(body)
                 .retrieve()
                 .onStatus(HttpStatusCode::isError, resp -> resp.bodyToMono(String.class)
                     .defaultIfEmpty("")
-                    .flatMap(body -> Mono.error(new IllegalStateException("Erreur SharePoint create item (" + resp.statusCode().value() + "): " + body))))
+                    .flatMap(err -> Mono.error(new UpstreamHttpException(resp.statusCode().value(),"Erreur SharePoint create item (" + resp.statusCode().value() + "): " + err))))
                 .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {}))
             .doOnSuccess(resp -> log.info("Item SharePoint créé"));
     }
+
+    /**
+     * Un appel Graph JSON $batch pour plusieurs créations d'items; chaque sous-réponse
+     * (identifiée par sa position) est rendue à son appelant, en succès ou en erreur.
+     */
+    private Mono<List<MicroBatcher.Result<Map<String, Object>>>> createItemsBatch(List<Map<String, Object>> payloads) {
+        List<Map<String, Object>> requests = new ArrayList<>(payloads.size());
+        for (int i = 0; i < payloads.size(); i++) {
+            requests.add(Map.of(
+                    "id", String.valueOf(i + 1),
+                    "method", "POST",
+                    "url", itemsPath(),
+                    "headers", Map.of("Content-Type", MediaType.APPLICATION_JSON_VALUE),
+                    "body", Map.of("fields", payloads.get(i))));
+        }
+        log.debug("Graph $batch: {} créations d'items", payloads.size());
+        return webClient.post()
+                .uri(graphBaseUrl() + "/$batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(h -> { if (forceError) h.set("X-Force-Error", "true"); })
+                .bodyValue(Map.of("requests", requests))
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, resp -> resp.bodyToMono(String.class)
+                    .defaultIfEmpty("")
+                    .flatMap(body -> Mono.error(new UpstreamHttpException(resp.statusCode().value(),"Erreur Graph $batch (" + resp.statusCode().value() + "): " + body))))
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .map(resp -> batchResults(resp, payloads.size()));
+    }
+
+    /**
+     * Sous-réponses du $batch rendues par position. Un item en erreur échoue avec {@link UpstreamHttpException}
+     * et son propre statut (un 5xx compte donc pour le disjoncteur), 502 si la sous-réponse manque.
+     */
+    @SuppressWarnings("unchecked")
+    static List<MicroBatcher.Result<Map<String, Object>>> batchResults(Map<String, Object> response, int expected) {
+        Map<String, Map<String, Object>> byId = new HashMap<>();
+        if (response.get("responses") instanceof List<?> responses) {
+            for (Object o : responses) {
+                if (o instanceof Map<?, ?> r && r.get("id") != null) byId.put(String.valueOf(r.get("id")), (Map<String, Object>) r);
+            }
+        }
+        List<MicroBatcher.Result<Map<String, Object>>> results = new ArrayList<>(expected);
+        for (int i = 1; i <= expected; i++) {
+            Map<String, Object> r = byId.get(String.valueOf(i));
+            int status = r != null && r.get("status") instanceof Number n ? n.intValue() : 0;
+            if (status >= 200 && status < 300 && r.get("body") instanceof Map<?, ?> body) {
+                results.add(MicroBatcher.Result.ok(normalizeGraphItem((Map<String, Object>) body)));
+            } else if (r == null || status == 0) {
+                results.add(MicroBatcher.Result.failed(new UpstreamHttpException(502,
+                        "Erreur Graph create item (502): réponse absente du lot")));
+            } else {
+                results.add(MicroBatcher.Result.failed(new UpstreamHttpException(status,
+                        "Erreur Graph create item (" + status + "): " + r.get("body"), retryAfter(r.get("headers")))));
+            }
+        }
+        return results;
+    }
+
+    // En-tête Retry-After d'une sous-réponse (en secondes), null si absent ou illisible
+    private static Duration retryAfter(Object headers) {
+        if (!(headers instanceof Map<?, ?> h)) return null;
+        for (Map.Entry<?, ?> e : h.entrySet()) {
+            if ("Retry-After".equalsIgnoreCase(String.valueOf(e.getKey())) && e.getValue() != null) {
+                try {
+                    return Duration.ofSeconds(Math.max(0, Long.parseLong(String.valueOf(e.getValue()).trim())));
+                } catch (NumberFormatException ignore) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Réessai d'un item limité (429) dans le $batch: nouvelle soumission après l'attente Retry-After
+     * ({@code defaultWait} sans en-tête), au plus {@code maxRetries} fois. Une attente demandée au-delà
+     * de {@code maxWait} n'est pas tenue: l'erreur 429 (avec son Retry-After) est rendue à l'appelant.
+     */
+    static Retry throttledItemRetry(int maxRetries, Duration defaultWait, Duration maxWait) {
+        return Retry.from(signals -> signals.concatMap(signal -> {
+            if (signal.failure() instanceof UpstreamHttpException e && e.getStatus() == 429
+                    && signal.totalRetries() < maxRetries) {
+                Duration wait = e.getRetryAfter() != null ? e.getRetryAfter() : defaultWait;
+                if (wait.compareTo(maxWait) <= 0) {
+                    log.debug("Graph $batch: item limité (429), nouvel essai dans {}", wait);
+                    return Mono.delay(wait);
+                }
+            }
+            return Mono.error(signal.failure());
+        }));
+    }
+
+    // Normalize Graph response into { fields: { ... }, id: ... }
+    static Map<String, Object> normalizeGraphItem(Map<String, Object> resp) {
+        Object fields = resp.get("fields");
+        if (fields instanceof Map<?,?> f) {
+            @SuppressWarnings("unchecked") Map<String, Object> out = (Map<String, Object>) f;
+            Object id = resp.get("id");
+            if (id != null) out.put("id", id);
+            return out;
+        }
+        return resp;
+    }
+
+    private String graphBaseUrl() {
+        return StringUtils.hasText(graphBaseUrl) ? graphBaseUrl : "https://graph.microsoft.com/v1.0";
+    }
+
+    private String itemsPath() {
+        return "/sites/" + graphSiteId + "/lists/" + graphListId + "/items";
+    }
 }
@@ -1,38 +1,67 @@
 package com.rawbank.reclamations.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class SubmissionTrackingService {
 
-    public record Status(String status, String complaintNumber, Instant updatedAt) {}
+    /** status: pending | completed | failed (error renseigné). */
+    public record Status(String status, String complaintNumber, Instant updatedAt, String error) {}
 
     private static class Entry {
         volatile String complaintNumber; // null while pending
+        volatile String error;           // non null si le traitement a échoué
         volatile Instant updatedAt = Instant.now();
     }
 
+    // Purge des suivis anciens toutes les PURGE_EVERY créations (le mode asynchrone en crée un par soumission)
+    private static final int PURGE_EVERY = 1000;
+
     private final Map<String, Entry> store = new ConcurrentHashMap<>();
+    private final Duration retention;
+    private final AtomicInteger created = new AtomicInteger();
+
+    public SubmissionTrackingService(@Value("${app.complaints.tracking.retention:24h}") Duration retention) {
+        this.retention = retention;
+    }
 
     public void markPending(String trackingId) {
         store.computeIfAbsent(Objects.requireNonNull(trackingId), id -> new Entry()).updatedAt = Instant.now();
+        if (created.incrementAndGet() % PURGE_EVERY == 0) purgeOlderThan(Instant.now().minus(retention));
     }
 
     public void complete(String trackingId, String complaintNumber) {
         Entry e = store.computeIfAbsent(Objects.requireNonNull(trackingId), id -> new Entry());
         e.complaintNumber = complaintNumber;
+        e.error = null;
+        e.updatedAt = Instant.now();
+    }
+
+    /** Échec du traitement; sans effet si un numéro de réclamation a déjà été obtenu. */
+    public void fail(String trackingId, String error) {
+        Entry e = store.computeIfAbsent(Objects.requireNonNull(trackingId), id -> new Entry());
+        if (e.complaintNumber != null) return;
+        e.error = error == null ? "Erreur inconnue" : error;
         e.updatedAt = Instant.now();
     }
 
     public Mono<Status> get(String trackingId) {
         return Mono.justOrEmpty(Optional.ofNullable(store.get(trackingId))
-                .map(e -> new Status(e.complaintNumber == null ? "pending" : "completed", e.complaintNumber, e.updatedAt)));
+                .map(e -> new Status(e.complaintNumber != null ? "completed" : e.error != null ? "failed" : "pending",
+                        e.complaintNumber, e.updatedAt, e.error)));
+    }
+
+    private void purgeOlderThan(Instant limit) {
+        store.values().removeIf(e -> e.updatedAt.isBefore(limit));
     }
 }
@@ -0,0 +1,219 @@
+package com.rawbank.reclamations.service.accounts;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.rawbank.reclamations.model.Account;
+import com.rawbank.reclamations.model.CustomerProfile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecture en flux (Jackson streaming) des réponses de la passerelle comptes.
+ * Seuls les champs utilisés sont lus; tout le reste est sauté sans être matérialisé.
+ * Formes supportées, par ordre de priorité:
+ * - { "cutomerDetail" (sic): { customerName, accountList: [ { agencyCode, accountNumber, suffix, currencyCode } ] } }
+ * - { "customerDetail": { ... } }
+ * - { status, message, rawComptes: [ { numero: "agence-compte-suffixe", codeDev, intitule } ] } (par téléphone)
+ * - { customerName, accountList } directement à la racine.
+ */
+public final class AccountDetailParser {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private AccountDetailParser() {}
+
+    public static CustomerProfile parse(InputStream in) throws IOException {
+        try (JsonParser p = JSON.createParser(in)) {
+            return parse(p);
+        }
+    }
+
+    public static CustomerProfile parse(byte[] body) throws IOException {
+        try (JsonParser p = JSON.createParser(body)) {
+            return parse(p);
+        }
+    }
+
+    private static CustomerProfile parse(JsonParser p) throws IOException {
+        if (p.nextToken() != JsonToken.START_OBJECT) return CustomerProfile.EMPTY;
+        CustomerProfile cutomerDetail = null;
+        CustomerProfile customerDetail = null;
+        CustomerProfile rawComptes = null;
+        String rootName = null;
+        List<Account> rootAccounts = null;
+
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken t = p.nextToken();
+            switch (field) {
+                case "cutomerDetail" -> {
+                    if (t == JsonToken.START_OBJECT) cutomerDetail = readDetail(p);
+                    else p.skipChildren();
+                }
+                case "customerDetail" -> {
+                    if (t == JsonToken.START_OBJECT) customerDetail = readDetail(p);
+                    else p.skipChildren();
+                }
+                case "rawComptes" -> {
+                    if (t == JsonToken.START_ARRAY) rawComptes = readRawComptes(p);
+                    else p.skipChildren();
+                }
+                case "customerName" -> rootName = text(p, t);
+                case "accountList" -> {
+                    if (t == JsonToken.START_ARRAY) rootAccounts = readAccountList(p);
+                    else p.skipChildren();
+                }
+                default -> p.skipChildren();
+            }
+        }
+
+        if (cutomerDetail != null) return cutomerDetail;
+        if (customerDetail != null) return customerDetail;
+        if (rawComptes != null) return rawComptes;
+        if (rootName != null || rootAccounts != null) return new CustomerProfile(rootName, rootAccounts);
+        return CustomerProfile.EMPTY;
+    }
+
+    private static CustomerProfile readDetail(JsonParser p) throws IOException {
+        String name = null;
+        List<Account> accounts = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken t = p.nextToken();
+            if ("customerName".equals(field)) {
+                name = text(p, t);
+            } else if ("accountList".equals(field) && t == JsonToken.START_ARRAY) {
+                accounts = readAccountList(p);
+            } else {
+                p.skipChildren();
+            }
+        }
+        return new CustomerProfile(name, accounts);
+    }
+
+    private static List<Account> readAccountList(JsonParser p) throws IOException {
+        List<Account> accounts = new ArrayList<>();
+        JsonToken t;
+        while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (t != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            String agencyCode = null, accountNumber = null, suffix = null, currencyCode = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken v = p.nextToken();
+                switch (field) {
+                    case "agencyCode" -> agencyCode = text(p, v);
+                    case "accountNumber" -> accountNumber = text(p, v);
+                    case "suffix" -> suffix = text(p, v);
+                    case "currencyCode" -> currencyCode = text(p, v);
+                    default -> p.skipChildren();
+                }
+            }
+            accounts.add(new Account(agencyCode, accountNumber, suffix, currencyCode));
+        }
+        return accounts;
+    }
+
+    /**
+     * rawComptes[].numero = "agence-compte-suffixe"; le nom client est déduit de intitule
+     * (partie avant "V/C") s'il est identique sur tous les comptes.
+     */
+    private static CustomerProfile readRawComptes(JsonParser p) throws IOException {
+        List<Account> accounts = new ArrayList<>();
+        String commonName = null;
+        boolean namesAgree = true;
+        JsonToken t;
+        while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (t != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            String numero = null, codeDev = null, intitule = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken v = p.nextToken();
+                switch (field) {
+                    case "numero" -> numero = v == JsonToken.VALUE_STRING ? p.getText() : skip(p);
+                    case "codeDev" -> codeDev = currencyCode(p, v);
+                    case "intitule" -> intitule = v == JsonToken.VALUE_STRING ? p.getText() : skip(p);
+                    default -> p.skipChildren();
+                }
+            }
+            Account account = splitNumero(numero, codeDev);
+            if (account == null) continue;
+            accounts.add(account);
+            if (intitule != null && !intitule.isBlank()) {
+                String name = nameFromIntitule(intitule);
+                if (commonName == null) commonName = name;
+                else if (!commonName.equals(name)) namesAgree = false;
+            }
+        }
+        String customerName = namesAgree && commonName != null && !commonName.isBlank() ? commonName : null;
+        return new CustomerProfile(customerName, accounts);
+    }
+
+    static Account splitNumero(String numero, String currencyCode) {
+        if (numero == null) return null;
+        // Même découpage que split("-"): les segments vides de fin sont ignorés ("agence-compte--" est rejeté)
+        String s = numero.trim();
+        int end = s.length();
+        while (end > 0 && s.charAt(end - 1) == '-') end--;
+        s = s.substring(0, end);
+        int first = s.indexOf('-');
+        if (first < 0) return null;
+        int second = s.indexOf('-', first + 1);
+        if (second < 0) return null;
+        int third = s.indexOf('-', second + 1);
+        String suffix = third < 0 ? s.substring(second + 1) : s.substring(second + 1, third);
+        return new Account(s.substring(0, first).trim(), s.substring(first + 1, second).trim(), suffix.trim(), currencyCode);
+    }
+
+    static String nameFromIntitule(String intitule) {
+        // Heuristique: prendre la partie avant "V/C" (insensible à la casse)
+        for (int i = 1; i + 3 <= intitule.length(); i++) {
+            if (intitule.regionMatches(true, i, "V/C", 0, 3)) {
+                return intitule.substring(0, i).trim();
+            }
+        }
+        return intitule;
+    }
+
+    /** codeDev numérique (nombre ou chaîne de chiffres), sinon ignoré. */
+    private static String currencyCode(JsonParser p, JsonToken t) throws IOException {
+        if (t == JsonToken.VALUE_NUMBER_INT) return p.getText();
+        if (t == JsonToken.VALUE_NUMBER_FLOAT) return String.valueOf(p.getIntValue());
+        if (t == JsonToken.VALUE_STRING) {
+            String s = p.getText();
+            if (s.isEmpty()) return null;
+            for (int i = 0; i < s.length(); i++) {
+                if (s.charAt(i) < '0' || s.charAt(i) > '9') return null;
+            }
+            try {
+                return String.valueOf(Integer.parseInt(s));
+            } catch (NumberFormatException ignore) {
+                return s;
+            }
+        }
+        p.skipChildren();
+        return null;
+    }
+
+    /** Valeur scalaire en texte (chaîne ou nombre); null pour null/objets/tableaux. */
+    private static String text(JsonParser p, JsonToken t) throws IOException {
+        if (t == JsonToken.VALUE_STRING || t == JsonToken.VALUE_NUMBER_INT || t == JsonToken.VALUE_NUMBER_FLOAT) {
+            return p.getText();
+        }
+        return skip(p);
+    }
+
+    private static String skip(JsonParser p) throws IOException {
+        p.skipChildren();
+        return null;
+    }
+}
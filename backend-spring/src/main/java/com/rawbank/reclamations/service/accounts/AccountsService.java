@@ -1,16 +1,33 @@
 package com.rawbank.reclamations.service.accounts;
 
+import com.rawbank.reclamations.config.HttpClientFactory;
+import com.rawbank.reclamations.model.AccountLookupResult;
+import com.rawbank.reclamations.model.CustomerProfile;
+import com.rawbank.reclamations.service.auth.BearerTokenFilter;
+import com.rawbank.reclamations.service.cache.ExpiringCache;
+import com.rawbank.reclamations.service.cache.SingleFlight;
+import com.rawbank.reclamations.service.resilience.Hedger;
+import com.rawbank.reclamations.service.resilience.UpstreamGuard;
+import com.rawbank.reclamations.service.resilience.UpstreamGuards;
+import com.rawbank.reclamations.service.resilience.UpstreamHttpException;
+import com.rawbank.reclamations.service.normalize.InputNormalizer;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import io.github.cdimascio.dotenv.Dotenv;
@@ -23,17 +40,51 @@ public class AccountsService {
     private final WebClient webClient;
     private final String accountDetailsUrl;
     private final String accountDetailsByPhoneUrl;
-    private final SharepointAuthService sharepointAuthService;
     private final boolean forceError;
+    // Détail client normalisé, indexé par "client:<8 chiffres>" et "phone:<10 chiffres>"
+    private final ExpiringCache<String, CustomerProfile> detailCache;
+    // Appels identiques concurrents (double-clic, retry front) regroupés sur une seule requête amont
+    private final SingleFlight<String, CustomerProfile> detailCalls;
+    // Couverture (hedging) des appels détail: désactivée par défaut
+    private final Hedger detailHedger;
+    // Disjoncteur + cloison sur la passerelle comptes (chaque tentative, couverture comprise)
+    private final UpstreamGuard guard;
+    private final int batchConcurrency;
+    private final int maxDetailBytes;
+    private static final String CLIENT_KEY_PREFIX = "client:";
+    private static final String PHONE_KEY_PREFIX = "phone:";
     private static final Logger log = LoggerFactory.getLogger(AccountsService.class);
 
-    public AccountsService(SharepointAuthService sharepointAuthService,
+    public AccountsService(HttpClientFactory httpClientFactory,
+                           SharepointAuthService sharepointAuthService,
+                           UpstreamGuards upstreamGuards,
                            @Value("${accounts.details.url:}") String accountDetailsUrl,
                            @Value("${accounts.details.byphone.url:}") String accountDetailsByPhoneUrl,
-                           @Value("${app.test.forceError:false}") boolean forceError) {
-        this.webClient = WebClient.builder().build();
-        this.sharepointAuthService = sharepointAuthService;
+                           @Value("${accounts.details.max-size:2MB}") DataSize maxDetailSize,
+                           @Value("${app.test.forceError:false}") boolean forceError,
+                           @Value("${accounts.cache.max-size:10000}") int cacheMaxSize,
+                           @Value("${accounts.cache.ttl:2m}") Duration cacheTtl,
+                           @Value("${accounts.cache.stale-ttl:10m}") Duration cacheStaleTtl,
+                           @Value("${accounts.singleflight.max-wait:15s}") Duration singleFlightMaxWait,
+                           @Value("${accounts.batch.concurrency:8}") int batchConcurrency,
+                           @Value("${accounts.hedging.enabled:false}") boolean hedgingEnabled,
+                           @Value("${accounts.hedging.percentile:0.95}") double hedgingPercentile,
+                           @Value("${accounts.hedging.min-delay:50ms}") Duration hedgingMinDelay,
+                           @Value("${accounts.hedging.max-delay:2s}") Duration hedgingMaxDelay,
+                           @Value("${accounts.hedging.budget:0.05}") double hedgingBudget,
+                           MeterRegistry meterRegistry) {
+        // Jeton SharePoint ajouté par filtre: invalidé et requête rejouée une fois sur 401
+        this.webClient = httpClientFactory.builder("accounts")
+                .filter(new BearerTokenFilter(sharepointAuthService))
+                .build();
         this.forceError = forceError;
+        this.maxDetailBytes = (int) Math.min(Integer.MAX_VALUE, maxDetailSize.toBytes());
+        this.detailCache = new ExpiringCache<>("customer-detail", cacheMaxSize, cacheTtl, cacheStaleTtl, meterRegistry);
+        this.detailCalls = new SingleFlight<>("customer-detail", singleFlightMaxWait, meterRegistry);
+        this.detailHedger = new Hedger("accounts", hedgingEnabled, hedgingPercentile,
+                hedgingMinDelay, hedgingMaxDelay, hedgingBudget, meterRegistry);
+        this.guard = upstreamGuards.guard("accounts");
+        this.batchConcurrency = Math.max(1, batchConcurrency);
         // Charger depuis .env si non fourni par properties/env
         // Priorité: @Value > .env racine du repo > .env du module
         String tmpAccountUrl = null;
@@ -55,92 +106,55 @@ public class AccountsService {
     }
 
     /**
-     * Appelle l'API externe getAccountDetail et retourne une liste formatée
+     * Appelle l'API externe getAccountDetail (via le cache de détail client) et retourne une liste formatée
      * agencyCode-accountNumber-suffix pour chaque compte.
      */
     public Mono<List<String>> getAccounts(String clientId) {
-        if (!StringUtils.hasText(accountDetailsUrl)) {
-            return Mono.error(new IllegalStateException("URL détails comptes non configurée"));
-        }
-        if (!StringUtils.hasText(clientId) || !clientId.matches("^\\d{8}$")) {
-            return Mono.error(new IllegalArgumentException("clientId invalide (8 chiffres requis)"));
-        }
-        log.debug("Appel getAccountDetail pour clientId={}", clientId);
-        return sharepointAuthService.getToken()
-            .flatMap(token -> webClient.post()
-                .uri(accountDetailsUrl)
-                .contentType(MediaType.APPLICATION_JSON)
-                .headers(h -> {
-                    h.setBearerAuth(token);
-                    if (forceError) h.set("X-Force-Error", "true");
-                })
-                .bodyValue(Map.of("customerCode", clientId))
-                .retrieve()
-                .onStatus(HttpStatusCode::isError, resp -> resp.bodyToMono(String.class)
-                    .defaultIfEmpty("")
-                    .flatMap(body -> Mono.error(new IllegalStateException("Erreur API détails (" + resp.statusCode().value() + "): " + body))))
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {}))
-                .map(root -> {
-                    log.debug("Réponse details reçue: {}", root != null);
-                    if (root == null) return Collections.emptyList();
-                    Object detailObj = root.get("cutomerDetail"); // orthographe fournie dans le payload
-                    if (!(detailObj instanceof Map)) return Collections.emptyList();
-                    Map<?, ?> detail = (Map<?, ?>) detailObj;
-                    Object accountListObj = detail.get("accountList");
-                    if (!(accountListObj instanceof List)) return Collections.emptyList();
-                    List<?> rawList = (List<?>) accountListObj;
-                    List<String> formatted = new ArrayList<>();
-                    for (Object o : rawList) {
-                        if (o instanceof Map<?, ?> acc) {
-                            Object agencyCode = acc.get("agencyCode");
-                            Object accountNumber = acc.get("accountNumber");
-                            Object suffix = acc.get("suffix");
-                            if (agencyCode != null && accountNumber != null && suffix != null) {
-                                formatted.add(agencyCode + "-" + accountNumber + "-" + suffix);
-                            }
-                        }
-                    }
+        return getCustomerDetail(clientId)
+                .map(detail -> {
+                    List<String> formatted = detail.formattedAccounts();
                     log.info("Comptes formatés: {} items", formatted.size());
                     return formatted;
                 });
     }
 
     /**
-     * Retourne la section de détail client telle que renvoyée par l'API externe.
+     * Retourne le détail client (nom, comptes) renvoyé par l'API externe.
      * Permet d'enrichir le payload de réclamation côté backend (nom client, agence, etc.).
+     * Servi depuis le cache si le formulaire vient de lister les comptes du même client.
      */
-    public Mono<Map<String, Object>> getCustomerDetail(String clientId) {
+    public Mono<CustomerProfile> getCustomerDetail(String clientId) {
         if (!StringUtils.hasText(accountDetailsUrl)) {
             return Mono.error(new IllegalStateException("URL détails comptes non configurée"));
         }
-        if (!StringUtils.hasText(clientId) || !clientId.matches("^\\d{8}$")) {
+        if (!StringUtils.hasText(clientId) || !InputNormalizer.isDigits(clientId, 8)) {
             return Mono.error(new IllegalArgumentException("clientId invalide (8 chiffres requis)"));
         }
+        return detailCache.get(CLIENT_KEY_PREFIX + clientId,
+                        k -> detailCalls.execute(k, () -> detailHedger.execute(() -> guard.protect(() -> fetchCustomerDetail(clientId)))))
+                .defaultIfEmpty(CustomerProfile.EMPTY);
+    }
+
+    private Mono<CustomerProfile> fetchCustomerDetail(String clientId) {
         log.debug("Appel getAccountDetail (detail) pour clientId={}", clientId);
-        return sharepointAuthService.getToken()
-            .flatMap(token -> webClient.post()
+        return webClient.post()
                 .uri(accountDetailsUrl)
                 .contentType(MediaType.APPLICATION_JSON)
-                .headers(h -> {
-                    h.setBearerAuth(token);
-                    if (forceError) h.set("X-Force-Error", "true");
-                })
+                .headers(h -> { if (forceError) h.set("X-Force-Error", "true"); })
                 .bodyValue(Map.of("customerCode", clientId))
                 .retrieve()
                 .onStatus(HttpStatusCode::isError, resp -> resp.bodyToMono(String.class)
                     .defaultIfEmpty("")
-                    .flatMap(body -> Mono.error(new IllegalStateException("Erreur API détails (" + resp.statusCode().value() + "): " + body))))
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {}))
-            .map(root -> {
-                Object detailObj = root == null ? null : root.get("cutomerDetail");
-                if (!(detailObj instanceof Map)) {
+                    .flatMap(body -> Mono.error(new UpstreamHttpException(resp.statusCode().value(),"Erreur API détails (" + resp.statusCode().value() + "): " + body))))
+                .bodyToFlux(DataBuffer.class)
+            .as(this::parseProfile)
+            .flatMap(detail -> {
+                if (detail.isEmpty()) {
                     log.warn("Détail client absent ou invalide dans la réponse");
-                    return Collections.<String, Object>emptyMap();
+                    return Mono.empty(); // non mis en cache
                 }
-                @SuppressWarnings("unchecked")
-                Map<String, Object> detail = (Map<String, Object>) detailObj;
-                log.info("Détail client récupéré (clés={})", detail.keySet());
-                return detail;
+                log.info("Détail client récupéré ({} comptes)", detail.accounts().size());
+                return Mono.just(detail);
             });
     }
 
@@ -150,21 +164,7 @@ public class AccountsService {
     public Mono<List<String>> getAccountsByPhone(String phone) {
         return getCustomerDetailByPhone(phone)
                 .map(detail -> {
-                    if (detail == null) return Collections.emptyList();
-                    Object accountListObj = detail.get("accountList");
-                    if (!(accountListObj instanceof List)) return Collections.emptyList();
-                    List<?> rawList = (List<?>) accountListObj;
-                    List<String> formatted = new ArrayList<>();
-                    for (Object o : rawList) {
-                        if (o instanceof Map<?, ?> acc) {
-                            Object agencyCode = acc.get("agencyCode");
-                            Object accountNumber = acc.get("accountNumber");
-                            Object suffix = acc.get("suffix");
-                            if (agencyCode != null && accountNumber != null && suffix != null) {
-                                formatted.add(agencyCode + "-" + accountNumber + "-" + suffix);
-                            }
-                        }
-                    }
+                    List<String> formatted = detail.formattedAccounts();
                     log.info("Comptes formatés (téléphone): {} items", formatted.size());
                     return formatted;
                 });
@@ -172,110 +172,74 @@ public class AccountsService {
 
     /**
      * Retourne le détail client à partir d'un numéro de téléphone (10 chiffres).
-     * Normalise la réponse pour exposer la même structure que getCustomerDetail (customerName, accountList, ...).
+     * Normalise la réponse (rawComptes, customerDetail, ...) vers le même modèle que getCustomerDetail.
      */
-    public Mono<Map<String, Object>> getCustomerDetailByPhone(String phone) {
+    public Mono<CustomerProfile> getCustomerDetailByPhone(String phone) {
         if (!StringUtils.hasText(accountDetailsByPhoneUrl)) {
             return Mono.error(new IllegalStateException("URL détails comptes (par téléphone) non configurée"));
         }
         if (!StringUtils.hasText(phone)) {
             return Mono.error(new IllegalArgumentException("Numéro de téléphone requis"));
         }
-        String digits = phone.replaceAll("\\D", "");
-        if (!digits.matches("^\\d{10}$")) {
+        String digits = InputNormalizer.phoneDigits(phone, 10);
+        if (digits == null) {
             return Mono.error(new IllegalArgumentException("Numéro de téléphone invalide (10 chiffres requis)"));
         }
+        return detailCache.get(PHONE_KEY_PREFIX + digits,
+                        k -> detailCalls.execute(k, () -> detailHedger.execute(() -> guard.protect(() -> fetchCustomerDetailByPhone(digits)))))
+                .defaultIfEmpty(CustomerProfile.EMPTY);
+    }
+
+    private Mono<CustomerProfile> fetchCustomerDetailByPhone(String digits) {
         log.debug("Appel getAccountDetailByPhone pour phone={}", digits);
-        return sharepointAuthService.getToken()
-            .flatMap(token -> webClient.post()
+        return webClient.post()
                 .uri(accountDetailsByPhoneUrl)
                 .contentType(MediaType.APPLICATION_JSON)
-                .headers(h -> {
-                    h.setBearerAuth(token);
-                    if (forceError) h.set("X-Force-Error", "true");
-                })
+                .headers(h -> { if (forceError) h.set("X-Force-Error", "true"); })
                 .bodyValue(Map.of("phoneNumber", digits))
                 .retrieve()
                 .onStatus(HttpStatusCode::isError, resp -> resp.bodyToMono(String.class)
                     .defaultIfEmpty("")
-                    .flatMap(body -> Mono.error(new IllegalStateException("Erreur API détails par téléphone (" + resp.statusCode().value() + "): " + body))))
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {}))
-            .map(root -> normalizeDetailResponse(root));
+                    .flatMap(body -> Mono.error(new UpstreamHttpException(resp.statusCode().value(),"Erreur API détails par téléphone (" + resp.statusCode().value() + "): " + body))))
+                .bodyToFlux(DataBuffer.class)
+            .as(this::parseProfile)
+            .doOnNext(detail -> log.debug("Détail par téléphone normalisé: {} comptes", detail.accounts().size()))
+            .filter(detail -> !detail.isEmpty());
     }
 
     /**
-     * Certaines APIs peuvent renvoyer "cutomerDetail" (sic) ou "customerDetail" ou tout à la racine.
-     * On tente de retourner un Map cohérent.
+     * Recherche de comptes pour un lot de clientIds et/ou téléphones, au plus {@code accounts.batch.concurrency}
+     * appels amont simultanés. Les résultats sont émis dans l'ordre de complétion; une erreur sur un élément
+     * est rapportée dans son résultat sans interrompre le lot. Les doublons et les clients déjà consultés
+     * sont servis par le cache et les appels en vol.
      */
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> normalizeDetailResponse(Map<String, Object> root) {
-        if (root == null) return Collections.emptyMap();
-        Object detailObj = root.get("cutomerDetail");
-        if (!(detailObj instanceof Map)) {
-            detailObj = root.get("customerDetail");
-        }
-        if (detailObj instanceof Map) {
-            return (Map<String, Object>) detailObj;
-        }
-
-        // Nouvelle forme (par téléphone): { status, message, rawComptes: [ { numero, codeDev, ... } ] }
-        Object rawComptesObj = root.get("rawComptes");
-        if (rawComptesObj instanceof List<?> rawComptes) {
-            List<Map<String, Object>> accountList = new ArrayList<>();
-            List<String> candidateNames = new ArrayList<>();
-            for (Object o : rawComptes) {
-                if (o instanceof Map<?, ?> acc) {
-                    Object numero = acc.get("numero");
-                    if (numero instanceof String s && s.contains("-")) {
-                        String[] parts = s.trim().split("-");
-                        if (parts.length >= 3) {
-                            String agencyCode = parts[0].trim();
-                            String accountNumber = parts[1].trim();
-                            String suffix = parts[2].trim();
-                            Map<String, Object> m = new java.util.HashMap<>();
-                            m.put("agencyCode", agencyCode);
-                            m.put("accountNumber", accountNumber);
-                            m.put("suffix", suffix);
-                            Object codeDev = acc.get("codeDev");
-                            if (codeDev instanceof String cs && cs.matches("^\\d+$")) {
-                                try {
-                                    m.put("currencyCode", Integer.parseInt(cs));
-                                } catch (NumberFormatException ignore) {
-                                    m.put("currencyCode", cs);
-                                }
-                            } else if (codeDev instanceof Number n) {
-                                m.put("currencyCode", n.intValue());
-                            }
-                            accountList.add(m);
+    public Flux<AccountLookupResult> getAccountsBatch(List<String> clientIds, List<String> phones) {
+        Flux<Mono<AccountLookupResult>> byClient = Flux.fromIterable(clientIds == null ? List.of() : clientIds)
+                .map(id -> getAccounts(id)
+                        .map(accounts -> AccountLookupResult.success(id, null, accounts))
+                        .onErrorResume(e -> Mono.just(AccountLookupResult.failure(id, null, e.getMessage()))));
+        Flux<Mono<AccountLookupResult>> byPhone = Flux.fromIterable(phones == null ? List.of() : phones)
+                .map(phone -> getAccountsByPhone(phone)
+                        .map(accounts -> AccountLookupResult.success(null, phone, accounts))
+                        .onErrorResume(e -> Mono.just(AccountLookupResult.failure(null, phone, e.getMessage()))));
+        return Flux.concat(byClient, byPhone)
+                .flatMap(lookup -> lookup, batchConcurrency);
+    }
 
-                            Object intitule = acc.get("intitule");
-                            if (intitule instanceof String it && !it.isBlank()) {
-                                String name = it;
-                                // Heuristique: prendre la partie avant "V/C"
-                                int idx = it.toUpperCase().indexOf("V/C");
-                                if (idx > 0) name = it.substring(0, idx).trim();
-                                candidateNames.add(name);
-                            }
-                        }
+    /**
+     * Agrège le corps de réponse (au plus {@code accounts.details.max-size}) et le lit en flux vers le modèle typé
+     * (sans passer par une Map).
+     */
+    private Mono<CustomerProfile> parseProfile(Flux<DataBuffer> body) {
+        return DataBufferUtils.join(body, maxDetailBytes)
+                .onErrorMap(DataBufferLimitException.class, e -> new IllegalStateException(
+                        "Réponse détails comptes trop volumineuse (> " + maxDetailBytes + " octets)", e))
+                .map(buffer -> {
+                    try (InputStream in = buffer.asInputStream(true)) {
+                        return AccountDetailParser.parse(in);
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Réponse détails comptes illisible: " + e.getMessage(), e);
                     }
-                }
-            }
-            Map<String, Object> normalized = new java.util.HashMap<>();
-            normalized.put("accountList", accountList);
-            // Déduire customerName si tous identiques
-            if (!candidateNames.isEmpty()) {
-                String first = candidateNames.get(0);
-                boolean allSame = candidateNames.stream().allMatch(first::equals);
-                if (allSame && !first.isBlank()) {
-                    normalized.put("customerName", first);
-                }
-            }
-            log.debug("Normalisation rawComptes -> accountList: {} comptes", accountList.size());
-            return normalized;
-        }
-
-        // En dernier recours, retourner la racine telle quelle
-        log.warn("Structure inattendue pour détail client par téléphone; retour racine");
-        return root;
+                });
     }
 }
@@ -1,6 +1,10 @@
 package com.rawbank.reclamations.service.accounts;
 
+import com.rawbank.reclamations.config.HttpClientFactory;
+import com.rawbank.reclamations.service.auth.TokenCache;
+import com.rawbank.reclamations.service.auth.TokenSource;
 import io.github.cdimascio.dotenv.Dotenv;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatusCode;
@@ -10,12 +14,14 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @Service
-public class SharepointAuthService {
+public class SharepointAuthService implements TokenSource {
 
     private final WebClient webClient;
     private final String authUrl;
@@ -26,18 +32,24 @@ public class SharepointAuthService {
     private final String graphClientId;
     private final String graphClientSecret;
     private final String graphScope;
+    private final Duration defaultTtl;
+    private final TokenCache tokenCache;
     private static final Logger log = LoggerFactory.getLogger(SharepointAuthService.class);
 
     public SharepointAuthService(
+            HttpClientFactory httpClientFactory,
             @Value("${sharepoint.auth.url:}") String authUrl,
             @Value("${sharepoint.auth.username:}") String username,
             @Value("${sharepoint.auth.password:}") String password,
             @Value("${graph.tenant.id:}") String graphTenantId,
             @Value("${graph.client.id:}") String graphClientId,
             @Value("${graph.client.secret:}") String graphClientSecret,
-            @Value("${graph.scope:https://graph.microsoft.com/.default}") String graphScope
+            @Value("${graph.scope:https://graph.microsoft.com/.default}") String graphScope,
+            @Value("${sharepoint.auth.token.refresh-ahead:60s}") Duration refreshAhead,
+            @Value("${sharepoint.auth.token.default-ttl:5m}") Duration defaultTtl,
+            MeterRegistry meterRegistry
     ) {
-        this.webClient = WebClient.builder().build();
+        this.webClient = httpClientFactory.builder("sharepoint-auth").build();
         // Permet de charger depuis .env si non fourni par properties/env
         Dotenv dotenv = Dotenv.configure()
             .directory("../../") // racine du workspace
@@ -51,9 +63,26 @@ public class SharepointAuthService {
         this.graphClientId = StringUtils.hasText(graphClientId) ? graphClientId : dotenv.get("GRAPH_CLIENT_ID");
         this.graphClientSecret = StringUtils.hasText(graphClientSecret) ? graphClientSecret : dotenv.get("GRAPH_CLIENT_SECRET");
         this.graphScope = StringUtils.hasText(graphScope) ? graphScope : (dotenv.get("GRAPH_SCOPE") != null ? dotenv.get("GRAPH_SCOPE") : "https://graph.microsoft.com/.default");
+        this.defaultTtl = defaultTtl;
+        // Un seul jeton partagé par AccountsService et SharepointListService (rafraîchi avant expiration)
+        this.tokenCache = new TokenCache("sharepoint", this::fetchToken, refreshAhead, meterRegistry);
     }
 
+    /**
+     * Jeton SharePoint/Graph depuis le cache; un appel au token endpoint n'a lieu qu'à l'expiration
+     * (ou en arrière-plan peu avant).
+     */
+    @Override
     public Mono<String> getToken() {
+        return tokenCache.getToken();
+    }
+
+    @Override
+    public void invalidate(String token) {
+        tokenCache.invalidate(token);
+    }
+
+    private Mono<TokenCache.CachedToken> fetchToken() {
         // Prefer Graph client credentials if configured
         if (StringUtils.hasText(graphTenantId) && StringUtils.hasText(graphClientId) && StringUtils.hasText(graphClientSecret)) {
             String tokenUrl = "https://login.microsoftonline.com/" + graphTenantId + "/oauth2/v2.0/token";
@@ -76,7 +105,8 @@ public class SharepointAuthService {
                             return Mono.error(new IllegalStateException("access_token absent dans la réponse Graph"));
                         }
                         log.info("Token Graph obtenu");
-                        return Mono.just(String.valueOf(tok));
+                        return Mono.just(new TokenCache.CachedToken(String.valueOf(tok),
+                                TokenCache.expiresAt(map, defaultTtl, Clock.systemUTC())));
                     });
         }
         // Fallback to legacy SharePoint auth endpoint
@@ -106,7 +136,8 @@ public class SharepointAuthService {
                         return Mono.error(new IllegalStateException("Token absent dans la réponse d'authentification"));
                     }
                     log.info("Token SharePoint obtenu");
-                    return Mono.just(String.valueOf(tok));
+                    return Mono.just(new TokenCache.CachedToken(String.valueOf(tok),
+                            TokenCache.expiresAt(map, defaultTtl, Clock.systemUTC())));
                 });
     }
 
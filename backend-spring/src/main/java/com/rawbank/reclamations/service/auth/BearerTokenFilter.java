@@ -0,0 +1,48 @@
+package com.rawbank.reclamations.service.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * Filtre WebClient qui ajoute le jeton Bearer de la {@link TokenSource} et, sur réponse 401,
+ * invalide ce jeton uniquement puis rejoue la requête une seule fois avec un jeton frais.
+ * Les 401 concurrents partagent le même rafraîchissement (single-flight du cache).
+ */
+public class BearerTokenFilter implements ExchangeFilterFunction {
+
+    private static final Logger log = LoggerFactory.getLogger(BearerTokenFilter.class);
+
+    private final TokenSource tokenSource;
+
+    public BearerTokenFilter(TokenSource tokenSource) {
+        this.tokenSource = tokenSource;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return tokenSource.getToken()
+                .flatMap(token -> next.exchange(withBearer(request, token))
+                        .flatMap(resp -> {
+                            if (resp.statusCode().value() != HttpStatus.UNAUTHORIZED.value()) {
+                                return Mono.just(resp);
+                            }
+                            log.warn("401 sur {} {}: jeton invalidé, nouvelle tentative", request.method(), request.url().getPath());
+                            return resp.releaseBody()
+                                    .then(Mono.fromRunnable(() -> tokenSource.invalidate(token)))
+                                    .then(tokenSource.getToken())
+                                    .flatMap(fresh -> next.exchange(withBearer(request, fresh)));
+                        }));
+    }
+
+    private static ClientRequest withBearer(ClientRequest request, String token) {
+        return ClientRequest.from(request)
+                .headers(h -> h.setBearerAuth(token))
+                .build();
+    }
+}
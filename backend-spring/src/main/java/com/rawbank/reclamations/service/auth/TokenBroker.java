@@ -0,0 +1,129 @@
+package com.rawbank.reclamations.service.auth;
+
+import com.rawbank.reclamations.config.HttpClientFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Courtier de jetons OAuth2 client_credentials partagé par les services appelant des APIs protégées
+ * (Power Automate, API comptes, ...). Un cache par identifiant (tokenUrl, clientId, scope):
+ * deux services utilisant les mêmes identifiants partagent le même jeton.
+ */
+@Service
+public class TokenBroker {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenBroker.class);
+
+    /**
+     * Identifiants client_credentials. {@code name} sert aux messages d'erreur et au tag des métriques.
+     */
+    public record ClientCredentials(String name, String tokenUrl, String clientId, String clientSecret, String scope) {
+        TokenKey key() {
+            return new TokenKey(tokenUrl, clientId, scope);
+        }
+    }
+
+    /** Clé de cache: le secret n'en fait pas partie. */
+    record TokenKey(String tokenUrl, String clientId, String scope) {}
+
+    private final WebClient webClient;
+    private final MeterRegistry meterRegistry;
+    private final Duration refreshAhead;
+    private final Duration jitter;
+    private final Duration defaultTtl;
+    private final Map<TokenKey, TokenCache> caches = new ConcurrentHashMap<>();
+
+    public TokenBroker(HttpClientFactory httpClientFactory,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.auth.token.refresh-ahead:60s}") Duration refreshAhead,
+                       @Value("${app.auth.token.jitter:15s}") Duration jitter,
+                       @Value("${app.auth.token.default-ttl:5m}") Duration defaultTtl) {
+        this.meterRegistry = meterRegistry;
+        this.refreshAhead = refreshAhead;
+        this.jitter = jitter;
+        this.defaultTtl = defaultTtl;
+        // Token client sans Content-Type par défaut (défini par requête)
+        this.webClient = httpClientFactory.builder("oauth")
+                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+    }
+
+    public Mono<String> getToken(ClientCredentials credentials) {
+        if (credentials == null || !StringUtils.hasText(credentials.tokenUrl())) {
+            return Mono.error(new IllegalStateException("Token URL non configurée"));
+        }
+        return caches.computeIfAbsent(credentials.key(), k -> new TokenCache(
+                        credentials.name(), () -> fetch(credentials), refreshAhead, jitter, meterRegistry, Clock.systemUTC()))
+                .getToken();
+    }
+
+    /** Invalide le jeton de ces identifiants uniquement (les autres credentials restent en cache). */
+    public void invalidate(ClientCredentials credentials, String token) {
+        TokenCache cache = credentials == null ? null : caches.get(credentials.key());
+        if (cache != null) cache.invalidate(token);
+    }
+
+    /** Vue {@link TokenSource} sur un identifiant, pour {@link BearerTokenFilter}. */
+    public TokenSource source(ClientCredentials credentials) {
+        return new TokenSource() {
+            @Override
+            public Mono<String> getToken() {
+                return TokenBroker.this.getToken(credentials);
+            }
+
+            @Override
+            public void invalidate(String token) {
+                TokenBroker.this.invalidate(credentials, token);
+            }
+        };
+    }
+
+    private Mono<TokenCache.CachedToken> fetch(ClientCredentials c) {
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("grant_type", "client_credentials");
+        form.add("client_id", Objects.toString(c.clientId(), ""));
+        form.add("client_secret", Objects.toString(c.clientSecret(), ""));
+        if (StringUtils.hasText(c.scope())) form.add("scope", c.scope());
+
+        log.debug("Demande de jeton client_credentials ({})", c.name());
+        return webClient.post()
+                .uri(c.tokenUrl())
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(BodyInserters.fromFormData(form))
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, resp ->
+                        resp.bodyToMono(String.class)
+                                .defaultIfEmpty("")
+                                .flatMap(body -> Mono.error(new IllegalStateException(
+                                        "Erreur token " + c.name() + " (" + resp.statusCode().value() + "): " + body))))
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .switchIfEmpty(Mono.error(new IllegalStateException("Réponse token vide (" + c.name() + ")")))
+                .flatMap(map -> {
+                    Object at = map.get("access_token");
+                    if (at == null || !StringUtils.hasText(at.toString())) {
+                        return Mono.error(new IllegalStateException("Réponse token invalide (access_token manquant)"));
+                    }
+                    return Mono.just(new TokenCache.CachedToken(at.toString(),
+                            TokenCache.expiresAt(map, defaultTtl, Clock.systemUTC())));
+                });
+    }
+}
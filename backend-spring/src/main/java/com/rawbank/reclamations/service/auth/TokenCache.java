@@ -0,0 +1,179 @@
+package com.rawbank.reclamations.service.auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.ContextView;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Cache d'un jeton OAuth unique.
+ * - sert le jeton tant qu'il n'est pas expiré (expires_in),
+ * - déclenche un rafraîchissement en arrière-plan dans la fenêtre "refreshAhead" avant l'expiration
+ *   (avancée d'un délai aléatoire borné par "jitter" pour étaler les rafraîchissements de plusieurs instances),
+ *   au plus la moitié de la durée de vie du jeton: un jeton court ne déclenche pas un rafraîchissement à chaque appel,
+ * - regroupe les rafraîchissements concurrents en une seule requête en vol (single-flight).
+ */
+public class TokenCache implements TokenSource {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenCache.class);
+
+    /** Jeton et son instant d'expiration (absolu). */
+    public record CachedToken(String value, Instant expiresAt) {}
+
+    /** Jeton en cache et instant à partir duquel un rafraîchissement anticipé est lancé. */
+    private record Entry(CachedToken token, Instant refreshAt) {}
+
+    private final String name;
+    private final Supplier<Mono<CachedToken>> fetcher;
+    private final Duration refreshAhead;
+    private final Duration jitter;
+    private final Clock clock;
+
+    private final AtomicReference<Entry> current = new AtomicReference<>();
+    private final AtomicReference<Mono<CachedToken>> inflight = new AtomicReference<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter invalidations;
+    private final Timer refreshTimer;
+
+    public TokenCache(String name, Supplier<Mono<CachedToken>> fetcher, Duration refreshAhead, MeterRegistry registry) {
+        this(name, fetcher, refreshAhead, Duration.ZERO, registry, Clock.systemUTC());
+    }
+
+    public TokenCache(String name, Supplier<Mono<CachedToken>> fetcher, Duration refreshAhead, Duration jitter,
+                      MeterRegistry registry, Clock clock) {
+        this.name = name;
+        this.fetcher = fetcher;
+        this.refreshAhead = refreshAhead == null ? Duration.ZERO : refreshAhead;
+        this.jitter = jitter == null ? Duration.ZERO : jitter;
+        this.clock = clock;
+        this.hits = Counter.builder("reclamations.auth.token.cache")
+                .tag("cache", name).tag("result", "hit")
+                .description("Jetons servis depuis le cache")
+                .register(registry);
+        this.misses = Counter.builder("reclamations.auth.token.cache")
+                .tag("cache", name).tag("result", "miss")
+                .description("Jetons absents ou expirés (appel bloquant au token endpoint)")
+                .register(registry);
+        this.invalidations = Counter.builder("reclamations.auth.token.invalidations")
+                .tag("cache", name)
+                .description("Jetons invalidés suite à un 401")
+                .register(registry);
+        this.refreshTimer = Timer.builder("reclamations.auth.token.refresh")
+                .tag("cache", name)
+                .description("Latence des appels au token endpoint")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Retourne un jeton valide: depuis le cache si possible, sinon via un rafraîchissement partagé.
+     */
+    @Override
+    public Mono<String> getToken() {
+        return Mono.deferContextual(ctx -> {
+            Entry e = current.get();
+            Instant now = clock.instant();
+            if (e != null && now.isBefore(e.token().expiresAt())) {
+                hits.increment();
+                if (!now.isBefore(e.refreshAt())) {
+                    // Fenêtre de pré-rafraîchissement: on sert le jeton courant et on rafraîchit en tâche de fond
+                    refresh(ctx).subscribe(
+                            ok -> log.debug("Jeton '{}' rafraîchi en arrière-plan", name),
+                            err -> log.warn("Rafraîchissement en arrière-plan du jeton '{}' échoué: {}", name, err.getMessage()));
+                }
+                return Mono.just(e.token().value());
+            }
+            misses.increment();
+            return refresh(ctx).map(CachedToken::value);
+        });
+    }
+
+    @Override
+    public void invalidate(String token) {
+        Entry e = current.get();
+        if (e != null && e.token().value().equals(token) && current.compareAndSet(e, null)) {
+            invalidations.increment();
+            log.info("Jeton '{}' invalidé", name);
+        }
+    }
+
+    /**
+     * Démarre (ou rejoint) l'unique rafraîchissement en vol.
+     * L'appel au token endpoint n'est pas annulé si un abonné se désabonne: les autres attendent le même résultat.
+     * Il s'exécute dans le contexte de l'appelant qui l'a déclenché (MDC de sa requête dans les logs).
+     */
+    private Mono<CachedToken> refresh(ContextView ctx) {
+        for (;;) {
+            Mono<CachedToken> existing = inflight.get();
+            if (existing != null) return existing;
+
+            Sinks.One<CachedToken> sink = Sinks.one();
+            Mono<CachedToken> shared = sink.asMono();
+            if (!inflight.compareAndSet(null, shared)) continue;
+
+            long start = System.nanoTime();
+            Mono.defer(fetcher).contextWrite(ctx).subscribe(
+                    token -> {
+                        refreshTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        current.set(new Entry(token, refreshAt(token)));
+                        inflight.set(null);
+                        sink.tryEmitValue(token);
+                    },
+                    e -> {
+                        refreshTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        inflight.set(null);
+                        sink.tryEmitError(e);
+                    },
+                    () -> {
+                        // Fetcher vide: pas de jeton exploitable
+                        if (inflight.compareAndSet(shared, null)) {
+                            sink.tryEmitError(new IllegalStateException("Réponse token vide (" + name + ")"));
+                        }
+                    });
+            return shared;
+        }
+    }
+
+    private Instant refreshAt(CachedToken token) {
+        Duration ahead = refreshAhead;
+        long jitterMillis = jitter.toMillis();
+        if (jitterMillis > 0) {
+            ahead = ahead.plusMillis(ThreadLocalRandom.current().nextLong(jitterMillis + 1));
+        }
+        // Fenêtre bornée à la moitié de la durée de vie restante (durée de vie < refreshAhead: jeton court)
+        Duration halfTtl = Duration.between(clock.instant(), token.expiresAt()).dividedBy(2);
+        if (ahead.compareTo(halfTtl) > 0) ahead = halfTtl.isNegative() ? Duration.ZERO : halfTtl;
+        return token.expiresAt().minus(ahead);
+    }
+
+    /**
+     * Calcule l'expiration absolue à partir du champ expires_in d'une réponse OAuth
+     * (nombre ou chaîne, en secondes). Repli sur defaultTtl si absent ou illisible.
+     */
+    public static Instant expiresAt(Map<String, Object> response, Duration defaultTtl, Clock clock) {
+        Object raw = response == null ? null : response.get("expires_in");
+        long seconds = -1;
+        if (raw instanceof Number n) {
+            seconds = n.longValue();
+        } else if (raw instanceof String s && !s.isBlank()) {
+            try { seconds = Long.parseLong(s.trim()); } catch (NumberFormatException ignore) {}
+        }
+        Duration ttl = seconds > 0 ? Duration.ofSeconds(seconds) : defaultTtl;
+        return clock.instant().plus(ttl);
+    }
+}
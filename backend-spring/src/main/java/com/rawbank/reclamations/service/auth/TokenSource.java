@@ -0,0 +1,17 @@
+package com.rawbank.reclamations.service.auth;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Source de jetons Bearer invalidable, utilisée par {@link BearerTokenFilter}.
+ */
+public interface TokenSource {
+
+    Mono<String> getToken();
+
+    /**
+     * Invalide le jeton donné s'il est encore celui en cache (rejeté par l'API en 401).
+     * Sans effet si un jeton plus récent l'a déjà remplacé.
+     */
+    void invalidate(String token);
+}
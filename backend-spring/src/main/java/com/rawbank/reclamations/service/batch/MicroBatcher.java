@@ -0,0 +1,124 @@
+package com.rawbank.reclamations.service.batch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Regroupe les appels concurrents en lots: un lot part dès qu'il atteint {@code maxBatchSize} éléments,
+ * ou au plus tard {@code window} après l'arrivée de son premier élément.
+ * La fonction de lot renvoie un résultat par élément, dans l'ordre; chaque appelant reçoit le sien
+ * (valeur ou erreur). Un échec du lot entier est propagé à tous ses éléments.
+ */
+public class MicroBatcher<I, O> {
+
+    /** Résultat individuel d'un élément du lot. */
+    public record Result<O>(O value, Throwable error) {
+        public static <O> Result<O> ok(O value) { return new Result<>(value, null); }
+        public static <O> Result<O> failed(Throwable error) { return new Result<>(null, error); }
+    }
+
+    private record Pending<I, O>(I item, Sinks.One<O> sink) {}
+
+    private final int maxBatchSize;
+    private final Duration window;
+    private final Function<List<I>, Mono<List<Result<O>>>> batchCall;
+    private final Scheduler scheduler;
+    private final DistributionSummary batchSize;
+    private final Counter flushFull;
+    private final Counter flushWindow;
+
+    private List<Pending<I, O>> current = new ArrayList<>();
+    private Disposable windowTimer;
+
+    public MicroBatcher(String name, int maxBatchSize, Duration window,
+                        Function<List<I>, Mono<List<Result<O>>>> batchCall, MeterRegistry registry) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.window = window;
+        this.batchCall = batchCall;
+        this.scheduler = Schedulers.parallel();
+        this.batchSize = DistributionSummary.builder("reclamations.batch.size")
+                .tag("name", name)
+                .description("Éléments par lot envoyé (remplissage)")
+                .register(registry);
+        this.flushFull = flushes(registry, name, "full");
+        this.flushWindow = flushes(registry, name, "window");
+    }
+
+    public Mono<O> submit(I item) {
+        return Mono.defer(() -> {
+            Sinks.One<O> sink = Sinks.one();
+            List<Pending<I, O>> ready = null;
+            synchronized (this) {
+                current.add(new Pending<>(item, sink));
+                if (current.size() >= maxBatchSize) {
+                    ready = takeCurrent();
+                    flushFull.increment();
+                } else if (current.size() == 1) {
+                    windowTimer = scheduler.schedule(this::flushOnWindow, window.toNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+            if (ready != null) send(ready);
+            return sink.asMono();
+        });
+    }
+
+    private void flushOnWindow() {
+        List<Pending<I, O>> ready;
+        synchronized (this) {
+            if (current.isEmpty()) return;
+            ready = takeCurrent();
+            flushWindow.increment();
+        }
+        send(ready);
+    }
+
+    // Appelé sous verrou
+    private List<Pending<I, O>> takeCurrent() {
+        List<Pending<I, O>> ready = current;
+        current = new ArrayList<>();
+        if (windowTimer != null) {
+            windowTimer.dispose();
+            windowTimer = null;
+        }
+        return ready;
+    }
+
+    private void send(List<Pending<I, O>> batch) {
+        batchSize.record(batch.size());
+        List<I> items = new ArrayList<>(batch.size());
+        for (Pending<I, O> p : batch) items.add(p.item());
+        // Le lot est indépendant des abonnés: l'annulation d'un appelant n'interrompt pas les autres
+        Mono.defer(() -> batchCall.apply(items)).subscribe(
+                results -> {
+                    for (int i = 0; i < batch.size(); i++) {
+                        Sinks.One<O> sink = batch.get(i).sink();
+                        Result<O> r = i < results.size() ? results.get(i) : null;
+                        if (r == null) sink.tryEmitError(new IllegalStateException("Réponse de lot incomplète"));
+                        else if (r.error() != null) sink.tryEmitError(r.error());
+                        else if (r.value() != null) sink.tryEmitValue(r.value());
+                        else sink.tryEmitEmpty();
+                    }
+                },
+                e -> batch.forEach(p -> p.sink().tryEmitError(e)),
+                () -> batch.forEach(p -> p.sink().tryEmitEmpty()));
+    }
+
+    private static Counter flushes(MeterRegistry registry, String name, String reason) {
+        return Counter.builder("reclamations.batch.flushes")
+                .tag("name", name).tag("reason", reason)
+                .description("Lots envoyés, par cause (lot plein ou fin de fenêtre)")
+                .register(registry);
+    }
+}
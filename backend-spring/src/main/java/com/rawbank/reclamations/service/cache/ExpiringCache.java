@@ -0,0 +1,162 @@
+package com.rawbank.reclamations.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Cache mémoire borné (LRU) avec durée de fraîcheur et service "stale-while-revalidate":
+ * - âge < ttl: valeur servie telle quelle,
+ * - ttl <= âge < ttl + staleTtl: valeur servie immédiatement, rechargement lancé en arrière-plan (un seul par clé),
+ * - au-delà: entrée expirée, chargement synchrone via le loader.
+ * Seules les valeurs émises par le loader sont mises en cache (ni erreurs, ni Mono vide).
+ * ttl nul (ou négatif): cache désactivé, chaque lecture appelle le loader (ni stockage, ni valeur périmée servie).
+ */
+public class ExpiringCache<K, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpiringCache.class);
+
+    private record Entry<V>(V value, Instant writtenAt) {}
+
+    private final String name;
+    private final Duration ttl;
+    private final boolean disabled;
+    private final Duration staleTtl;
+    private final Clock clock;
+    private final Map<K, Entry<V>> entries;
+    private final Set<K> revalidating = ConcurrentHashMap.newKeySet();
+
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expirations;
+
+    public ExpiringCache(String name, int maxSize, Duration ttl, Duration staleTtl, MeterRegistry registry) {
+        this(name, maxSize, ttl, staleTtl, registry, Clock.systemUTC());
+    }
+
+    public ExpiringCache(String name, int maxSize, Duration ttl, Duration staleTtl, MeterRegistry registry, Clock clock) {
+        this.name = name;
+        this.ttl = ttl;
+        this.disabled = ttl.isZero() || ttl.isNegative();
+        this.staleTtl = staleTtl == null ? Duration.ZERO : staleTtl;
+        this.clock = clock;
+        this.hits = requests(registry, "hit");
+        this.staleHits = requests(registry, "stale");
+        this.misses = requests(registry, "miss");
+        this.sizeEvictions = evictions(registry, "size");
+        this.expirations = evictions(registry, "expired");
+        // LinkedHashMap en ordre d'accès: l'entrée la moins récemment utilisée est évincée au-delà de maxSize
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > maxSize) {
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Gauge.builder("reclamations.cache.size", this, ExpiringCache::size)
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("reclamations.cache.hit.ratio", this, ExpiringCache::hitRatio)
+                .tag("cache", name)
+                .description("Part des lectures servies depuis le cache (fraîches ou périmées)")
+                .register(registry);
+    }
+
+    public Mono<V> get(K key, Function<K, Mono<V>> loader) {
+        return Mono.defer(() -> {
+            if (disabled) {
+                misses.increment();
+                return loader.apply(key);
+            }
+            Entry<V> e;
+            synchronized (entries) {
+                e = entries.get(key);
+            }
+            if (e != null) {
+                Duration age = Duration.between(e.writtenAt(), clock.instant());
+                if (age.compareTo(ttl) < 0) {
+                    hits.increment();
+                    return Mono.just(e.value());
+                }
+                if (age.compareTo(ttl.plus(staleTtl)) < 0) {
+                    staleHits.increment();
+                    revalidate(key, loader);
+                    return Mono.just(e.value());
+                }
+                remove(key, e);
+                expirations.increment();
+            }
+            misses.increment();
+            return loader.apply(key).doOnNext(v -> put(key, v));
+        });
+    }
+
+    public void put(K key, V value) {
+        if (disabled) return;
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, clock.instant()));
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private double hitRatio() {
+        double served = hits.count() + staleHits.count();
+        double total = served + misses.count();
+        return total == 0 ? 0.0 : served / total;
+    }
+
+    private void revalidate(K key, Function<K, Mono<V>> loader) {
+        if (!revalidating.add(key)) return;
+        loader.apply(key)
+                .doFinally(s -> revalidating.remove(key))
+                .subscribe(
+                        v -> put(key, v),
+                        err -> log.warn("Rechargement en arrière-plan échoué (cache={}): {}", name, err.getMessage()));
+    }
+
+    private void remove(K key, Entry<V> expected) {
+        synchronized (entries) {
+            if (entries.get(key) == expected) entries.remove(key);
+        }
+    }
+
+    private Counter requests(MeterRegistry registry, String result) {
+        return Counter.builder("reclamations.cache.requests")
+                .tag("cache", name).tag("result", result)
+                .register(registry);
+    }
+
+    private Counter evictions(MeterRegistry registry, String cause) {
+        return Counter.builder("reclamations.cache.evictions")
+                .tag("cache", name).tag("cause", cause)
+                .register(registry);
+    }
+}
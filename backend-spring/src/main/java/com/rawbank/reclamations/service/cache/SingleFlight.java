@@ -0,0 +1,78 @@
+package com.rawbank.reclamations.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Regroupe les appels concurrents identiques (même clé) sur un seul Mono amont.
+ * - le premier appelant ("leader") déclenche l'appel, les suivants le rejoignent tant qu'il est en vol;
+ * - l'appel amont est indépendant des abonnés: l'annulation d'un appelant n'interrompt pas les autres;
+ * - chaque appelant attend au plus {@code maxWait} (TimeoutException au-delà);
+ * - l'appel amont s'exécute dans le contexte Reactor du leader (MDC de la requête qui l'a déclenché).
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, Mono<V>> inflight = new ConcurrentHashMap<>();
+    private final Duration maxWait;
+    private final Counter leaders;
+    private final Counter joined;
+
+    public SingleFlight(String name, Duration maxWait, MeterRegistry registry) {
+        this.maxWait = maxWait;
+        this.leaders = Counter.builder("reclamations.singleflight.calls")
+                .tag("name", name).tag("role", "leader")
+                .description("Appels amont effectivement émis")
+                .register(registry);
+        this.joined = Counter.builder("reclamations.singleflight.calls")
+                .tag("name", name).tag("role", "joined")
+                .description("Appels ayant rejoint un appel identique déjà en vol")
+                .register(registry);
+    }
+
+    public Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return Mono.deferContextual(ctx -> {
+            for (;;) {
+                Mono<V> existing = inflight.get(key);
+                if (existing != null) {
+                    joined.increment();
+                    return bounded(existing);
+                }
+                Sinks.One<V> sink = Sinks.one();
+                Mono<V> shared = sink.asMono();
+                if (inflight.putIfAbsent(key, shared) != null) continue;
+
+                leaders.increment();
+                Mono.defer(call).contextWrite(ctx).subscribe(
+                        v -> {
+                            inflight.remove(key, shared);
+                            sink.tryEmitValue(v);
+                        },
+                        e -> {
+                            inflight.remove(key, shared);
+                            sink.tryEmitError(e);
+                        },
+                        () -> {
+                            // Sans effet si une valeur a déjà été émise
+                            inflight.remove(key, shared);
+                            sink.tryEmitEmpty();
+                        });
+                return bounded(shared);
+            }
+        });
+    }
+
+    public int inflightCount() {
+        return inflight.size();
+    }
+
+    private Mono<V> bounded(Mono<V> shared) {
+        return maxWait == null || maxWait.isZero() ? shared : shared.timeout(maxWait);
+    }
+}
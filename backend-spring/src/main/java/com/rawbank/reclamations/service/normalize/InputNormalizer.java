@@ -0,0 +1,142 @@
+package com.rawbank.reclamations.service.normalize;
+
+import java.math.BigDecimal;
+
+/**
+ * Normalisation des saisies du formulaire (identifiant client, téléphone, montant, numéro de carte)
+ * en une seule passe, sans expression régulière. Les méthodes renvoient l'instance reçue quand
+ * il n'y a rien à retirer (pas d'allocation dans le cas courant).
+ */
+public final class InputNormalizer {
+
+    /** Au-delà, l'accumulateur long pourrait déborder: repli sur BigDecimal(String). */
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private InputNormalizer() {}
+
+    /** true si {@code s} contient exactement {@code length} chiffres ASCII (équivalent de {@code ^\d{n}$}). */
+    public static boolean isDigits(CharSequence s, int length) {
+        if (s == null || s.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (!isDigit(s.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    /** Chiffres ASCII seuls (équivalent de {@code replaceAll("\\D", "")}); null si {@code s} est null. */
+    public static String digitsOnly(String s) {
+        if (s == null) return null;
+        int n = s.length();
+        int i = 0;
+        while (i < n && isDigit(s.charAt(i))) i++;
+        if (i == n) return s;
+        char[] out = new char[n];
+        s.getChars(0, i, out, 0);
+        int len = i;
+        for (; i < n; i++) {
+            char c = s.charAt(i);
+            if (isDigit(c)) out[len++] = c;
+        }
+        return new String(out, 0, len);
+    }
+
+    /**
+     * Téléphone réduit à ses chiffres s'il en contient exactement {@code length}, sinon null.
+     * Ex.: "+243 81 234 5678" n'est pas valide pour 10 chiffres, "081-234-5678" donne "0812345678".
+     */
+    public static String phoneDigits(String phone, int length) {
+        String digits = digitsOnly(phone);
+        return isDigits(digits, length) ? digits : null;
+    }
+
+    /** Numéro de carte sans espaces (y compris insécables); null si {@code s} est null. */
+    public static String cardNumber(String s) {
+        if (s == null) return null;
+        int n = s.length();
+        int i = 0;
+        while (i < n && !isSpace(s.charAt(i))) i++;
+        if (i == n) return s;
+        char[] out = new char[n];
+        s.getChars(0, i, out, 0);
+        int len = i;
+        for (; i < n; i++) {
+            char c = s.charAt(i);
+            if (!isSpace(c)) out[len++] = c;
+        }
+        return new String(out, 0, len);
+    }
+
+    /**
+     * Montant saisi au format français: espaces (y compris insécables) et points ignorés
+     * (séparateurs de milliers), virgule décimale. Ex.: "1 234,56" et "1.234,56" donnent 1234.56.
+     * Lecture exacte en virgule fixe (pas d'arrondi binaire de Double); null si la saisie n'est pas un montant.
+     */
+    public static BigDecimal parseAmount(CharSequence s) {
+        if (s == null) return null;
+        long unscaled = 0;
+        int significant = 0;
+        int scale = -1; // -1 tant que la virgule n'a pas été vue
+        boolean sawDigit = false;
+        boolean negative = false;
+        boolean signAllowed = true;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (isDigit(c)) {
+                sawDigit = true;
+                signAllowed = false;
+                if (scale >= 0) scale++;
+                if (unscaled == 0 && c == '0') continue; // zéros de tête
+                if (++significant > MAX_LONG_DIGITS) return parseAmountSlow(s);
+                unscaled = unscaled * 10 + (c - '0');
+            } else if (c == ',') {
+                if (scale >= 0) return null;
+                scale = 0;
+                signAllowed = false;
+            } else if ((c == '-' || c == '+') && signAllowed) {
+                negative = c == '-';
+                signAllowed = false;
+            } else if (c != '.' && !isSpace(c)) {
+                return null;
+            }
+        }
+        if (!sawDigit) return null;
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    /** Texte canonique du montant ("1234.56"), ou la saisie débarrassée des séparateurs si elle n'est pas un montant. */
+    public static String amountText(String s) {
+        if (s == null) return null;
+        BigDecimal amount = parseAmount(s);
+        return amount != null ? amount.toPlainString() : stripAmountSeparators(s);
+    }
+
+    // Montants de plus de 18 chiffres significatifs: rare, on reconstruit le texte puis BigDecimal
+    private static BigDecimal parseAmountSlow(CharSequence s) {
+        try {
+            return new BigDecimal(stripAmountSeparators(s.toString()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** Retire espaces et points, virgule remplacée par un point (comportement historique). */
+    private static String stripAmountSeparators(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == ',') sb.append('.');
+            else if (c != '.' && !isSpace(c)) sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /** Espaces de {@code \s} plus l'espace insécable et l'espace fine insécable. */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r'
+                || c == '\u00A0' || c == '\u202F';
+    }
+}
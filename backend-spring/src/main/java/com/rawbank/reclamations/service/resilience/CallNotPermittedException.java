@@ -0,0 +1,21 @@
+package com.rawbank.reclamations.service.resilience;
+
+/**
+ * Appel refusé sans contacter le service amont: disjoncteur ouvert ou cloison pleine.
+ */
+public class CallNotPermittedException extends IllegalStateException {
+
+    private final String upstream;
+    private final String reason;
+
+    public CallNotPermittedException(String upstream, String reason, String message) {
+        super(message);
+        this.upstream = upstream;
+        this.reason = reason;
+    }
+
+    public String getUpstream() { return upstream; }
+
+    /** {@code circuit_open} ou {@code bulkhead_full}. */
+    public String getReason() { return reason; }
+}
@@ -0,0 +1,124 @@
+package com.rawbank.reclamations.service.resilience;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Disjoncteur à fenêtre glissante sur les N derniers appels:
+ * - CLOSED: appels autorisés; ouverture si, sur au moins {@code minimumCalls} appels, le taux d'échec
+ *   ou le taux d'appels lents atteint son seuil;
+ * - OPEN: appels refusés pendant {@code openDuration};
+ * - HALF_OPEN: {@code halfOpenCalls} appels d'essai; un échec ou un appel lent rouvre le circuit,
+ *   sinon il se referme avec une fenêtre vide.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final Duration openDuration;
+    private final int halfOpenCalls;
+    private final Clock clock;
+
+    private final byte[] window;
+    private int index;
+    private int count;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private Instant openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(int slidingWindowSize, int minimumCalls, double failureRateThreshold,
+                          double slowCallRateThreshold, Duration slowCallDuration, Duration openDuration,
+                          int halfOpenCalls, Clock clock) {
+        this.window = new byte[Math.max(1, slidingWindowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.openDuration = openDuration;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.clock = clock;
+    }
+
+    /** Réserve un droit d'appel; false si le circuit est ouvert (ou les essais HALF_OPEN déjà en cours). */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (clock.instant().isBefore(openedAt.plus(openDuration))) return false;
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits >= halfOpenCalls) return false;
+            halfOpenPermits++;
+        }
+        return true;
+    }
+
+    /** Rend un droit d'appel sans résultat (appel annulé). */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) halfOpenPermits--;
+    }
+
+    public synchronized void onResult(long durationNanos, boolean failed) {
+        boolean slow = durationNanos >= slowCallNanos;
+        switch (state) {
+            case HALF_OPEN -> {
+                if (failed || slow) {
+                    transitionTo(State.OPEN);
+                } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                    transitionTo(State.CLOSED);
+                }
+            }
+            case CLOSED -> {
+                record((byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0)));
+                if (count >= minimumCalls
+                        && (failures >= failureRateThreshold * count || slowCalls >= slowCallRateThreshold * count)) {
+                    transitionTo(State.OPEN);
+                }
+            }
+            case OPEN -> { /* résultat d'un appel lancé avant l'ouverture: ignoré */ }
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(byte outcome) {
+        if (count == window.length) {
+            byte evicted = window[index];
+            if ((evicted & FAILED) != 0) failures--;
+            if ((evicted & SLOW) != 0) slowCalls--;
+        } else {
+            count++;
+        }
+        window[index] = outcome;
+        if ((outcome & FAILED) != 0) failures++;
+        if ((outcome & SLOW) != 0) slowCalls++;
+        index = (index + 1) % window.length;
+    }
+
+    private void transitionTo(State next) {
+        state = next;
+        halfOpenPermits = 0;
+        halfOpenSuccesses = 0;
+        if (next == State.OPEN) {
+            openedAt = clock.instant();
+        } else if (next == State.CLOSED) {
+            index = 0;
+            count = 0;
+            failures = 0;
+            slowCalls = 0;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.rawbank.reclamations.service.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Requêtes "couvertes" (hedging) pour réduire la latence de queue d'un appel en lecture seule:
+ * si la première requête n'a pas répondu après un délai égal au percentile observé des latences,
+ * une seconde requête identique part; la première réponse l'emporte et l'autre est annulée.
+ * <p>
+ * Budget par amont: chaque requête primaire crédite {@code budgetRatio} jeton (plafonné à {@value #MAX_CREDITS}),
+ * chaque requête de couverture en consomme un. Ex.: 0.05 = au plus ~5 % d'appels supplémentaires.
+ * Une erreur de la requête de couverture est ignorée: la requête primaire reste seule juge.
+ */
+public class Hedger {
+
+    /** Réserve maximale de jetons (rafale de couvertures possible après une période calme). */
+    static final int MAX_CREDITS = 10;
+    private static final long CREDIT = 1000; // jetons stockés en millièmes
+    private static final int WINDOW = 512;
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final long creditPerCall;
+    private final AtomicLong credits = new AtomicLong(MAX_CREDITS * CREDIT);
+
+    // Fenêtre glissante des dernières latences réussies (ns); percentile recalculé tous les RECOMPUTE_EVERY échantillons
+    private final long[] samples = new long[WINDOW];
+    private int sampleCount;
+    private int sampleIndex;
+    private volatile long delayNanos;
+
+    private final Counter fired;
+    private final Counter won;
+    private final Counter denied;
+
+    public Hedger(String name, boolean enabled, double percentile, Duration minDelay, Duration maxDelay,
+                  double budgetRatio, MeterRegistry registry) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("percentile de couverture invalide (attendu entre 0 et 1): " + percentile);
+        }
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxDelayNanos = Math.max(minDelayNanos, maxDelay.toNanos());
+        this.delayNanos = maxDelayNanos; // jusqu'aux premiers échantillons
+        this.creditPerCall = Math.round(Math.max(0, budgetRatio) * CREDIT);
+        this.fired = outcome(registry, name, "fired", "Requêtes de couverture émises");
+        this.won = outcome(registry, name, "won", "Requêtes de couverture ayant répondu en premier");
+        this.denied = outcome(registry, name, "denied", "Couvertures non émises faute de budget");
+        Gauge.builder("reclamations.hedge.delay", this, h -> h.delayNanos / 1e9)
+                .tag("name", name)
+                .baseUnit("seconds")
+                .description("Délai avant émission d'une requête de couverture")
+                .register(registry);
+    }
+
+    public <V> Mono<V> execute(Supplier<Mono<V>> call) {
+        if (!enabled) return Mono.defer(call);
+        return Mono.defer(() -> {
+            earnCredit();
+            Mono<V> primary = timed(call);
+            Mono<V> hedge = Mono.delay(Duration.ofNanos(delayNanos))
+                    .flatMap(t -> {
+                        if (!tryAcquire()) {
+                            denied.increment();
+                            return Mono.<V>never();
+                        }
+                        fired.increment();
+                        return timed(call)
+                                .doOnNext(v -> won.increment())
+                                // échec de la couverture: on laisse la requête primaire conclure
+                                .onErrorResume(e -> Mono.never());
+                    });
+            // Premier signal (valeur, fin ou erreur de la primaire) gagnant; l'autre requête est annulée
+            return Mono.firstWithSignal(primary, hedge);
+        });
+    }
+
+    /** Délai courant avant couverture (percentile observé, borné par min/max). */
+    public Duration currentDelay() {
+        return Duration.ofNanos(delayNanos);
+    }
+
+    private <V> Mono<V> timed(Supplier<Mono<V>> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return Mono.defer(call).doOnSuccess(v -> record(System.nanoTime() - start));
+        });
+    }
+
+    private void earnCredit() {
+        credits.accumulateAndGet(creditPerCall, (c, inc) -> Math.min(MAX_CREDITS * CREDIT, c + inc));
+    }
+
+    private boolean tryAcquire() {
+        for (;;) {
+            long c = credits.get();
+            if (c < CREDIT) return false;
+            if (credits.compareAndSet(c, c - CREDIT)) return true;
+        }
+    }
+
+    private void record(long latencyNanos) {
+        long[] snapshot = null;
+        synchronized (samples) {
+            samples[sampleIndex] = latencyNanos;
+            sampleIndex = (sampleIndex + 1) % WINDOW;
+            if (sampleCount < WINDOW) sampleCount++;
+            if (sampleIndex % RECOMPUTE_EVERY == 0) {
+                snapshot = Arrays.copyOf(samples, sampleCount);
+            }
+        }
+        if (snapshot != null) {
+            Arrays.sort(snapshot);
+            long p = snapshot[Math.min(snapshot.length - 1, (int) Math.ceil(percentile * snapshot.length) - 1)];
+            delayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, p));
+        }
+    }
+
+    private static Counter outcome(MeterRegistry registry, String name, String outcome, String description) {
+        return Counter.builder("reclamations.hedge.requests")
+                .tag("name", name).tag("outcome", outcome)
+                .description(description)
+                .register(registry);
+    }
+}
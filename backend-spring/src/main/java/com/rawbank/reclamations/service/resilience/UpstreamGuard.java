@@ -0,0 +1,141 @@
+package com.rawbank.reclamations.service.resilience;
+
+import com.rawbank.reclamations.config.props.ResilienceProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Protection d'un service amont: cloison (nombre d'appels simultanés borné, refus immédiat au-delà)
+ * puis disjoncteur ({@link CircuitBreaker}). Un appel refusé échoue aussitôt avec
+ * {@link CallNotPermittedException}, sans contacter l'amont ni attendre.
+ * Seules les pannes de l'amont comptent comme échecs du disjoncteur ({@link #isUpstreamFailure(Throwable)} par défaut):
+ * un 4xx (client inconnu, payload refusé) est une réponse normale du service et ne doit pas l'ouvrir pour tous.
+ */
+public class UpstreamGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamGuard.class);
+
+    private final String upstream;
+    private final boolean enabled;
+    private final int maxConcurrentCalls;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker breaker;
+    private final Predicate<Throwable> failurePredicate;
+    private final Counter rejectedOpen;
+    private final Counter rejectedFull;
+
+    public UpstreamGuard(String upstream, ResilienceProperties.Policy policy, MeterRegistry registry, Clock clock) {
+        this(upstream, policy, registry, clock, UpstreamGuard::isUpstreamFailure);
+    }
+
+    public UpstreamGuard(String upstream, ResilienceProperties.Policy policy, MeterRegistry registry, Clock clock,
+                         Predicate<Throwable> failurePredicate) {
+        this.upstream = upstream;
+        this.failurePredicate = failurePredicate;
+        this.enabled = Boolean.TRUE.equals(policy.getEnabled());
+        this.maxConcurrentCalls = policy.getMaxConcurrentCalls();
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.breaker = new CircuitBreaker(policy.getSlidingWindowSize(), policy.getMinimumCalls(),
+                policy.getFailureRateThreshold(), policy.getSlowCallRateThreshold(), policy.getSlowCallDuration(),
+                policy.getOpenDuration(), policy.getHalfOpenCalls(), clock);
+        this.rejectedOpen = rejected(registry, "circuit_open");
+        this.rejectedFull = rejected(registry, "bulkhead_full");
+        for (CircuitBreaker.State s : CircuitBreaker.State.values()) {
+            Gauge.builder("reclamations.circuit.state", breaker, b -> b.getState() == s ? 1 : 0)
+                    .tag("upstream", upstream).tag("state", s.name().toLowerCase())
+                    .description("État du disjoncteur (1 = état courant)")
+                    .register(registry);
+        }
+        Gauge.builder("reclamations.bulkhead.active", bulkhead, b -> maxConcurrentCalls - b.availablePermits())
+                .tag("upstream", upstream)
+                .description("Appels en cours vers le service amont")
+                .register(registry);
+    }
+
+    public <V> Mono<V> protect(Supplier<Mono<V>> call) {
+        if (!enabled) return Mono.defer(call);
+        return Mono.defer(() -> {
+            if (!bulkhead.tryAcquire()) {
+                rejectedFull.increment();
+                return Mono.error(new CallNotPermittedException(upstream, "bulkhead_full",
+                        "Service " + upstream + " saturé (" + maxConcurrentCalls + " appels simultanés), réessayer plus tard"));
+            }
+            CircuitBreaker.State before = breaker.getState();
+            if (!breaker.tryAcquirePermission()) {
+                bulkhead.release();
+                rejectedOpen.increment();
+                return Mono.error(new CallNotPermittedException(upstream, "circuit_open",
+                        "Service " + upstream + " indisponible (circuit ouvert), réessayer plus tard"));
+            }
+            logTransition(before);
+            long start = System.nanoTime();
+            // Erreur de l'appel retenue pour doFinally (qui ne la reçoit pas)
+            Throwable[] error = new Throwable[1];
+            return Mono.defer(call)
+                    .doOnError(e -> error[0] = e)
+                    .doFinally(signal -> {
+                        bulkhead.release();
+                        if (signal == SignalType.CANCEL) {
+                            breaker.releasePermission();
+                            return;
+                        }
+                        CircuitBreaker.State previous = breaker.getState();
+                        boolean failed = signal == SignalType.ON_ERROR && failurePredicate.test(error[0]);
+                        breaker.onResult(System.nanoTime() - start, failed);
+                        logTransition(previous);
+                    });
+        });
+    }
+
+    /**
+     * Panne de l'amont: réponse 5xx, délai dépassé, erreur d'E/S ou de connexion (cause comprise).
+     * Les 4xx et les erreurs de lecture d'une réponse valide ne comptent pas.
+     */
+    public static boolean isUpstreamFailure(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof UpstreamHttpException http) return http.getStatus() >= 500;
+            if (t instanceof WebClientResponseException response) return response.getStatusCode().is5xxServerError();
+            if (t instanceof WebClientRequestException || t instanceof IOException || t instanceof TimeoutException
+                    || t instanceof io.netty.handler.timeout.TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public CircuitBreaker.State state() {
+        return breaker.getState();
+    }
+
+    private void logTransition(CircuitBreaker.State previous) {
+        CircuitBreaker.State current = breaker.getState();
+        if (current == previous) return;
+        if (current == CircuitBreaker.State.OPEN) {
+            log.warn("Disjoncteur '{}' ouvert ({} -> OPEN): appels refusés temporairement", upstream, previous);
+        } else {
+            log.info("Disjoncteur '{}': {} -> {}", upstream, previous, current);
+        }
+    }
+
+    private Counter rejected(MeterRegistry registry, String reason) {
+        return Counter.builder("reclamations.resilience.rejected")
+                .tag("upstream", upstream).tag("reason", reason)
+                .description("Appels refusés sans contacter le service amont")
+                .register(registry);
+    }
+}
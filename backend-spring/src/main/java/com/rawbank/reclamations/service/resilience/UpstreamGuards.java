@@ -0,0 +1,30 @@
+package com.rawbank.reclamations.service.resilience;
+
+import com.rawbank.reclamations.config.props.ResilienceProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Une {@link UpstreamGuard} par service amont, configurée par {@link ResilienceProperties}.
+ */
+@Component
+public class UpstreamGuards {
+
+    private final ResilienceProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, UpstreamGuard> guards = new ConcurrentHashMap<>();
+
+    public UpstreamGuards(ResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public UpstreamGuard guard(String upstream) {
+        return guards.computeIfAbsent(upstream,
+                u -> new UpstreamGuard(u, properties.resolve(u), meterRegistry, Clock.systemUTC()));
+    }
+}
@@ -0,0 +1,29 @@
+package com.rawbank.reclamations.service.resilience;
+
+import java.time.Duration;
+
+/**
+ * Réponse d'erreur HTTP d'un service amont, avec son statut: seuls les 5xx comptent comme échecs
+ * du disjoncteur ({@link UpstreamGuard#isUpstreamFailure(Throwable)}), un 4xx vient de la requête.
+ * Pour un 429/503, {@code retryAfter} reprend l'attente demandée par le service ({@code Retry-After}), si fournie.
+ */
+public class UpstreamHttpException extends IllegalStateException {
+
+    private final int status;
+    private final Duration retryAfter;
+
+    public UpstreamHttpException(int status, String message) {
+        this(status, message, null);
+    }
+
+    public UpstreamHttpException(int status, String message, Duration retryAfter) {
+        super(message);
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+
+    public int getStatus() { return status; }
+
+    /** Attente demandée par le service amont avant de réessayer, ou {@code null}. */
+    public Duration getRetryAfter() { return retryAfter; }
+}
@@ -1,16 +1,24 @@
 package com.rawbank.reclamations.web;
 
+import com.rawbank.reclamations.model.AccountLookupResult;
 import com.rawbank.reclamations.service.accounts.AccountsService;
+import com.rawbank.reclamations.service.normalize.InputNormalizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -18,10 +26,13 @@ import java.util.Map;
 public class AccountsController {
 
     private final AccountsService accountsService;
+    private final int batchMaxItems;
     private static final Logger log = LoggerFactory.getLogger(AccountsController.class);
 
-    public AccountsController(AccountsService accountsService) {
+    public AccountsController(AccountsService accountsService,
+                              @Value("${accounts.batch.max-items:500}") int batchMaxItems) {
         this.accountsService = accountsService;
+        this.batchMaxItems = batchMaxItems;
     }
 
     @PostMapping
@@ -29,7 +40,7 @@ public class AccountsController {
         Object raw = bodyIn == null ? null : bodyIn.get("clientId");
         String clientId = raw == null ? null : String.valueOf(raw);
         log.debug("POST /api/accounts clientId={}", clientId);
-        if (clientId == null || !clientId.matches("^\\d{8}$")) {
+        if (clientId == null || !InputNormalizer.isDigits(clientId, 8)) {
             Map<String, Object> err = new HashMap<>();
             err.put("ok", false);
             err.put("error", "clientId invalide: doit contenir exactement 8 chiffres");
@@ -55,9 +66,9 @@ public class AccountsController {
     public Mono<ResponseEntity<Map<String, Object>>> getAccountsByPhone(@RequestBody Map<String, Object> bodyIn) {
         Object raw = bodyIn == null ? null : bodyIn.get("phone");
         String phone = raw == null ? null : String.valueOf(raw);
-        String digits = phone == null ? null : phone.replaceAll("\\D", "");
+        String digits = InputNormalizer.digitsOnly(phone);
         log.debug("POST /api/accounts/by-phone phone={}", digits);
-        if (digits == null || !digits.matches("^\\d{10}$")) {
+        if (digits == null || !InputNormalizer.isDigits(digits, 10)) {
             Map<String, Object> err = new HashMap<>();
             err.put("ok", false);
             err.put("error", "phone invalide: doit contenir exactement 10 chiffres");
@@ -80,5 +91,34 @@ public class AccountsController {
                 });
     }
 
+    /**
+     * Recherche groupée pour les outils back-office: { "clientIds": [...], "phones": [...] }.
+     * Réponse NDJSON, une ligne {@link AccountLookupResult} par élément, émise dès que sa recherche aboutit.
+     */
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<AccountLookupResult>> getAccountsBatch(@RequestBody Map<String, Object> bodyIn) {
+        List<String> clientIds = stringList(bodyIn == null ? null : bodyIn.get("clientIds"));
+        List<String> phones = stringList(bodyIn == null ? null : bodyIn.get("phones"));
+        int total = clientIds.size() + phones.size();
+        log.debug("POST /api/accounts/batch clientIds={} phones={}", clientIds.size(), phones.size());
+        if (total == 0 || total > batchMaxItems) {
+            String error = total == 0
+                    ? "clientIds ou phones requis"
+                    : "lot trop volumineux: " + total + " éléments (max " + batchMaxItems + ")";
+            return ResponseEntity.badRequest().body(Flux.just(AccountLookupResult.failure(null, null, error)));
+        }
+        return ResponseEntity.ok(accountsService.getAccountsBatch(clientIds, phones)
+                .doOnComplete(() -> log.info("Lot de comptes traité: {} éléments", total)));
+    }
+
+    private static List<String> stringList(Object raw) {
+        if (!(raw instanceof Collection<?> values)) return List.of();
+        List<String> out = new ArrayList<>(values.size());
+        for (Object v : values) {
+            if (v != null) out.add(String.valueOf(v));
+        }
+        return out;
+    }
+
     // Limité à un seul endpoint pour récupérer la liste des comptes
 }
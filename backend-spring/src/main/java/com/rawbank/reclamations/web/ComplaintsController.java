@@ -1,6 +1,7 @@
 package com.rawbank.reclamations.web;
 
 import com.rawbank.reclamations.service.ComplaintsService;
+import com.rawbank.reclamations.service.IdempotencyKeyMismatchException;
 import com.rawbank.reclamations.model.ComplaintDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,6 +11,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
+import java.net.URI;
 import java.util.Map;
 import java.util.HashMap;
 
@@ -26,10 +28,32 @@ public class ComplaintsController {
     }
 
     @PostMapping
-    public Mono<ResponseEntity<Map<String, Object>>> submit(@RequestBody @Validated ComplaintDto payload) {
+    public Mono<ResponseEntity<Map<String, Object>>> submit(@RequestBody @Validated ComplaintDto payload,
+                                                            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         log.debug("POST /api/complaints payload DTO in");
+        if (complaintsService.isAsyncMode()) {
+            // Mode asynchrone: 202 + trackingId, le statut est consultable via GET /api/complaints/{trackingId}
+            return complaintsService.submitAsync(payload, idempotencyKey)
+                    .map(trackingId -> {
+                        Map<String, Object> body = new HashMap<>();
+                        body.put("ok", true);
+                        body.put("trackingId", trackingId);
+                        body.put("status", "pending");
+                        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                                .location(URI.create("/api/complaints/" + trackingId))
+                                .body(body);
+                    })
+                    .onErrorResume(ex -> Mono.fromSupplier(() -> {
+                        Map<String, Object> err = new HashMap<>();
+                        err.put("ok", false);
+                        err.put("error", ex.getMessage());
+                        HttpStatus status = ex instanceof IdempotencyKeyMismatchException ? HttpStatus.UNPROCESSABLE_ENTITY
+                                : ex instanceof IllegalArgumentException ? HttpStatus.BAD_REQUEST : HttpStatus.SERVICE_UNAVAILABLE;
+                        return ResponseEntity.status(status).body(err);
+                    }));
+        }
         // Retourner directement le numéro de réclamation officiel fourni par Power Automate
-        return complaintsService.submit(payload)
+        return complaintsService.submit(payload, idempotencyKey)
                 .map(complaintNumber -> {
                     Map<String, Object> body = new HashMap<>();
                     body.put("ok", true);
@@ -39,12 +63,16 @@ public class ComplaintsController {
                 .onErrorResume(ex -> Mono.fromSupplier(() -> {
                     Map<String, Object> err = new HashMap<>();
                     err.put("ok", false);
+                    if (ex instanceof IdempotencyKeyMismatchException) {
+                        err.put("error", ex.getMessage());
+                        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(err);
+                    }
                     err.put("error", "Payload invalide ou erreur serveur");
                     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(err);
                 }));
     }
 
-    // Endpoint de statut conservé pour compat, mais non requis si on renvoie le numéro immédiatement.
+    // Statut d'une soumission: indispensable en mode asynchrone, conservé pour compat en mode synchrone.
     @GetMapping("/{trackingId}")
     public Mono<ResponseEntity<Map<String, Object>>> getStatus(@PathVariable String trackingId) {
         return complaintsService.status(trackingId)
@@ -52,7 +80,8 @@ public class ComplaintsController {
                     Map<String, Object> body = new HashMap<>();
                     body.put("status", status.status());
                     if (status.complaintNumber() != null) body.put("complaintNumber", status.complaintNumber());
-                    return ResponseEntity.status("completed".equals(status.status()) ? HttpStatus.OK : HttpStatus.ACCEPTED).body(body);
+                    if (status.error() != null) body.put("error", status.error());
+                    return ResponseEntity.status("pending".equals(status.status()) ? HttpStatus.ACCEPTED : HttpStatus.OK).body(body);
                 })
                 .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("status", "unknown")));
     }
@@ -0,0 +1,142 @@
+package com.rawbank.reclamations.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rawbank.reclamations.model.CustomerProfile;
+import com.rawbank.reclamations.service.accounts.AccountDetailParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecture d'une réponse getAccountDetail / rawComptes: Map Jackson + parcours instanceof (ancien code)
+ * contre lecture en flux vers CustomerProfile. Lancer avec le profiler d'allocation:
+ * {@code -prof gc} (voir README).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountDetailParserBenchmark {
+
+    @Param({"5", "500"})
+    int accounts;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private byte[] detailBody;
+    private byte[] rawComptesBody;
+
+    @Setup
+    public void setup() {
+        StringBuilder detail = new StringBuilder("{\"status\":\"OK\",\"cutomerDetail\":{\"customerName\":\"JOEL SYASI MWISA\",")
+                .append("\"customerCode\":\"12345678\",\"segment\":\"RETAIL\",\"addresses\":[{\"line\":\"Bd du 30 juin\",\"city\":\"Kinshasa\"}],")
+                .append("\"accountList\":[");
+        StringBuilder raw = new StringBuilder("{\"status\":\"OK\",\"message\":\"\",\"rawComptes\":[");
+        for (int i = 0; i < accounts; i++) {
+            if (i > 0) { detail.append(','); raw.append(','); }
+            detail.append("{\"agencyCode\":\"00011\",\"accountNumber\":\"").append(10000000 + i)
+                    .append("\",\"suffix\":\"").append(i % 90 + 10)
+                    .append("\",\"currencyCode\":840,\"balance\":{\"available\":1234.56,\"ledger\":1200.0},")
+                    .append("\"productLabel\":\"COMPTE COURANT PARTICULIER\",\"openingDate\":\"2019-05-01\",\"flags\":[\"A\",\"B\"]}");
+            raw.append("{\"numero\":\"00011-").append(10000000 + i).append('-').append(i % 90 + 10)
+                    .append("\",\"codeDev\":\"840\",\"intitule\":\"JOEL SYASI MWISA V/C COURANT\",\"solde\":\"1234,56\",\"agence\":\"GOMBE\"}");
+        }
+        detail.append("]}}");
+        raw.append("]}");
+        detailBody = detail.toString().getBytes(StandardCharsets.UTF_8);
+        rawComptesBody = raw.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<String> detailMapBaseline() throws IOException {
+        Map<String, Object> root = mapper.readValue(detailBody, new TypeReference<Map<String, Object>>() {});
+        return legacyFormat(legacyNormalize(root));
+    }
+
+    @Benchmark
+    public List<String> detailStreaming() throws IOException {
+        return AccountDetailParser.parse(detailBody).formattedAccounts();
+    }
+
+    @Benchmark
+    public List<String> rawComptesMapBaseline() throws IOException {
+        Map<String, Object> root = mapper.readValue(rawComptesBody, new TypeReference<Map<String, Object>>() {});
+        return legacyFormat(legacyNormalize(root));
+    }
+
+    @Benchmark
+    public CustomerProfile rawComptesStreaming() throws IOException {
+        return AccountDetailParser.parse(rawComptesBody);
+    }
+
+    // --- Ancien code de AccountsService (normalizeDetailResponse + formatage), conservé comme référence ---
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> legacyNormalize(Map<String, Object> root) {
+        Object detailObj = root.get("cutomerDetail");
+        if (!(detailObj instanceof Map)) detailObj = root.get("customerDetail");
+        if (detailObj instanceof Map) return (Map<String, Object>) detailObj;
+        Object rawComptesObj = root.get("rawComptes");
+        if (rawComptesObj instanceof List<?> rawComptes) {
+            List<Map<String, Object>> accountList = new ArrayList<>();
+            List<String> candidateNames = new ArrayList<>();
+            for (Object o : rawComptes) {
+                if (o instanceof Map<?, ?> acc && acc.get("numero") instanceof String s && s.contains("-")) {
+                    String[] parts = s.trim().split("-");
+                    if (parts.length >= 3) {
+                        Map<String, Object> m = new HashMap<>();
+                        m.put("agencyCode", parts[0].trim());
+                        m.put("accountNumber", parts[1].trim());
+                        m.put("suffix", parts[2].trim());
+                        if (acc.get("codeDev") instanceof String cs && cs.matches("^\\d+$")) {
+                            m.put("currencyCode", Integer.parseInt(cs));
+                        }
+                        accountList.add(m);
+                        if (acc.get("intitule") instanceof String it && !it.isBlank()) {
+                            int idx = it.toUpperCase().indexOf("V/C");
+                            candidateNames.add(idx > 0 ? it.substring(0, idx).trim() : it);
+                        }
+                    }
+                }
+            }
+            Map<String, Object> normalized = new HashMap<>();
+            normalized.put("accountList", accountList);
+            if (!candidateNames.isEmpty() && candidateNames.stream().allMatch(candidateNames.get(0)::equals)) {
+                normalized.put("customerName", candidateNames.get(0));
+            }
+            return normalized;
+        }
+        return root;
+    }
+
+    private static List<String> legacyFormat(Map<String, Object> detail) {
+        List<String> formatted = new ArrayList<>();
+        if (detail.get("accountList") instanceof List<?> rawList) {
+            for (Object o : rawList) {
+                if (o instanceof Map<?, ?> acc && acc.get("agencyCode") != null
+                        && acc.get("accountNumber") != null && acc.get("suffix") != null) {
+                    formatted.add(acc.get("agencyCode") + "-" + acc.get("accountNumber") + "-" + acc.get("suffix"));
+                }
+            }
+        }
+        return formatted;
+    }
+}
@@ -0,0 +1,86 @@
+package com.rawbank.reclamations.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.rawbank.reclamations.service.ElasticsearchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Corps NDJSON d'un lot _bulk à partir des valeurs Kafka: désérialisation en Map (JsonDeserializer)
+ * puis re-sérialisation (ancien chemin) contre recopie des octets reçus. Lancer avec {@code -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkBodyBenchmark {
+
+    private static final byte[] ACTION = "{\"index\":{\"_index\":\"reclamations\"}}\n".getBytes();
+
+    @Param({"500"})
+    int records;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectWriter writer = mapper.writerFor(Map.class);
+    private List<byte[]> values;
+
+    @Setup
+    public void setup() throws IOException {
+        Map<String, Object> payload;
+        try (InputStream in = getClass().getResourceAsStream("/default-payload.json")) {
+            payload = mapper.readValue(in, new TypeReference<Map<String, Object>>() {});
+        }
+        values = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            payload.put("TRACKINGID", "6f1c2a7e-0b7d-4a55-9e61-" + String.format("%012d", i));
+            payload.put("NUMEROCLIENT", String.valueOf(10000000 + i));
+            payload.put("DESCRIPTION", "Retrait GAB non servi, compte débité de 250 USD le 12/03 à l'agence de Gombe");
+            values.add(mapper.writeValueAsBytes(payload));
+        }
+    }
+
+    @Benchmark
+    public byte[] mapRoundTripBaseline() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        for (byte[] value : values) {
+            Map<String, Object> doc = mapper.readValue(value, new TypeReference<Map<String, Object>>() {});
+            out.write(ACTION);
+            writer.writeValue(out, doc);
+            out.write('\n');
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] passThrough() throws IOException {
+        int estimate = 0;
+        for (byte[] value : values) estimate += value.length + 96;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(estimate);
+        for (byte[] value : values) {
+            out.write(ACTION);
+            ElasticsearchService.writeSource(out, value);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,76 @@
+package com.rawbank.reclamations.bench;
+
+import com.rawbank.reclamations.service.normalize.InputNormalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalisation des saisies du formulaire: chaînes regex/replace historiques contre {@link InputNormalizer}.
+ * Lancer avec {@code -prof gc} pour comparer les allocations (voir README).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputNormalizerBenchmark {
+
+    private String clientId = "12345678";
+    private String phone = "081 234 56 78";
+    private String amount = "1 234 567,89";
+    private String card = "4111 1111 1111 1111";
+
+    @Benchmark
+    public boolean clientIdRegex() {
+        return clientId.matches("^\\d{8}$");
+    }
+
+    @Benchmark
+    public boolean clientIdNormalizer() {
+        return InputNormalizer.isDigits(clientId, 8);
+    }
+
+    @Benchmark
+    public String phoneRegex() {
+        String digits = phone.replaceAll("\\D", "");
+        return digits.matches("^\\d{10}$") ? digits : null;
+    }
+
+    @Benchmark
+    public String phoneNormalizer() {
+        return InputNormalizer.phoneDigits(phone, 10);
+    }
+
+    @Benchmark
+    public Object amountRegexDouble() {
+        String normalized = amount.replaceAll("[\\s\u00A0\u202F]", "").replace(".", "").replace(',', '.');
+        try { return Double.parseDouble(normalized); }
+        catch (NumberFormatException ignored) { return amount; }
+    }
+
+    @Benchmark
+    public BigDecimal amountNormalizer() {
+        return InputNormalizer.parseAmount(amount);
+    }
+
+    @Benchmark
+    public String cardRegex() {
+        return card.replaceAll("\\s+", "");
+    }
+
+    @Benchmark
+    public String cardNormalizer() {
+        return InputNormalizer.cardNumber(card);
+    }
+}
@@ -0,0 +1,174 @@
+package com.rawbank.reclamations.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.rawbank.reclamations.model.ComplaintDto;
+import com.rawbank.reclamations.service.PayloadBuilderService;
+import com.rawbank.reclamations.service.normalize.InputNormalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction du payload d'une soumission puis sérialisation du corps Graph { "fields": ... }:
+ * ancien code (copie profonde convertValue, map de surcharges reconstruite, double fusion des Conditions,
+ * encodage via ObjectMapper) contre gabarit compilé + writer pré-construit. Lancer avec {@code -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadBuilderBenchmark {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private Map<String, Object> defaults;
+    private PayloadBuilderService builder;
+    private ObjectWriter graphItemWriter;
+    private ComplaintDto dto;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/default-payload.json")) {
+            defaults = mapper.readValue(in, new TypeReference<Map<String, Object>>() {});
+        }
+        builder = new PayloadBuilderService(mapper);
+        graphItemWriter = mapper.writerFor(Map.class).withRootName("fields");
+        dto = new ComplaintDto();
+        dto.setNUMEROCLIENT("12345678");
+        dto.setTELEPHONECLIENT("0812345678");
+        dto.setTYPERECLAMATION("Transaction non aboutie");
+        dto.setCOMPTESOURCE("00011-12345678-40");
+        dto.setNUMEROCARTE("4111 1111 1111 1111");
+        dto.setMONTANT("1 234,56");
+        dto.setDEVISE("USD");
+        dto.setEXTOURNE(Boolean.FALSE);
+        dto.setMOTIF("Retrait GAB non servi");
+        dto.setDESCRIPTION("Le distributeur a débité le compte sans délivrer les billets.");
+    }
+
+    @Benchmark
+    public Map<String, Object> legacyBuild() {
+        return legacySubmission(dto);
+    }
+
+    @Benchmark
+    public Map<String, Object> compiledBuild() {
+        return compiledSubmission(dto);
+    }
+
+    @Benchmark
+    public byte[] legacyBuildAndWrite() throws IOException {
+        return mapper.writeValueAsBytes(Map.of("fields", legacySubmission(dto)));
+    }
+
+    @Benchmark
+    public byte[] compiledBuildAndWrite() throws IOException {
+        return graphItemWriter.writeValueAsBytes(compiledSubmission(dto));
+    }
+
+    // Surcharges propres à la requête, telles qu'écrites par ComplaintsService
+    private Map<String, Object> compiledSubmission(ComplaintDto d) {
+        Map<String, Object> payload = builder.buildSubmission(d);
+        payload.put("MOTIFBCC", d.getTYPERECLAMATION());
+        payload.put("AVISMOTIVE", d.getMOTIF());
+        payload.put("MONTANTCONVERTI", InputNormalizer.amountText((String) d.getMONTANT()));
+        payload.put("Conditions", Map.of("NOMCLIENT", "JOEL SYASI MWISA"));
+        payload.put("AGENCECLIENT", "00011");
+        payload.put("TRACKINGID", "8b0a3c4e-6f5d-4e7a-9c1b-2d3e4f5a6b7c");
+        return payload;
+    }
+
+    // --- Ancien code (ComplaintsService + PayloadBuilderService.build/buildWithOverrides), conservé comme référence ---
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> legacySubmission(ComplaintDto d) {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("SITE", "WEB");
+        overrides.put("ZONE", "ONLINE");
+        overrides.put("DEPARTEMENT", "Direction IT / Développement Applicatif");
+        overrides.put("CANALUTILISE", "WEB");
+        overrides.put("GERANTAGENCE", "");
+        overrides.put("DEVISE", d.getDEVISE());
+        overrides.put("AWSTemplateFormatVersion", "");
+        overrides.put("MOTIFBCC", d.getTYPERECLAMATION());
+        overrides.put("AVISMOTIVE", d.getMOTIF());
+        overrides.put("MONTANTCONVERTI", InputNormalizer.amountText((String) d.getMONTANT()));
+        overrides.put("Conditions", new HashMap<>());
+        ((Map<String, Object>) overrides.get("Conditions")).put("NOMCLIENT", "JOEL SYASI MWISA");
+        overrides.put("AGENCECLIENT", "00011");
+        overrides.put("TRACKINGID", "8b0a3c4e-6f5d-4e7a-9c1b-2d3e4f5a6b7c");
+
+        Map<String, Object> payload = legacyBuild(d);
+        payload.putAll(overrides);
+        Object ovCond = overrides.get("Conditions");
+        Object payCond = payload.get("Conditions");
+        if (ovCond instanceof Map && payCond instanceof Map) {
+            Map<String, Object> merged = new HashMap<>((Map<String, Object>) payCond);
+            merged.putAll((Map<String, Object>) ovCond);
+            payload.put("Conditions", merged);
+        }
+        return payload;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> legacyBuild(ComplaintDto d) {
+        Map<String, Object> base = mapper.convertValue(defaults, new TypeReference<Map<String, Object>>() {});
+        Map<String, Object> incoming = new HashMap<>();
+        putIfNotNull(incoming, "SITE", d.getSITE());
+        putIfNotNull(incoming, "ZONE", d.getZONE());
+        putIfNotNull(incoming, "DEPARTEMENT", d.getDEPARTEMENT());
+        putIfNotNull(incoming, "DOMAINE", d.getDOMAINE());
+        putIfNotNull(incoming, "AWSTemplateFormatVersion", d.getAWSTemplateFormatVersion());
+        putIfNotNull(incoming, "TYPERECLAMATION", d.getTYPERECLAMATION());
+        putIfNotNull(incoming, "CANALUTILISE", d.getCANALUTILISE());
+        putIfNotNull(incoming, "MOTIFBCC", d.getMOTIFBCC());
+        putIfNotNull(incoming, "AGENCECLIENT", d.getAGENCECLIENT());
+        putIfNotNull(incoming, "NUMEROCLIENT", d.getNUMEROCLIENT());
+        if (d.getConditions() != null) incoming.put("Conditions", d.getConditions());
+        putIfNotNull(incoming, "TELEPHONECLIENT", d.getTELEPHONECLIENT());
+        putIfNotNull(incoming, "COMPTESOURCE", d.getCOMPTESOURCE());
+        putIfNotNull(incoming, "DATETRANSACTION", d.getDATETRANSACTION());
+        if (d.getNUMEROCARTE() != null) incoming.put("NUMEROCARTE", InputNormalizer.cardNumber(d.getNUMEROCARTE()));
+        if (d.getMONTANT() instanceof String str) {
+            BigDecimal parsed = InputNormalizer.parseAmount(str);
+            incoming.put("MONTANT", parsed != null ? parsed : str);
+        }
+        putIfNotNull(incoming, "MONTANTCONVERTI", d.getMONTANTCONVERTI());
+        putIfNotNull(incoming, "DEVISE", d.getDEVISE());
+        if (d.getEXTOURNE() != null) incoming.put("EXTOURNE", d.getEXTOURNE());
+        putIfNotNull(incoming, "GERANTAGENCE", d.getGERANTAGENCE());
+        putIfNotNull(incoming, "MOTIF", d.getMOTIF());
+        putIfNotNull(incoming, "DESCRIPTION", d.getDESCRIPTION());
+        putIfNotNull(incoming, "AVISMOTIVE", d.getAVISMOTIVE());
+        base.putAll(incoming);
+        Object inCond = incoming.get("Conditions");
+        Object baseCond = defaults.get("Conditions");
+        if (inCond instanceof Map && baseCond instanceof Map) {
+            Map<String, Object> merged = new HashMap<>((Map<String, Object>) baseCond);
+            merged.putAll((Map<String, Object>) inCond);
+            base.put("Conditions", merged);
+        }
+        return base;
+    }
+
+    private static void putIfNotNull(Map<String, Object> map, String key, Object value) {
+        if (value != null) map.put(key, value);
+    }
+}
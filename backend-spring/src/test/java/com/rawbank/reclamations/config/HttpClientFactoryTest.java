@@ -0,0 +1,88 @@
+package com.rawbank.reclamations.config;
+
+import com.rawbank.reclamations.config.props.HttpClientProperties;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+class HttpClientFactoryTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private SimpleMeterRegistry registry;
+    private HttpClientFactory factory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ok", ex -> {
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            ex.sendResponseHeaders(200, body.length);
+            try (OutputStream out = ex.getResponseBody()) { out.write(body); }
+        });
+        server.createContext("/slow", ex -> {
+            try { Thread.sleep(1000); } catch (InterruptedException ignore) { Thread.currentThread().interrupt(); }
+            ex.sendResponseHeaders(204, -1);
+            ex.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        HttpClientProperties props = new HttpClientProperties();
+        HttpClientProperties.Pool slow = new HttpClientProperties.Pool();
+        slow.setResponseTimeout(Duration.ofMillis(200));
+        props.getUpstreams().put("slow", slow);
+        HttpClientProperties.Pool small = new HttpClientProperties.Pool();
+        small.setMaxConnections(3);
+        props.getUpstreams().put("small", small);
+        registry = new SimpleMeterRegistry();
+        factory = new HttpClientFactory(props, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void shouldExportPoolMetricsPerUpstream() {
+        String body = factory.builder("small").build().get().uri(baseUrl + "/ok")
+                .retrieve().bodyToMono(String.class).block(Duration.ofSeconds(5));
+        Assertions.assertEquals("ok", body);
+
+        Gauge max = registry.find("reclamations.http.pool.max").tag("upstream", "small").gauge();
+        Assertions.assertNotNull(max);
+        Assertions.assertEquals(3.0, max.value());
+        Assertions.assertNotNull(registry.find("reclamations.http.pool.active").tag("upstream", "small").gauge());
+    }
+
+    @Test
+    void shouldInheritDefaultsForUnsetFields() {
+        HttpClientProperties props = new HttpClientProperties();
+        HttpClientProperties.Pool override = new HttpClientProperties.Pool();
+        override.setMaxConnections(7);
+        props.getUpstreams().put("accounts", override);
+
+        HttpClientProperties.Pool resolved = props.resolve("accounts");
+        Assertions.assertEquals(7, resolved.getMaxConnections());
+        Assertions.assertEquals(props.getDefaults().getResponseTimeout(), resolved.getResponseTimeout());
+        Assertions.assertSame(props.getDefaults(), props.resolve("unknown"));
+    }
+
+    @Test
+    void shouldFailSlowResponsesAfterResponseTimeout() {
+        Assertions.assertThrows(RuntimeException.class, () -> factory.builder("slow").build().get().uri(baseUrl + "/slow")
+                .retrieve().toBodilessEntity().block(Duration.ofSeconds(5)));
+    }
+}
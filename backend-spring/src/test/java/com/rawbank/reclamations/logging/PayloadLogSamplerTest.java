@@ -0,0 +1,53 @@
+package com.rawbank.reclamations.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class PayloadLogSamplerTest {
+
+    @Test
+    void shouldRenderWholePayloadWhenShort() {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("SITE", "WEB");
+        payload.put("MONTANT", 12);
+        Assertions.assertEquals("{SITE=WEB, MONTANT=12}", PayloadLogSampler.render(payload, 100));
+    }
+
+    @Test
+    void shouldTruncateAndCountOmittedFields() {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("DESCRIPTION", "x".repeat(50));
+        payload.put("SITE", "WEB");
+        payload.put("ZONE", "ONLINE");
+        Assertions.assertEquals("{DESCRIPTION=xxxxxxxx... (+2 champs)}", PayloadLogSampler.render(payload, 21));
+    }
+
+    @Test
+    void shouldLogOneCallInSampleEvery() {
+        Logger logger = (Logger) LoggerFactory.getLogger("test.payload.sampler");
+        ListAppender<ILoggingEvent> events = new ListAppender<>();
+        events.start();
+        logger.addAppender(events);
+        logger.setLevel(Level.DEBUG);
+        try {
+            PayloadLogSampler sampler = new PayloadLogSampler(3, 100);
+            for (int i = 0; i < 7; i++) sampler.debug(logger, "payload {}", Map.of("i", i));
+            Assertions.assertEquals(3, events.list.size());
+            Assertions.assertEquals("payload {i=3}", events.list.get(1).getFormattedMessage());
+
+            logger.setLevel(Level.INFO);
+            sampler.debug(logger, "payload {}", Map.of("i", 9));
+            Assertions.assertEquals(3, events.list.size());
+        } finally {
+            logger.detachAppender(events);
+        }
+    }
+}
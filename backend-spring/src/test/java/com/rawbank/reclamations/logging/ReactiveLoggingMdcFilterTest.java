@@ -0,0 +1,46 @@
+package com.rawbank.reclamations.logging;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+class ReactiveLoggingMdcFilterTest {
+
+    @BeforeEach
+    void enablePropagation() {
+        Hooks.enableAutomaticContextPropagation();
+    }
+
+    @AfterEach
+    void disablePropagation() {
+        Hooks.disableAutomaticContextPropagation();
+        MDC.clear();
+    }
+
+    @Test
+    void shouldExposeMdcAcrossThreadHops() {
+        List<String> seen = new ArrayList<>();
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.post("/api/complaints").header("X-Request-Id", "rid-42"));
+
+        new ReactiveLoggingMdcFilter()
+                .filter(exchange, ex -> Mono.fromRunnable(() -> seen.add(MDC.get("trackingId")))
+                        .then(Mono.delay(Duration.ofMillis(20)))
+                        .doOnNext(t -> seen.add(MDC.get("trackingId") + "@" + MDC.get("httpPath")))
+                        .then())
+                .block(Duration.ofSeconds(2));
+
+        Assertions.assertEquals(List.of("rid-42", "rid-42@/api/complaints"), seen);
+        Assertions.assertNull(MDC.get("trackingId"));
+    }
+}
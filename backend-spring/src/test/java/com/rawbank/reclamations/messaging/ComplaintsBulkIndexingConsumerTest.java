@@ -0,0 +1,102 @@
+package com.rawbank.reclamations.messaging;
+
+import com.rawbank.reclamations.service.ElasticsearchService;
+import com.rawbank.reclamations.service.ElasticsearchService.BulkDocument;
+import com.rawbank.reclamations.service.ElasticsearchService.BulkItemFailure;
+import com.rawbank.reclamations.service.ElasticsearchService.BulkResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyList;
+
+class ComplaintsBulkIndexingConsumerTest {
+
+    private static ConsumerRecord<String, byte[]> record(long offset, String json) {
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>("complaints_raw", 0, offset, "k" + offset,
+                json == null ? null : json.getBytes(StandardCharsets.UTF_8));
+        record.headers().add(ComplaintsEventPublisher.TRACKING_ID_HEADER, ("t" + offset).getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    @Test
+    void shouldRetryOnlyTransientFailuresAndDeadLetterTheRest() {
+        ElasticsearchService es = Mockito.mock(ElasticsearchService.class);
+        List<List<BulkDocument>> calls = new ArrayList<>();
+        Mockito.when(es.bulkIndex(anyList())).thenAnswer(inv -> {
+            List<BulkDocument> docs = inv.getArgument(0);
+            calls.add(docs);
+            // 1er envoi: doc 1 refusé (400), doc 2 rejeté temporairement (429); le renvoi réussit
+            return Mono.just(calls.size() == 1
+                    ? new BulkResult(docs.size(), List.of(new BulkItemFailure(1, 400, "mapping"), new BulkItemFailure(2, 429, "busy")))
+                    : new BulkResult(docs.size(), List.of()));
+        });
+        List<Long> deadLettered = new ArrayList<>();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ComplaintsBulkIndexingConsumer consumer = new ComplaintsBulkIndexingConsumer(es,
+                (rec, ex) -> deadLettered.add(rec.offset()), 2, Duration.ZERO, registry);
+
+        consumer.onComplaintsSubmitted(List.of(
+                record(10, "{\"n\":0}"), record(11, "{\"n\":1}"), record(12, null), record(13, "{\"n\":2}")));
+
+        Assertions.assertEquals(2, calls.size());
+        Assertions.assertEquals(3, calls.get(0).size());
+        Assertions.assertEquals("t10", calls.get(0).get(0).id());
+        Assertions.assertEquals(1, calls.get(1).size());
+        Assertions.assertEquals("t13", calls.get(1).get(0).id());
+        Assertions.assertEquals("{\"n\":2}", new String(calls.get(1).get(0).source(), StandardCharsets.UTF_8));
+        Assertions.assertEquals(List.of(11L), deadLettered);
+        Assertions.assertEquals(1.0, registry.get("reclamations.indexer.items").tag("outcome", "retried").counter().count());
+    }
+
+    @Test
+    void shouldDeadLetterWhenRetriesAreExhausted() {
+        ElasticsearchService es = Mockito.mock(ElasticsearchService.class);
+        Mockito.when(es.bulkIndex(anyList())).thenAnswer(inv ->
+                Mono.just(new BulkResult(1, List.of(new BulkItemFailure(0, 503, "indisponible")))));
+        List<Long> deadLettered = new ArrayList<>();
+        ComplaintsBulkIndexingConsumer consumer = new ComplaintsBulkIndexingConsumer(es,
+                (rec, ex) -> deadLettered.add(rec.offset()), 1, Duration.ZERO, new SimpleMeterRegistry());
+
+        consumer.onComplaintsSubmitted(List.of(record(5, "{\"n\":0}")));
+
+        Mockito.verify(es, Mockito.times(2)).bulkIndex(anyList());
+        Assertions.assertEquals(List.of(5L), deadLettered);
+    }
+
+    @Test
+    void shouldPropagateWholeRequestFailureSoTheBatchIsReplayed() {
+        ElasticsearchService es = Mockito.mock(ElasticsearchService.class);
+        Mockito.when(es.bulkIndex(anyList())).thenReturn(Mono.error(new IllegalStateException("Erreur Elasticsearch _bulk (503)")));
+        ComplaintsBulkIndexingConsumer consumer = new ComplaintsBulkIndexingConsumer(es,
+                (rec, ex) -> Assertions.fail("pas de DLQ par document"), 2, Duration.ZERO, new SimpleMeterRegistry());
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> consumer.onComplaintsSubmitted(List.of(record(1, "{\"n\":0}"))));
+    }
+
+    @Test
+    void shouldDeadLetterOnlyRemainingDocumentsWhenRetryRequestFails() {
+        ElasticsearchService es = Mockito.mock(ElasticsearchService.class);
+        Mockito.when(es.bulkIndex(anyList()))
+                .thenReturn(Mono.just(new BulkResult(3, List.of(new BulkItemFailure(0, 400, "mapping"), new BulkItemFailure(2, 429, "busy")))))
+                .thenReturn(Mono.error(new IllegalStateException("Erreur Elasticsearch _bulk (503)")));
+        List<Long> deadLettered = new ArrayList<>();
+        ComplaintsBulkIndexingConsumer consumer = new ComplaintsBulkIndexingConsumer(es,
+                (rec, ex) -> deadLettered.add(rec.offset()), 2, Duration.ZERO, new SimpleMeterRegistry());
+
+        // Pas d'exception: le lot n'est pas rejoué, l'offset 1 (déjà en DLQ) n'y repart pas
+        consumer.onComplaintsSubmitted(List.of(record(1, "{\"n\":0}"), record(2, "{\"n\":1}"), record(3, "{\"n\":2}")));
+
+        Mockito.verify(es, Mockito.times(2)).bulkIndex(anyList());
+        Assertions.assertEquals(List.of(1L, 3L), deadLettered);
+    }
+}
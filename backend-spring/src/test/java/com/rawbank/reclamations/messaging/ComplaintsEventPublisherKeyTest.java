@@ -0,0 +1,58 @@
+package com.rawbank.reclamations.messaging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+
+class ComplaintsEventPublisherKeyTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldKeyRecordByCustomerNumberAndTagTrackingId() {
+        KafkaTemplate<String, Object> template = Mockito.mock(KafkaTemplate.class);
+        Mockito.when(template.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(Mockito.mock(SendResult.class)));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ComplaintsEventPublisher publisher = new ComplaintsEventPublisher(template, "complaints_raw", "NUMEROCLIENT", registry);
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("NUMEROCLIENT", " 12345678 ");
+        payload.put("TRACKINGID", "t-1");
+        publisher.publishSubmitted(payload).block(Duration.ofSeconds(2));
+
+        ArgumentCaptor<ProducerRecord<String, Object>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        Mockito.verify(template).send(sent.capture());
+        Assertions.assertEquals("12345678", sent.getValue().key());
+        Assertions.assertArrayEquals("t-1".getBytes(StandardCharsets.UTF_8),
+                sent.getValue().headers().lastHeader(ComplaintsEventPublisher.TRACKING_ID_HEADER).value());
+        Assertions.assertEquals(1, registry.timer("reclamations.kafka.send", "topic", "complaints_raw", "outcome", "success").count());
+    }
+
+    @Test
+    void shouldSendWithoutKeyWhenFieldMissingOrBlank() {
+        Assertions.assertNull(ComplaintsEventPublisher.keyOf(Map.of(), "NUMEROCLIENT"));
+        Assertions.assertNull(ComplaintsEventPublisher.keyOf(Map.of("NUMEROCLIENT", "  "), "NUMEROCLIENT"));
+        Assertions.assertEquals("42", ComplaintsEventPublisher.keyOf(Map.of("NUMEROCLIENT", 42), "NUMEROCLIENT"));
+    }
+
+    @Test
+    void shouldFallBackToTrackingIdForTemplatePlaceholder() {
+        Assertions.assertEquals("t-1", ComplaintsEventPublisher.partitionKey(Map.of("NUMEROCLIENT", "N/A"), "NUMEROCLIENT", "t-1"));
+        Assertions.assertEquals("t-2", ComplaintsEventPublisher.partitionKey(Map.of(), "NUMEROCLIENT", "t-2"));
+        Assertions.assertNull(ComplaintsEventPublisher.partitionKey(Map.of("NUMEROCLIENT", " n/a "), "NUMEROCLIENT", null));
+        Assertions.assertEquals("12345678", ComplaintsEventPublisher.partitionKey(Map.of("NUMEROCLIENT", "12345678"), "NUMEROCLIENT", "t-3"));
+    }
+}
@@ -0,0 +1,158 @@
+package com.rawbank.reclamations.messaging;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+class InFlightPartitionDispatcherTest {
+
+    private static final TopicPartition P0 = new TopicPartition("complaints_raw", 0);
+    private static final TopicPartition P1 = new TopicPartition("complaints_raw", 1);
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+    private final InFlightPartitionDispatcher dispatcher = new InFlightPartitionDispatcher(2,
+            new InFlightPartitionDispatcher.PartitionControl() {
+                @Override
+                public void pause(TopicPartition partition) {
+                    events.add("pause-" + partition.partition());
+                }
+
+                @Override
+                public void resume(TopicPartition partition) {
+                    events.add("resume-" + partition.partition());
+                }
+            });
+
+    private Sinks.Empty<Void> dispatch(TopicPartition partition, long offset, List<Long> started) {
+        Sinks.Empty<Void> sink = Sinks.empty();
+        dispatcher.dispatch(partition, sink.asMono().doOnSubscribe(s -> started.add(offset)),
+                () -> events.add("ack-" + partition.partition() + "-" + offset));
+        return sink;
+    }
+
+    @Test
+    void shouldLimitInFlightAndAckInOffsetOrder() {
+        List<Long> started = new ArrayList<>();
+        Sinks.Empty<Void> r0 = dispatch(P0, 0, started);
+        Sinks.Empty<Void> r1 = dispatch(P0, 1, started);
+        Sinks.Empty<Void> r2 = dispatch(P0, 2, started);
+
+        Assertions.assertEquals(List.of(0L, 1L), started);
+        Assertions.assertEquals(List.of("pause-0"), events);
+        Assertions.assertEquals(2, dispatcher.inFlight());
+
+        // Offset 1 terminé avant 0: pas d'acquittement, mais 2 démarre
+        r1.tryEmitEmpty();
+        Assertions.assertEquals(List.of(0L, 1L, 2L), started);
+        Assertions.assertEquals(List.of("pause-0"), events);
+
+        r0.tryEmitEmpty();
+        Assertions.assertEquals(List.of("pause-0", "ack-0-1", "resume-0"), events);
+
+        r2.tryEmitError(new IllegalStateException("boom"));
+        Assertions.assertEquals(List.of("pause-0", "ack-0-1", "resume-0", "ack-0-2"), events);
+        Assertions.assertEquals(0, dispatcher.inFlight());
+    }
+
+    @Test
+    void shouldKeepPartitionsIndependent() {
+        List<Long> started = new ArrayList<>();
+        dispatch(P0, 0, started);
+        dispatch(P0, 1, started);
+        Sinks.Empty<Void> other = dispatch(P1, 10, started);
+
+        Assertions.assertEquals(List.of(0L, 1L, 10L), started);
+        other.tryEmitEmpty();
+        Assertions.assertEquals(List.of("pause-0", "ack-1-10"), events);
+    }
+
+    @Test
+    void shouldDropQueuedAndIgnoreLateCompletionsAfterRevocation() {
+        List<Long> started = new ArrayList<>();
+        Sinks.Empty<Void> r0 = dispatch(P0, 0, started);
+        dispatch(P0, 1, started);
+        dispatch(P0, 2, started);
+
+        dispatcher.revoke(List.of(P0));
+        Assertions.assertEquals(List.of("pause-0", "resume-0"), events);
+
+        r0.tryEmitEmpty();
+        Assertions.assertEquals(List.of(0L, 1L), started);
+        Assertions.assertEquals(List.of("pause-0", "resume-0"), events);
+        Assertions.assertEquals(1, dispatcher.inFlight());
+    }
+
+    @Test
+    void shouldNotLeavePartitionPausedWhenCompletionRacesWithPause() throws InterruptedException {
+        Sinks.Empty<Void> r0 = Sinks.empty();
+        AtomicReference<Thread> completer = new AtomicReference<>();
+        InFlightPartitionDispatcher racing = new InFlightPartitionDispatcher(2,
+                new InFlightPartitionDispatcher.PartitionControl() {
+                    @Override
+                    public void pause(TopicPartition partition) {
+                        // L'appel en cours se termine sur un autre thread (Netty) pendant la mise en pause
+                        Thread t = new Thread(r0::tryEmitEmpty);
+                        completer.set(t);
+                        t.start();
+                        try {
+                            t.join(200);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        events.add("pause-" + partition.partition());
+                    }
+
+                    @Override
+                    public void resume(TopicPartition partition) {
+                        events.add("resume-" + partition.partition());
+                    }
+                });
+
+        racing.dispatch(P0, r0.asMono(), () -> events.add("ack-0-0"));
+        racing.dispatch(P0, Sinks.empty().asMono(), () -> events.add("ack-0-1"));
+        completer.get().join(5_000);
+
+        // La reprise suit toujours la pause: la partition n'est pas laissée en pause sans limite atteinte
+        Assertions.assertEquals(List.of("pause-0", "ack-0-0", "resume-0"), events);
+        Assertions.assertEquals(1, racing.inFlight());
+    }
+
+    @Test
+    void shouldReportProcessingFromStartNotFromDispatch() throws InterruptedException {
+        List<String> processed = Collections.synchronizedList(new ArrayList<>());
+        List<Long> durations = Collections.synchronizedList(new ArrayList<>());
+        InFlightPartitionDispatcher timed = new InFlightPartitionDispatcher(1,
+                new InFlightPartitionDispatcher.PartitionControl() {
+                    @Override
+                    public void pause(TopicPartition partition) {
+                    }
+
+                    @Override
+                    public void resume(TopicPartition partition) {
+                    }
+                },
+                (partition, durationNanos, success) -> {
+                    processed.add(partition.partition() + (success ? "-ok" : "-ko"));
+                    durations.add(durationNanos);
+                });
+        Sinks.Empty<Void> r0 = Sinks.empty();
+        Sinks.Empty<Void> r1 = Sinks.empty();
+        timed.dispatch(P0, r0.asMono(), () -> { });
+        timed.dispatch(P0, r1.asMono(), () -> { });
+
+        // r1 attend en file pendant que r0 s'exécute: cette attente ne compte pas dans sa durée
+        Thread.sleep(100);
+        r0.tryEmitEmpty();
+        r1.tryEmitError(new IllegalStateException("boom"));
+
+        Assertions.assertEquals(List.of("0-ok", "0-ko"), processed);
+        Assertions.assertTrue(durations.get(0) >= 100_000_000L);
+        Assertions.assertTrue(durations.get(1) < 100_000_000L);
+    }
+}
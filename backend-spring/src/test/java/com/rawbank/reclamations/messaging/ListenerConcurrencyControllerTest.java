@@ -0,0 +1,57 @@
+package com.rawbank.reclamations.messaging;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+class ListenerConcurrencyControllerTest {
+
+    @Test
+    void shouldScaleUpToNeededAndDownOneStep() {
+        // 3 partitions, 1000 messages par consommateur
+        Assertions.assertEquals(3, ListenerConcurrencyController.target(5_000, 1, 1, 3, 1000));
+        Assertions.assertEquals(2, ListenerConcurrencyController.target(1_500, 1, 1, 3, 1000));
+        Assertions.assertEquals(2, ListenerConcurrencyController.target(0, 3, 1, 3, 1000));
+        Assertions.assertEquals(1, ListenerConcurrencyController.target(0, 1, 1, 3, 1000));
+        Assertions.assertEquals(3, ListenerConcurrencyController.target(2_500, 3, 1, 3, 1000));
+        // Concurrence configurée hors bornes ramenée dans l'intervalle
+        Assertions.assertEquals(3, ListenerConcurrencyController.target(0, 6, 1, 3, 1000));
+    }
+
+    @Test
+    void shouldReadLagPerPartitionFromConsumerMetrics() {
+        Map<MetricName, Metric> client0 = new HashMap<>();
+        put(client0, "records-lag", "consumer-fetch-manager-metrics", "complaints_raw", "0", 120.0);
+        put(client0, "records-lag", "consumer-fetch-manager-metrics", "complaints_raw", "1", Double.NaN);
+        put(client0, "records-lag-max", "consumer-fetch-manager-metrics", "complaints_raw", "0", 999.0);
+        Map<MetricName, Metric> client1 = new HashMap<>();
+        put(client1, "records-lag", "consumer-fetch-manager-metrics", "complaints_raw", "2", 30.0);
+
+        Map<TopicPartition, Long> lag = ConsumerLag.byPartition(Map.of("c-0", client0, "c-1", client1));
+
+        Assertions.assertEquals(Map.of(
+                new TopicPartition("complaints_raw", 0), 120L,
+                new TopicPartition("complaints_raw", 2), 30L), lag);
+        Assertions.assertEquals(150L, ConsumerLag.total(lag));
+    }
+
+    private static void put(Map<MetricName, Metric> metrics, String name, String group, String topic, String partition, double value) {
+        MetricName metricName = new MetricName(name, group, "", Map.of("client-id", "c", "topic", topic, "partition", partition));
+        metrics.put(metricName, new Metric() {
+            @Override
+            public MetricName metricName() {
+                return metricName;
+            }
+
+            @Override
+            public Object metricValue() {
+                return value;
+            }
+        });
+    }
+}
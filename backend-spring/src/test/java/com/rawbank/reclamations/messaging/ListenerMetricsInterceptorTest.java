@@ -0,0 +1,101 @@
+package com.rawbank.reclamations.messaging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.kafka.support.KafkaUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+class ListenerMetricsInterceptorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void clearGroup() {
+        KafkaUtils.clearConsumerGroupId();
+    }
+
+    private static ConsumerRecord<String, byte[]> record(long offset, long timestamp) {
+        return new ConsumerRecord<>("complaints_raw", 0, offset, timestamp, TimestampType.CREATE_TIME,
+                0, 0, null, new byte[0], new RecordHeaders(), Optional.empty());
+    }
+
+    @Test
+    void shouldRecordCountAgeAndProcessingTimePerGroup() {
+        KafkaUtils.setConsumerGroupId("reclamations-pa-worker");
+        ListenerMetricsInterceptor<byte[]> interceptor = new ListenerMetricsInterceptor<>(registry);
+
+        ConsumerRecord<String, byte[]> ok = record(0, System.currentTimeMillis() - 5_000);
+        interceptor.intercept(ok, null);
+        interceptor.success(ok, null);
+        ConsumerRecord<String, byte[]> ko = record(1, -1);
+        interceptor.intercept(ko, null);
+        interceptor.failure(ko, new IllegalStateException("boom"), null);
+
+        Assertions.assertEquals(2.0, registry.get("reclamations.kafka.listener.records")
+                .tag("group", "reclamations-pa-worker").counter().count());
+        Assertions.assertEquals(1, registry.get("reclamations.kafka.listener.processing")
+                .tags("group", "reclamations-pa-worker", "outcome", "success").timer().count());
+        Assertions.assertEquals(1, registry.get("reclamations.kafka.listener.processing")
+                .tags("group", "reclamations-pa-worker", "outcome", "failure").timer().count());
+        // Enregistrement sans horodatage: pas d'âge mesuré
+        var age = registry.get("reclamations.kafka.record.age").tag("group", "reclamations-pa-worker").timer();
+        Assertions.assertEquals(1, age.count());
+        Assertions.assertTrue(age.totalTime(TimeUnit.MILLISECONDS) >= 5_000);
+    }
+
+    @Test
+    void shouldLeaveProcessingTimeToAsyncListeners() {
+        KafkaUtils.setConsumerGroupId("reclamations-pa-worker");
+        ListenerMetricsInterceptor<byte[]> interceptor = new ListenerMetricsInterceptor<>(registry, false);
+
+        ConsumerRecord<String, byte[]> handedOff = record(0, System.currentTimeMillis());
+        interceptor.intercept(handedOff, null);
+        interceptor.success(handedOff, null);
+        ListenerMetricsInterceptor.processingTimer(registry, "reclamations-pa-worker", true).record(250, TimeUnit.MILLISECONDS);
+
+        var processing = registry.get("reclamations.kafka.listener.processing")
+                .tags("group", "reclamations-pa-worker", "outcome", "success").timer();
+        Assertions.assertEquals(1, processing.count());
+        Assertions.assertEquals(250.0, processing.totalTime(TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(1.0, registry.get("reclamations.kafka.listener.records")
+                .tag("group", "reclamations-pa-worker").counter().count());
+    }
+
+    @Test
+    void shouldCountEveryRecordOfABatch() {
+        KafkaUtils.setConsumerGroupId("reclamations-indexer");
+        ListenerMetricsInterceptor<byte[]> interceptor = new ListenerMetricsInterceptor<>(registry);
+        ConsumerRecords<String, byte[]> batch = new ConsumerRecords<>(Map.of(
+                new TopicPartition("complaints_raw", 0), List.of(record(0, 1L), record(1, 2L), record(2, 3L))));
+
+        interceptor.intercept(batch, null);
+        interceptor.success(batch, null);
+
+        Assertions.assertEquals(3.0, registry.get("reclamations.kafka.listener.records")
+                .tag("group", "reclamations-indexer").counter().count());
+        Assertions.assertEquals(3, registry.get("reclamations.kafka.record.age").timer().count());
+        Assertions.assertEquals(1, registry.get("reclamations.kafka.listener.processing")
+                .tags("outcome", "success").timer().count());
+    }
+
+    @Test
+    void shouldDegradeHealthPastLagThreshold() {
+        Assertions.assertEquals(Status.UP, KafkaLagHealthIndicator.health(Map.of(), 100).getStatus());
+        Assertions.assertEquals(Status.UP,
+                KafkaLagHealthIndicator.health(Map.of("reclamations-indexer", 100L), 100).getStatus());
+        Assertions.assertEquals(KafkaLagHealthIndicator.DEGRADED, KafkaLagHealthIndicator.health(
+                Map.of("reclamations-indexer", 10L, "reclamations-pa-worker", 101L), 100).getStatus());
+    }
+}
@@ -0,0 +1,48 @@
+package com.rawbank.reclamations.messaging;
+
+import com.rawbank.reclamations.service.PowerAutomateService;
+import com.rawbank.reclamations.service.SubmissionTrackingService;
+import com.rawbank.reclamations.service.resilience.CallNotPermittedException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+class PowerAutomateEventHandlerTest {
+
+    private final PowerAutomateService powerAutomate = Mockito.mock(PowerAutomateService.class);
+    private final SubmissionTrackingService tracking = Mockito.mock(SubmissionTrackingService.class);
+    private final PowerAutomateEventHandler handler = new PowerAutomateEventHandler(powerAutomate, tracking);
+
+    private static ConsumerRecord<String, Object> record() {
+        return new ConsumerRecord<>("complaints_raw", 0, 0L, "k", Map.<String, Object>of("TRACKINGID", "t-1"));
+    }
+
+    @Test
+    void shouldPropagateRejectedCallsForRetryAndDeadLetter() {
+        Mockito.when(powerAutomate.submit(Mockito.any())).thenReturn(Mono.error(
+                new CallNotPermittedException("powerautomate", "circuit_open", "Service powerautomate indisponible")));
+
+        Assertions.assertThrows(CallNotPermittedException.class, () -> handler.handle(record()).block());
+        Mockito.verifyNoInteractions(tracking);
+    }
+
+    @Test
+    void shouldLogAndSkipOtherPowerAutomateErrors() {
+        Mockito.when(powerAutomate.submit(Mockito.any())).thenReturn(Mono.error(new IllegalStateException("Erreur Power Automate (500)")));
+
+        Assertions.assertDoesNotThrow(() -> handler.handle(record()).block());
+    }
+
+    @Test
+    void shouldCompleteTrackingWithReturnedNumber() {
+        Mockito.when(powerAutomate.submit(Mockito.any())).thenReturn(Mono.just(Map.of("numero", "REC-42")));
+
+        handler.handle(record()).block();
+
+        Mockito.verify(tracking).complete("t-1", "REC-42");
+    }
+}
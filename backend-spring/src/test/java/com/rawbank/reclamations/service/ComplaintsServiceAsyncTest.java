@@ -0,0 +1,68 @@
+package com.rawbank.reclamations.service;
+
+import com.rawbank.reclamations.model.ComplaintDto;
+import com.rawbank.reclamations.service.accounts.AccountsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+
+class ComplaintsServiceAsyncTest {
+
+    private final SubmissionTrackingService tracking = new SubmissionTrackingService(Duration.ofHours(1));
+    private SharepointListService sharepoint;
+    private EventPublisherService events;
+    private PayloadBuilderService builder;
+
+    @BeforeEach
+    void setUp() {
+        sharepoint = Mockito.mock(SharepointListService.class);
+        events = Mockito.mock(EventPublisherService.class);
+        builder = Mockito.mock(PayloadBuilderService.class);
+        Mockito.when(builder.buildSubmission(any())).thenAnswer(inv -> new HashMap<String, Object>());
+        Mockito.when(events.publish(anyMap())).thenReturn(Mono.empty());
+    }
+
+    private ComplaintsService service(Duration shutdownTimeout) {
+        return new ComplaintsService(events, builder, Mockito.mock(AccountsService.class),
+                Mockito.mock(MotifBccResolver.class), tracking, sharepoint,
+                "async", 10, 1, shutdownTimeout, Duration.ofHours(1), 100, Duration.ofSeconds(5), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void shouldDrainAcceptedSubmissionsOnShutdown() {
+        Mockito.when(sharepoint.createItem(anyMap())).thenAnswer(inv ->
+                Mono.delay(Duration.ofMillis(50)).thenReturn(Map.<String, Object>of("id", "REC-1")));
+        ComplaintsService service = service(Duration.ofSeconds(5));
+        String first = service.submitAsync(new ComplaintDto()).block();
+        String second = service.submitAsync(new ComplaintDto()).block();
+
+        service.stopPipeline();
+
+        Assertions.assertEquals("completed", tracking.get(first).block().status());
+        Assertions.assertEquals("completed", tracking.get(second).block().status());
+        Assertions.assertThrows(IllegalStateException.class, () -> service.submitAsync(new ComplaintDto()).block());
+    }
+
+    @Test
+    void shouldFailLeftoversWhenDrainTimesOut() {
+        Mockito.when(sharepoint.createItem(anyMap())).thenReturn(Mono.never());
+        ComplaintsService service = service(Duration.ofMillis(100));
+        String running = service.submitAsync(new ComplaintDto()).block();
+        String queued = service.submitAsync(new ComplaintDto()).block();
+
+        service.stopPipeline();
+
+        Assertions.assertEquals("failed", tracking.get(running).block().status());
+        Assertions.assertEquals("failed", tracking.get(queued).block().status());
+    }
+}
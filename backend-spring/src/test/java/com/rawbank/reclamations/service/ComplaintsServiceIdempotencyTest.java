@@ -0,0 +1,93 @@
+package com.rawbank.reclamations.service;
+
+import com.rawbank.reclamations.model.ComplaintDto;
+import com.rawbank.reclamations.service.accounts.AccountsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+
+class ComplaintsServiceIdempotencyTest {
+
+    private final AtomicInteger created = new AtomicInteger();
+    private SharepointListService sharepoint;
+    private EventPublisherService events;
+    private ComplaintsService service;
+
+    @BeforeEach
+    void setUp() {
+        sharepoint = Mockito.mock(SharepointListService.class);
+        events = Mockito.mock(EventPublisherService.class);
+        PayloadBuilderService builder = Mockito.mock(PayloadBuilderService.class);
+        Mockito.when(builder.buildSubmission(any())).thenAnswer(inv -> new HashMap<String, Object>());
+        Mockito.when(events.publish(anyMap())).thenReturn(Mono.empty());
+        Mockito.when(sharepoint.createItem(anyMap())).thenAnswer(inv ->
+                Mono.delay(Duration.ofMillis(100)).map(t -> Map.<String, Object>of("id", "REC-" + created.incrementAndGet())));
+
+        service = new ComplaintsService(events, builder, Mockito.mock(AccountsService.class),
+                Mockito.mock(MotifBccResolver.class), new SubmissionTrackingService(Duration.ofHours(1)), sharepoint,
+                "sync", 10, 1, Duration.ofSeconds(5), Duration.ofHours(1), 100, Duration.ofSeconds(5), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void shouldReturnOriginalNumberForRepeatedKey() {
+        ComplaintDto dto = new ComplaintDto();
+        List<String> concurrent = Mono.zip(service.submit(dto, "k1"), service.submit(dto, "k1"),
+                (a, b) -> List.of(a, b)).block(Duration.ofSeconds(2));
+        String replay = service.submit(dto, "k1").block(Duration.ofSeconds(2));
+
+        Assertions.assertEquals(List.of("REC-1", "REC-1"), concurrent);
+        Assertions.assertEquals("REC-1", replay);
+        Assertions.assertEquals(1, created.get());
+        Mockito.verify(events, Mockito.times(1)).publish(anyMap());
+    }
+
+    @Test
+    void shouldSubmitAgainWithoutKeyOrWithAnotherKey() {
+        ComplaintDto dto = new ComplaintDto();
+        Assertions.assertEquals("REC-1", service.submit(dto, "k1").block(Duration.ofSeconds(2)));
+        Assertions.assertEquals("REC-2", service.submit(dto, "k2").block(Duration.ofSeconds(2)));
+        Assertions.assertEquals("REC-3", service.submit(dto, null).block(Duration.ofSeconds(2)));
+    }
+
+    @Test
+    void shouldNotRememberFailedSubmissions() {
+        Mockito.when(sharepoint.createItem(anyMap()))
+                .thenReturn(Mono.error(new IllegalStateException("Graph 503")))
+                .thenReturn(Mono.just(Map.of("id", "REC-9")));
+        ComplaintDto dto = new ComplaintDto();
+
+        Assertions.assertThrows(IllegalStateException.class, () -> service.submit(dto, "k1").block(Duration.ofSeconds(2)));
+        Assertions.assertEquals("REC-9", service.submit(dto, "k1").block(Duration.ofSeconds(2)));
+    }
+
+    @Test
+    void shouldRejectSameKeyWithDifferentComplaint() {
+        ComplaintDto first = new ComplaintDto();
+        first.setDOMAINE("CARTES");
+        ComplaintDto other = new ComplaintDto();
+        other.setDOMAINE("VIREMENTS");
+
+        Assertions.assertEquals("REC-1", service.submit(first, "k1").block(Duration.ofSeconds(2)));
+        Assertions.assertThrows(IdempotencyKeyMismatchException.class, () -> service.submit(other, "k1").block(Duration.ofSeconds(2)));
+        // Envoi concurrent: rejoint l'appel en vol mais ne reçoit pas son résultat
+        Assertions.assertThrows(IdempotencyKeyMismatchException.class,
+                () -> Mono.zip(service.submit(first, "k2"), service.submit(other, "k2")).block(Duration.ofSeconds(2)));
+
+        ComplaintDto same = new ComplaintDto();
+        same.setDOMAINE("CARTES");
+        Assertions.assertEquals("REC-1", service.submit(same, "k1").block(Duration.ofSeconds(2)));
+        Assertions.assertEquals(2, created.get());
+    }
+}
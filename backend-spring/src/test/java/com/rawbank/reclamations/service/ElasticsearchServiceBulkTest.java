@@ -0,0 +1,125 @@
+package com.rawbank.reclamations.service;
+
+import com.rawbank.reclamations.config.HttpClientFactory;
+import com.rawbank.reclamations.config.props.HttpClientProperties;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+class ElasticsearchServiceBulkTest {
+
+    private HttpServer server;
+    private HttpClientFactory factory;
+    private SimpleMeterRegistry registry;
+    private ElasticsearchService service;
+    private final List<String> bodies = new ArrayList<>();
+    private final List<String> queries = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Faux _bulk: refus 400 pour les documents "bad", 429 pour "busy"
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/_bulk", ex -> {
+            String body = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            bodies.add(body);
+            queries.add(ex.getRequestURI().getQuery());
+            String[] lines = body.split("\n");
+            StringBuilder items = new StringBuilder();
+            for (int i = 1; i < lines.length; i += 2) {
+                if (items.length() > 0) items.append(',');
+                if (lines[i].contains("bad")) {
+                    items.append("{\"index\":{\"status\":400,\"error\":{\"type\":\"mapper_parsing_exception\",\"reason\":\"champ invalide\"}}}");
+                } else if (lines[i].contains("huge")) {
+                    // Motif de rejet volumineux: réponse au-delà de la limite WebClient par défaut (256KB)
+                    items.append("{\"index\":{\"status\":400,\"error\":{\"type\":\"mapper_parsing_exception\",\"reason\":\"")
+                            .append("x".repeat(300 * 1024)).append("\"}}}");
+                } else if (lines[i].contains("busy")) {
+                    items.append("{\"index\":{\"status\":429,\"error\":{\"type\":\"es_rejected_execution_exception\",\"reason\":\"file pleine\"}}}");
+                } else {
+                    items.append("{\"index\":{\"_id\":\"x\",\"status\":201}}");
+                }
+            }
+            byte[] out = ("{\"took\":3,\"errors\":true,\"items\":[" + items + "]}").getBytes(StandardCharsets.UTF_8);
+            ex.sendResponseHeaders(200, out.length);
+            try (OutputStream os = ex.getResponseBody()) { os.write(out); }
+        });
+        server.start();
+        registry = new SimpleMeterRegistry();
+        factory = new HttpClientFactory(new HttpClientProperties(), registry);
+        service = new ElasticsearchService(factory, "http://127.0.0.1:" + server.getAddress().getPort(),
+                "reclamations", "", "", 2, DataSize.ofMegabytes(5), DataSize.ofMegabytes(16), registry);
+    }
+
+    private static ElasticsearchService.BulkDocument doc(String id, String json) {
+        return new ElasticsearchService.BulkDocument(id, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void shouldSplitIntoChunksAndMapFailuresToDocumentPositions() {
+        List<ElasticsearchService.BulkDocument> docs = List.of(
+                doc("t0", "{\"n\":0}"), doc("t1", "{\"v\":\"bad\"}"), doc("t2", "{\"n\":2}"),
+                doc("t3", "{\"v\":\"busy\"}"), doc(null, "{\"v\":\"ok\"}"));
+
+        ElasticsearchService.BulkResult result = service.bulkIndex(docs).block(Duration.ofSeconds(5));
+
+        Assertions.assertEquals(3, bodies.size());
+        Assertions.assertEquals("{\"index\":{\"_index\":\"reclamations\",\"_id\":\"t0\"}}\n{\"n\":0}\n"
+                + "{\"index\":{\"_index\":\"reclamations\",\"_id\":\"t1\"}}\n{\"v\":\"bad\"}\n", bodies.get(0));
+        Assertions.assertFalse(bodies.get(2).contains("_id"));
+        Assertions.assertEquals(5, result.count());
+        Assertions.assertEquals(List.of(
+                new ElasticsearchService.BulkItemFailure(1, 400, "mapper_parsing_exception: champ invalide"),
+                new ElasticsearchService.BulkItemFailure(3, 429, "es_rejected_execution_exception: file pleine")),
+                result.failures());
+        Assertions.assertFalse(result.failures().get(0).retryable());
+        Assertions.assertTrue(result.failures().get(1).retryable());
+        Assertions.assertEquals(3, registry.get("reclamations.es.bulk").timer().count());
+        Assertions.assertEquals(3.0, registry.get("reclamations.es.bulk.docs").tag("outcome", "indexed").counter().count());
+        Assertions.assertEquals(2.0, registry.get("reclamations.es.bulk.docs").tag("outcome", "failed").counter().count());
+    }
+
+    @Test
+    void shouldFilterAndReadLargeBulkResponses() {
+        ElasticsearchService.BulkResult result = service.bulkIndex(List.of(doc("t0", "{\"v\":\"huge\"}"), doc("t1", "{\"n\":1}")))
+                .block(Duration.ofSeconds(5));
+
+        Assertions.assertEquals(List.of("filter_path=errors,items.*.status,items.*.error"), queries);
+        Assertions.assertEquals(1, result.failures().size());
+        Assertions.assertEquals(400, result.failures().get(0).status());
+    }
+
+    @Test
+    void shouldKeepSourceOnOneNdjsonLine() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] compact = "{\"a\":\"x\\ny\"}".getBytes(StandardCharsets.UTF_8);
+        ElasticsearchService.writeSource(out, compact);
+        ElasticsearchService.writeSource(out, "{\r\n  \"a\": 1\n}".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals("{\"a\":\"x\\ny\"}\n{    \"a\": 1 }\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldCountItemsMissingFromResponseAsFailures() {
+        byte[] body = "{\"errors\":false,\"items\":[{\"index\":{\"status\":200}}]}".getBytes(StandardCharsets.UTF_8);
+        Assertions.assertEquals(List.of(new ElasticsearchService.BulkItemFailure(11, 0, "élément absent de la réponse _bulk")),
+                ElasticsearchService.parseBulkResponse(body, 10, 2));
+    }
+}
@@ -0,0 +1,67 @@
+package com.rawbank.reclamations.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rawbank.reclamations.model.ComplaintDto;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Map;
+
+class PayloadBuilderServiceTest {
+
+    private final PayloadBuilderService builder = new PayloadBuilderService(new ObjectMapper());
+
+    PayloadBuilderServiceTest() throws IOException {
+    }
+
+    @Test
+    void shouldApplyServerFieldsOverForm() {
+        ComplaintDto dto = new ComplaintDto();
+        dto.setSITE("Agence Gombe");
+        dto.setCANALUTILISE("RAWBOT");
+        dto.setDOMAINE("Cartes");
+        dto.setNUMEROCARTE("4111 1111 1111 1111");
+        dto.setMONTANT("1 234,56");
+
+        Map<String, Object> payload = builder.buildSubmission(dto);
+
+        Assertions.assertEquals("WEB", payload.get("SITE"));
+        Assertions.assertEquals("WEB", payload.get("CANALUTILISE"));
+        Assertions.assertEquals("ONLINE", payload.get("ZONE"));
+        Assertions.assertEquals("", payload.get("GERANTAGENCE"));
+        Assertions.assertEquals("Cartes", payload.get("DOMAINE"));
+        Assertions.assertEquals("4111111111111111", payload.get("NUMEROCARTE"));
+        Assertions.assertEquals(new BigDecimal("1234.56"), payload.get("MONTANT"));
+        Assertions.assertEquals("USD", payload.get("DEVISE"));
+
+        // build() garde les valeurs du formulaire (pas de surcharge serveur)
+        Assertions.assertEquals("Agence Gombe", builder.build(dto).get("SITE"));
+    }
+
+    @Test
+    void shouldMergeConditionsWithoutTouchingTemplate() {
+        ComplaintDto dto = new ComplaintDto();
+        dto.setConditions(Map.of("CANAL", "GAB"));
+
+        Map<String, Object> first = builder.buildSubmission(dto);
+        first.put("TRACKINGID", "t-1");
+        Map<String, Object> second = builder.buildSubmission(new ComplaintDto());
+
+        Assertions.assertEquals(Map.of("NOMCLIENT", "JOEL SYASI MWISA", "CANAL", "GAB"), first.get("Conditions"));
+        Assertions.assertEquals(Map.of("NOMCLIENT", "JOEL SYASI MWISA"), second.get("Conditions"));
+        Assertions.assertFalse(second.containsKey("TRACKINGID"));
+    }
+
+    @Test
+    void shouldReplaceConditionsFromOverrides() {
+        ComplaintDto dto = new ComplaintDto();
+        dto.setConditions(Map.of("CANAL", "GAB"));
+
+        Map<String, Object> payload = builder.buildWithOverrides(dto, Map.of("Conditions", Map.of(), "SITE", "WEB"));
+
+        Assertions.assertEquals(Map.of(), payload.get("Conditions"));
+        Assertions.assertEquals("WEB", payload.get("SITE"));
+    }
+}
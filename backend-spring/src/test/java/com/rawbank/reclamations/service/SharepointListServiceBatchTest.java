@@ -0,0 +1,105 @@
+package com.rawbank.reclamations.service;
+
+import com.rawbank.reclamations.service.batch.MicroBatcher;
+import com.rawbank.reclamations.service.resilience.UpstreamGuard;
+import com.rawbank.reclamations.service.resilience.UpstreamHttpException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SharepointListServiceBatchTest {
+
+    // Réponse $batch mixte: item créé (201), item limité (429 + Retry-After), item en erreur serveur (503); id 4 absent
+    private static Map<String, Object> mixedResponse() {
+        Map<String, Object> created = new HashMap<>();
+        created.put("id", "42");
+        created.put("fields", new HashMap<>(Map.of("Title", "REC-1")));
+        return Map.of("responses", List.of(
+                Map.of("id", "3", "status", 503, "body", Map.of("error", Map.of("code", "serviceNotAvailable"))),
+                Map.of("id", "1", "status", 201, "body", created),
+                Map.of("id", "2", "status", 429, "headers", Map.of("Retry-After", "7"),
+                        "body", Map.of("error", Map.of("code", "tooManyRequests")))));
+    }
+
+    @Test
+    void shouldMapEachBatchItemToItsOwnStatus() {
+        List<MicroBatcher.Result<Map<String, Object>>> results = SharepointListService.batchResults(mixedResponse(), 4);
+
+        Assertions.assertEquals(4, results.size());
+        Assertions.assertEquals("REC-1", results.get(0).value().get("Title"));
+        Assertions.assertEquals("42", results.get(0).value().get("id"));
+
+        UpstreamHttpException throttled = (UpstreamHttpException) results.get(1).error();
+        Assertions.assertEquals(429, throttled.getStatus());
+        Assertions.assertEquals(Duration.ofSeconds(7), throttled.getRetryAfter());
+        Assertions.assertFalse(UpstreamGuard.isUpstreamFailure(throttled));
+
+        UpstreamHttpException unavailable = (UpstreamHttpException) results.get(2).error();
+        Assertions.assertEquals(503, unavailable.getStatus());
+        Assertions.assertTrue(UpstreamGuard.isUpstreamFailure(unavailable), "un 5xx d'item compte pour le disjoncteur");
+
+        UpstreamHttpException missing = (UpstreamHttpException) results.get(3).error();
+        Assertions.assertEquals(502, missing.getStatus());
+        Assertions.assertTrue(UpstreamGuard.isUpstreamFailure(missing));
+    }
+
+    @Test
+    void shouldRetryThrottledItemThenSucceed() {
+        AtomicInteger calls = new AtomicInteger();
+        Mono<String> item = Mono.defer(() -> calls.incrementAndGet() == 1
+                ? Mono.error(new UpstreamHttpException(429, "limité", Duration.ofMillis(20)))
+                : Mono.just("créé"));
+
+        String value = item.retryWhen(SharepointListService.throttledItemRetry(2, Duration.ofMillis(10), Duration.ofSeconds(1)))
+                .block(Duration.ofSeconds(5));
+
+        Assertions.assertEquals("créé", value);
+        Assertions.assertEquals(2, calls.get());
+    }
+
+    @Test
+    void shouldReturnThrottlingToCallerWhenRetriesExhaustedOrWaitTooLong() {
+        AtomicInteger calls = new AtomicInteger();
+        Mono<String> alwaysThrottled = Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.error(new UpstreamHttpException(429, "limité", null));
+        });
+        UpstreamHttpException e = Assertions.assertThrows(UpstreamHttpException.class, () -> alwaysThrottled
+                .retryWhen(SharepointListService.throttledItemRetry(2, Duration.ofMillis(10), Duration.ofSeconds(1)))
+                .block(Duration.ofSeconds(5)));
+        Assertions.assertEquals(429, e.getStatus());
+        Assertions.assertEquals(3, calls.get());
+
+        // Retry-After au-delà du plafond: pas d'attente, l'erreur garde son Retry-After pour l'appelant
+        AtomicInteger longCalls = new AtomicInteger();
+        Mono<String> longWait = Mono.defer(() -> {
+            longCalls.incrementAndGet();
+            return Mono.error(new UpstreamHttpException(429, "limité", Duration.ofSeconds(30)));
+        });
+        UpstreamHttpException tooLong = Assertions.assertThrows(UpstreamHttpException.class, () -> longWait
+                .retryWhen(SharepointListService.throttledItemRetry(2, Duration.ofMillis(10), Duration.ofSeconds(1)))
+                .block(Duration.ofSeconds(5)));
+        Assertions.assertEquals(Duration.ofSeconds(30), tooLong.getRetryAfter());
+        Assertions.assertEquals(1, longCalls.get());
+    }
+
+    @Test
+    void shouldNotRetryServerErrorItem() {
+        AtomicInteger calls = new AtomicInteger();
+        Mono<String> unavailable = Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.error(new UpstreamHttpException(503, "indisponible"));
+        });
+        UpstreamHttpException e = Assertions.assertThrows(UpstreamHttpException.class, () -> unavailable
+                .retryWhen(SharepointListService.throttledItemRetry(2, Duration.ofMillis(10), Duration.ofSeconds(1)))
+                .block(Duration.ofSeconds(5)));
+        Assertions.assertEquals(503, e.getStatus());
+        Assertions.assertEquals(1, calls.get());
+    }
+}
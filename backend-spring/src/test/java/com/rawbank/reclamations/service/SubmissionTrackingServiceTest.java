@@ -0,0 +1,41 @@
+package com.rawbank.reclamations.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+class SubmissionTrackingServiceTest {
+
+    private final SubmissionTrackingService tracking = new SubmissionTrackingService(Duration.ofHours(24));
+
+    @Test
+    void shouldMoveFromPendingToCompleted() {
+        tracking.markPending("t1");
+        Assertions.assertEquals("pending", tracking.get("t1").block().status());
+
+        tracking.complete("t1", "REC-001");
+        SubmissionTrackingService.Status status = tracking.get("t1").block();
+        Assertions.assertEquals("completed", status.status());
+        Assertions.assertEquals("REC-001", status.complaintNumber());
+    }
+
+    @Test
+    void shouldReportFailureUnlessNumberAlreadyObtained() {
+        tracking.markPending("t1");
+        tracking.fail("t1", "Service sharepoint indisponible (circuit ouvert)");
+        SubmissionTrackingService.Status status = tracking.get("t1").block();
+        Assertions.assertEquals("failed", status.status());
+        Assertions.assertEquals("Service sharepoint indisponible (circuit ouvert)", status.error());
+
+        tracking.markPending("t2");
+        tracking.complete("t2", "REC-002");
+        tracking.fail("t2", "publication Kafka en échec");
+        Assertions.assertEquals("completed", tracking.get("t2").block().status());
+    }
+
+    @Test
+    void shouldReturnEmptyForUnknownTrackingId() {
+        Assertions.assertNull(tracking.get("inconnu").block());
+    }
+}
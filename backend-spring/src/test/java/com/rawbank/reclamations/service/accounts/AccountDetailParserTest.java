@@ -0,0 +1,87 @@
+package com.rawbank.reclamations.service.accounts;
+
+import com.rawbank.reclamations.model.Account;
+import com.rawbank.reclamations.model.CustomerProfile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+class AccountDetailParserTest {
+
+    private static CustomerProfile parse(String json) throws IOException {
+        return AccountDetailParser.parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldReadCutomerDetailAndSkipUnknownFields() throws IOException {
+        CustomerProfile p = parse("""
+                {"status":"OK","extra":{"deep":[1,{"x":[]}]},
+                 "cutomerDetail":{"customerName":"JOEL SYASI","segment":{"code":"R"},
+                   "accountList":[
+                     {"agencyCode":"00011","accountNumber":"12345678","suffix":"40","currencyCode":840,"balance":{"a":1}},
+                     {"agencyCode":"00012","accountNumber":"87654321"}
+                   ]}}
+                """);
+        Assertions.assertEquals("JOEL SYASI", p.customerName());
+        Assertions.assertEquals(2, p.accounts().size());
+        Assertions.assertEquals(new Account("00011", "12345678", "40", "840"), p.accounts().get(0));
+        Assertions.assertEquals(List.of("00011-12345678-40"), p.formattedAccounts());
+    }
+
+    @Test
+    void shouldPreferCutomerDetailOverCustomerDetail() throws IOException {
+        CustomerProfile p = parse("""
+                {"customerDetail":{"customerName":"B"},"cutomerDetail":{"customerName":"A"}}
+                """);
+        Assertions.assertEquals("A", p.customerName());
+    }
+
+    @Test
+    void shouldSplitNumeroLikeSplitOnDash() {
+        // Segments vides de fin ignorés: suffixe manquant => rejet, tiret final après le suffixe => accepté
+        Assertions.assertNull(AccountDetailParser.splitNumero("00011-12345678--", "840"));
+        Assertions.assertNull(AccountDetailParser.splitNumero("00011-12345678-", "840"));
+        Assertions.assertEquals(new Account("00011", "12345678", "40", "840"),
+                AccountDetailParser.splitNumero("00011-12345678-40-", "840"));
+    }
+
+    @Test
+    void shouldNormalizeRawComptes() throws IOException {
+        CustomerProfile p = parse("""
+                {"status":"OK","rawComptes":[
+                  {"numero":" 00011-12345678-40 ","codeDev":"0840","intitule":"JOEL SYASI v/c COURANT"},
+                  {"numero":"00011-12345679-41-X","codeDev":181,"intitule":"JOEL SYASI V/C EPARGNE"},
+                  {"numero":"invalide","codeDev":"840"},
+                  {"numero":"00011-1-","codeDev":"840"},
+                  {"numero":"00011-12345678--","codeDev":"840"},
+                  {"numero":"00011-12345678---","codeDev":"840"}
+                ]}
+                """);
+        Assertions.assertEquals("JOEL SYASI", p.customerName());
+        Assertions.assertEquals(List.of("00011-12345678-40", "00011-12345679-41"), p.formattedAccounts());
+        Assertions.assertEquals("840", p.accounts().get(0).currencyCode());
+        Assertions.assertEquals("181", p.accounts().get(1).currencyCode());
+    }
+
+    @Test
+    void shouldDropNameWhenIntitulesDisagree() throws IOException {
+        CustomerProfile p = parse("""
+                {"rawComptes":[
+                  {"numero":"1-2-3","intitule":"A V/C X"},
+                  {"numero":"1-2-4","intitule":"B V/C X"}
+                ]}
+                """);
+        Assertions.assertNull(p.customerName());
+        Assertions.assertEquals(2, p.accounts().size());
+    }
+
+    @Test
+    void shouldReturnEmptyForUnexpectedShapes() throws IOException {
+        Assertions.assertTrue(parse("[]").isEmpty());
+        Assertions.assertTrue(parse("{\"status\":\"KO\"}").isEmpty());
+        Assertions.assertTrue(parse("{\"cutomerDetail\":null}").isEmpty());
+    }
+}
@@ -0,0 +1,137 @@
+package com.rawbank.reclamations.service.accounts;
+
+import com.rawbank.reclamations.config.HttpClientFactory;
+import com.rawbank.reclamations.config.props.HttpClientProperties;
+import com.rawbank.reclamations.config.props.ResilienceProperties;
+import com.rawbank.reclamations.model.AccountLookupResult;
+import com.rawbank.reclamations.service.resilience.UpstreamGuards;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class AccountsServiceTest {
+
+    private static final String DETAIL = """
+            {"cutomerDetail":{"customerName":"JOEL SYASI","accountList":[
+              {"agencyCode":"00011","accountNumber":"%s","suffix":"40","currencyCode":840}]}}
+            """;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private HttpClientFactory factory;
+    private AccountsService service;
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Fausse API détails (50ms par appel): "99999999" renvoie une réponse volumineuse (champ ignoré par le parseur),
+        // "50000000" une erreur 500
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/detail", ex -> {
+            String body = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            String clientId = body.replaceAll("\\D", "");
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+            }
+            if (clientId.equals("50000000")) {
+                ex.sendResponseHeaders(500, -1);
+                ex.close();
+                return;
+            }
+            String json = clientId.equals("99999999")
+                    ? "{\"padding\":\"" + "x".repeat(128 * 1024) + "\"," + DETAIL.formatted(clientId).substring(1)
+                    : DETAIL.formatted(clientId);
+            byte[] out = json.getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().add("Content-Type", "application/json");
+            ex.sendResponseHeaders(200, out.length);
+            try (OutputStream os = ex.getResponseBody()) { os.write(out); }
+        });
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        factory = new HttpClientFactory(new HttpClientProperties(), registry);
+        SharepointAuthService auth = Mockito.mock(SharepointAuthService.class);
+        Mockito.when(auth.getToken()).thenReturn(Mono.just("jeton"));
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        service = new AccountsService(factory, auth, new UpstreamGuards(new ResilienceProperties(), registry),
+                base + "/detail", base + "/phone", DataSize.ofKilobytes(64), false,
+                100, Duration.ofMinutes(2), Duration.ofMinutes(10), Duration.ofSeconds(5), 2,
+                false, 0.95, Duration.ofMillis(50), Duration.ofSeconds(2), 0.05, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.destroy();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldReadCustomerAccounts() {
+        Assertions.assertEquals(List.of("00011-12345678-40"), service.getAccounts("12345678").block(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void shouldRejectDetailResponseAboveMaxSize() {
+        IllegalStateException e = Assertions.assertThrows(IllegalStateException.class,
+                () -> service.getCustomerDetail("99999999").block(Duration.ofSeconds(5)));
+        Assertions.assertTrue(e.getMessage().contains("trop volumineuse"), e.getMessage());
+    }
+
+    @Test
+    void shouldReportItemFailuresAsTheirOwnLinesWithoutAbortingTheBatch() {
+        List<AccountLookupResult> results = service.getAccountsBatch(
+                        List.of("12345678", "50000000", "123", "87654321"), List.of("12"))
+                .collectList().block(Duration.ofSeconds(5));
+
+        Assertions.assertEquals(5, results.size());
+        Map<String, AccountLookupResult> byClient = results.stream().filter(r -> r.clientId() != null)
+                .collect(Collectors.toMap(AccountLookupResult::clientId, r -> r));
+        Assertions.assertEquals(List.of("00011-12345678-40"), byClient.get("12345678").accounts());
+        Assertions.assertEquals(List.of("00011-87654321-40"), byClient.get("87654321").accounts());
+        Assertions.assertFalse(byClient.get("50000000").ok());
+        Assertions.assertTrue(byClient.get("50000000").error().contains("500"), byClient.get("50000000").error());
+        Assertions.assertFalse(byClient.get("123").ok());
+        AccountLookupResult phone = results.stream().filter(r -> "12".equals(r.phone())).findFirst().orElseThrow();
+        Assertions.assertFalse(phone.ok());
+    }
+
+    @Test
+    void shouldBoundConcurrentUpstreamCalls() {
+        List<String> clientIds = IntStream.range(0, 8).mapToObj(i -> String.valueOf(10000000 + i)).toList();
+
+        List<AccountLookupResult> results = service.getAccountsBatch(clientIds, List.of()).collectList().block(Duration.ofSeconds(10));
+
+        Assertions.assertEquals(8, results.size());
+        Assertions.assertTrue(results.stream().allMatch(AccountLookupResult::ok));
+        // accounts.batch.concurrency = 2
+        Assertions.assertEquals(2, maxConcurrent.get());
+    }
+}
@@ -0,0 +1,82 @@
+package com.rawbank.reclamations.service.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class BearerTokenFilterTest {
+
+    private final Instant t0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void shouldInvalidateAndReplayOnceOn401() {
+        AtomicInteger fetches = new AtomicInteger();
+        TokenCache cache = new TokenCache("test",
+                () -> Mono.just(new TokenCache.CachedToken("tok-" + fetches.incrementAndGet(), t0.plusSeconds(3600))),
+                Duration.ZERO, Duration.ZERO, new SimpleMeterRegistry(), Clock.fixed(t0, ZoneOffset.UTC));
+        BearerTokenFilter filter = new BearerTokenFilter(cache);
+
+        List<String> seenTokens = new ArrayList<>();
+        ClientRequest request = ClientRequest.create(HttpMethod.POST, URI.create("http://upstream/items")).build();
+        ClientResponse response = filter.filter(request, req -> {
+            String auth = req.headers().getFirst(HttpHeaders.AUTHORIZATION);
+            seenTokens.add(auth);
+            HttpStatus status = "Bearer tok-1".equals(auth) ? HttpStatus.UNAUTHORIZED : HttpStatus.OK;
+            return Mono.just(ClientResponse.create(status).build());
+        }).block();
+
+        Assertions.assertNotNull(response);
+        Assertions.assertEquals(HttpStatus.OK, response.statusCode());
+        Assertions.assertEquals(List.of("Bearer tok-1", "Bearer tok-2"), seenTokens);
+        Assertions.assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void shouldNotReplayMoreThanOnce() {
+        TokenCache cache = new TokenCache("test",
+                () -> Mono.just(new TokenCache.CachedToken("tok", t0.plusSeconds(3600))),
+                Duration.ZERO, Duration.ZERO, new SimpleMeterRegistry(), Clock.fixed(t0, ZoneOffset.UTC));
+        AtomicInteger exchanges = new AtomicInteger();
+        ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("http://upstream/detail")).build();
+
+        ClientResponse response = new BearerTokenFilter(cache).filter(request, req -> {
+            exchanges.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.UNAUTHORIZED).build());
+        }).block();
+
+        Assertions.assertNotNull(response);
+        Assertions.assertEquals(HttpStatus.UNAUTHORIZED, response.statusCode());
+        Assertions.assertEquals(2, exchanges.get());
+    }
+
+    @Test
+    void shouldIgnoreInvalidationOfAlreadyReplacedToken() {
+        AtomicInteger fetches = new AtomicInteger();
+        TokenCache cache = new TokenCache("test",
+                () -> Mono.just(new TokenCache.CachedToken("tok-" + fetches.incrementAndGet(), t0.plusSeconds(3600))),
+                Duration.ZERO, Duration.ZERO, new SimpleMeterRegistry(), Clock.fixed(t0, ZoneOffset.UTC));
+
+        Assertions.assertEquals("tok-1", cache.getToken().block());
+        cache.invalidate("tok-1");
+        Assertions.assertEquals("tok-2", cache.getToken().block());
+        // Un 401 tardif sur l'ancien jeton ne doit pas évincer le nouveau
+        cache.invalidate("tok-1");
+        Assertions.assertEquals("tok-2", cache.getToken().block());
+        Assertions.assertEquals(2, fetches.get());
+    }
+}
@@ -0,0 +1,138 @@
+package com.rawbank.reclamations.service.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.Context;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class TokenCacheTest {
+
+    private final Instant t0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void shouldServeCachedTokenUntilExpiry() {
+        AtomicInteger calls = new AtomicInteger();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TokenCache cache = new TokenCache("test",
+                () -> Mono.just(new TokenCache.CachedToken("tok-" + calls.incrementAndGet(), t0.plusSeconds(3600))),
+                Duration.ofSeconds(60), Duration.ZERO, registry, Clock.fixed(t0, ZoneOffset.UTC));
+
+        Assertions.assertEquals("tok-1", cache.getToken().block());
+        Assertions.assertEquals("tok-1", cache.getToken().block());
+        Assertions.assertEquals("tok-1", cache.getToken().block());
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals(2.0, registry.counter("reclamations.auth.token.cache", "cache", "test", "result", "hit").count());
+        Assertions.assertEquals(1.0, registry.counter("reclamations.auth.token.cache", "cache", "test", "result", "miss").count());
+    }
+
+    @Test
+    void shouldCollapseConcurrentRefreshesIntoOneCall() {
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<TokenCache.CachedToken> pending = Sinks.one();
+        TokenCache cache = new TokenCache("test", () -> {
+            calls.incrementAndGet();
+            return pending.asMono();
+        }, Duration.ZERO, Duration.ZERO, new SimpleMeterRegistry(), Clock.fixed(t0, ZoneOffset.UTC));
+
+        List<String> received = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            cache.getToken().subscribe(received::add);
+        }
+        pending.tryEmitValue(new TokenCache.CachedToken("shared", t0.plusSeconds(60)));
+
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals(List.of("shared", "shared", "shared", "shared", "shared"), received);
+    }
+
+    @Test
+    void shouldFetchWithinContextOfTriggeringCaller() {
+        TokenCache cache = new TokenCache("test",
+                () -> Mono.deferContextual(ctx -> Mono.just(
+                        new TokenCache.CachedToken(ctx.getOrDefault("trackingId", "none"), t0.plusSeconds(3600)))),
+                Duration.ZERO, Duration.ZERO, new SimpleMeterRegistry(), Clock.fixed(t0, ZoneOffset.UTC));
+
+        Assertions.assertEquals("req-1", cache.getToken().contextWrite(Context.of("trackingId", "req-1")).block());
+    }
+
+    /** Horloge avançable à la main. */
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+
+    @Test
+    void shouldRefreshInBackgroundInsideRefreshAheadWindow() {
+        AtomicInteger calls = new AtomicInteger();
+        MutableClock clock = new MutableClock(t0);
+        TokenCache cache = new TokenCache("test",
+                () -> Mono.just(new TokenCache.CachedToken("tok-" + calls.incrementAndGet(), clock.instant().plusSeconds(300))),
+                Duration.ofSeconds(60), Duration.ZERO, new SimpleMeterRegistry(), clock);
+
+        Assertions.assertEquals("tok-1", cache.getToken().block());
+        clock.now = t0.plusSeconds(241);
+        // Dans la fenêtre de pré-rafraîchissement: le jeton courant est servi, un nouveau est demandé
+        Assertions.assertEquals("tok-1", cache.getToken().block());
+        Assertions.assertEquals(2, calls.get());
+        Assertions.assertEquals("tok-2", cache.getToken().block());
+    }
+
+    @Test
+    void shouldClampRefreshWindowToHalfOfShortTokenLifetime() {
+        AtomicInteger calls = new AtomicInteger();
+        MutableClock clock = new MutableClock(t0);
+        // Durée de vie 30s < refreshAhead 60s: fenêtre ramenée à 15s
+        TokenCache cache = new TokenCache("test",
+                () -> Mono.just(new TokenCache.CachedToken("tok-" + calls.incrementAndGet(), clock.instant().plusSeconds(30))),
+                Duration.ofSeconds(60), Duration.ZERO, new SimpleMeterRegistry(), clock);
+
+        Assertions.assertEquals("tok-1", cache.getToken().block());
+        clock.now = t0.plusSeconds(10);
+        Assertions.assertEquals("tok-1", cache.getToken().block());
+        Assertions.assertEquals("tok-1", cache.getToken().block());
+        Assertions.assertEquals(1, calls.get());
+
+        clock.now = t0.plusSeconds(16);
+        Assertions.assertEquals("tok-1", cache.getToken().block());
+        Assertions.assertEquals(2, calls.get());
+        Assertions.assertEquals("tok-2", cache.getToken().block());
+    }
+
+    @Test
+    void shouldNotCacheErrors() {
+        AtomicInteger calls = new AtomicInteger();
+        TokenCache cache = new TokenCache("test", () -> calls.incrementAndGet() == 1
+                ? Mono.error(new IllegalStateException("boom"))
+                : Mono.just(new TokenCache.CachedToken("ok", t0.plusSeconds(3600))),
+                Duration.ZERO, Duration.ZERO, new SimpleMeterRegistry(), Clock.fixed(t0, ZoneOffset.UTC));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> cache.getToken().block());
+        Assertions.assertEquals("ok", cache.getToken().block());
+    }
+
+    @Test
+    void shouldReadExpiresInFromResponse() {
+        Clock clock = Clock.fixed(t0, ZoneOffset.UTC);
+        Assertions.assertEquals(t0.plusSeconds(3599), TokenCache.expiresAt(Map.of("expires_in", 3599), Duration.ofMinutes(5), clock));
+        Assertions.assertEquals(t0.plusSeconds(120), TokenCache.expiresAt(Map.of("expires_in", "120"), Duration.ofMinutes(5), clock));
+        Assertions.assertEquals(t0.plusSeconds(300), TokenCache.expiresAt(Map.of(), Duration.ofMinutes(5), clock));
+    }
+}
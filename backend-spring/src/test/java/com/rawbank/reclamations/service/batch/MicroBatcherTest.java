@@ -0,0 +1,72 @@
+package com.rawbank.reclamations.service.batch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+class MicroBatcherTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+
+    // Double chaque élément; les négatifs échouent individuellement
+    private Mono<List<MicroBatcher.Result<Integer>>> doubling(List<Integer> items) {
+        batches.add(items);
+        List<MicroBatcher.Result<Integer>> out = new ArrayList<>();
+        for (Integer i : items) {
+            out.add(i < 0 ? MicroBatcher.Result.failed(new IllegalStateException("KO " + i)) : MicroBatcher.Result.ok(i * 2));
+        }
+        return Mono.just(out);
+    }
+
+    @Test
+    void shouldSendFullBatchImmediatelyAndDispatchResults() {
+        MicroBatcher<Integer, Integer> batcher = new MicroBatcher<>("test", 3, Duration.ofSeconds(10), this::doubling, registry);
+
+        List<Integer> results = Flux.just(1, 2, 3)
+                .flatMap(batcher::submit)
+                .collectList()
+                .block(Duration.ofSeconds(2));
+
+        Assertions.assertEquals(1, batches.size());
+        Assertions.assertEquals(List.of(2, 4, 6), results.stream().sorted().toList());
+        Assertions.assertEquals(1.0, registry.get("reclamations.batch.flushes").tag("reason", "full").counter().count());
+        Assertions.assertEquals(3.0, registry.get("reclamations.batch.size").summary().mean());
+    }
+
+    @Test
+    void shouldFlushPartialBatchAfterWindowWithPerItemErrors() {
+        MicroBatcher<Integer, Integer> batcher = new MicroBatcher<>("test", 20, Duration.ofMillis(30), this::doubling, registry);
+
+        Mono<Integer> ok = batcher.submit(5);
+        Mono<Integer> ko = batcher.submit(-1);
+        List<Object> outcomes = Flux.merge(ok.map(Object.class::cast), ko.map(Object.class::cast).onErrorResume(e -> Mono.just(e.getMessage())))
+                .collectList()
+                .block(Duration.ofSeconds(2));
+
+        Assertions.assertEquals(1, batches.size());
+        Assertions.assertTrue(outcomes.contains(10));
+        Assertions.assertTrue(outcomes.contains("KO -1"));
+        Assertions.assertEquals(1.0, registry.get("reclamations.batch.flushes").tag("reason", "window").counter().count());
+    }
+
+    @Test
+    void shouldFailEveryCallerWhenBatchFails() {
+        MicroBatcher<Integer, Integer> batcher = new MicroBatcher<>("test", 2, Duration.ofSeconds(10),
+                items -> Mono.error(new IllegalStateException("Graph 503")), registry);
+
+        List<String> errors = Flux.just(1, 2)
+                .flatMap(i -> batcher.submit(i).map(String::valueOf).onErrorResume(e -> Mono.just(e.getMessage())))
+                .collectList()
+                .block(Duration.ofSeconds(2));
+
+        Assertions.assertEquals(List.of("Graph 503", "Graph 503"), errors);
+    }
+}
@@ -0,0 +1,89 @@
+package com.rawbank.reclamations.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ExpiringCacheTest {
+
+    /** Horloge manipulable pour simuler l'écoulement du temps. */
+    static class MutableClock extends Clock {
+        Instant now = Instant.parse("2026-01-01T00:00:00Z");
+        @Override public ZoneId getZone() { return ZoneId.of("UTC"); }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+
+    @Test
+    void shouldServeFreshThenStaleThenReload() {
+        MutableClock clock = new MutableClock();
+        AtomicInteger loads = new AtomicInteger();
+        ExpiringCache<String, String> cache = new ExpiringCache<>("test", 10,
+                Duration.ofMinutes(1), Duration.ofMinutes(5), new SimpleMeterRegistry(), clock);
+
+        Assertions.assertEquals("v1", cache.get("k", k -> Mono.just("v" + loads.incrementAndGet())).block());
+        Assertions.assertEquals("v1", cache.get("k", k -> Mono.just("v" + loads.incrementAndGet())).block());
+        Assertions.assertEquals(1, loads.get());
+
+        // Périmée: valeur servie immédiatement, rechargement en arrière-plan
+        clock.now = clock.now.plusSeconds(90);
+        Assertions.assertEquals("v1", cache.get("k", k -> Mono.just("v" + loads.incrementAndGet())).block());
+        Assertions.assertEquals(2, loads.get());
+        Assertions.assertEquals("v2", cache.get("k", k -> Mono.just("v" + loads.incrementAndGet())).block());
+
+        // Au-delà de ttl + staleTtl: rechargement synchrone
+        clock.now = clock.now.plus(Duration.ofMinutes(10));
+        Assertions.assertEquals("v3", cache.get("k", k -> Mono.just("v" + loads.incrementAndGet())).block());
+    }
+
+    @Test
+    void shouldAlwaysCallLoaderWhenTtlIsZero() {
+        AtomicInteger loads = new AtomicInteger();
+        ExpiringCache<String, String> cache = new ExpiringCache<>("test", 10,
+                Duration.ZERO, Duration.ofMinutes(10), new SimpleMeterRegistry(), new MutableClock());
+
+        Assertions.assertEquals("v1", cache.get("k", k -> Mono.just("v" + loads.incrementAndGet())).block());
+        // Pas de valeur périmée servie pendant staleTtl: lecture directe
+        Assertions.assertEquals("v2", cache.get("k", k -> Mono.just("v" + loads.incrementAndGet())).block());
+        cache.put("k", "manuel");
+        Assertions.assertEquals("v3", cache.get("k", k -> Mono.just("v" + loads.incrementAndGet())).block());
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedBeyondMaxSize() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ExpiringCache<String, String> cache = new ExpiringCache<>("test", 2,
+                Duration.ofMinutes(1), Duration.ZERO, registry, new MutableClock());
+
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a", k -> Mono.error(new IllegalStateException("ne doit pas charger"))).block();
+        cache.put("c", "3");
+
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals("1", cache.get("a", k -> Mono.just("reload")).block());
+        Assertions.assertEquals("reload", cache.get("b", k -> Mono.just("reload")).block());
+        Assertions.assertTrue(registry.counter("reclamations.cache.evictions", "cache", "test", "cause", "size").count() >= 1);
+    }
+
+    @Test
+    void shouldNotCacheErrorsOrEmpty() {
+        AtomicInteger loads = new AtomicInteger();
+        ExpiringCache<String, String> cache = new ExpiringCache<>("test", 10,
+                Duration.ofMinutes(1), Duration.ZERO, new SimpleMeterRegistry(), new MutableClock());
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> cache.get("k", k -> { loads.incrementAndGet(); return Mono.error(new IllegalStateException("x")); }).block());
+        Assertions.assertNull(cache.get("k", k -> { loads.incrementAndGet(); return Mono.<String>empty(); }).block());
+        Assertions.assertEquals("ok", cache.get("k", k -> { loads.incrementAndGet(); return Mono.just("ok"); }).block());
+        Assertions.assertEquals(3, loads.get());
+    }
+}
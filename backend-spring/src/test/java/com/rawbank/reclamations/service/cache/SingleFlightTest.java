@@ -0,0 +1,56 @@
+package com.rawbank.reclamations.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SingleFlightTest {
+
+    @Test
+    void shouldShareOneUpstreamCallBetweenConcurrentCallers() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", Duration.ofSeconds(5), new SimpleMeterRegistry());
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<String> upstream = Sinks.one();
+
+        List<String> received = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            flight.execute("k", () -> { calls.incrementAndGet(); return upstream.asMono(); }).subscribe(received::add);
+        }
+        upstream.tryEmitValue("detail");
+
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals(List.of("detail", "detail", "detail"), received);
+        Assertions.assertEquals(0, flight.inflightCount());
+    }
+
+    @Test
+    void cancellingOneCallerShouldNotCancelOthers() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", Duration.ofSeconds(5), new SimpleMeterRegistry());
+        Sinks.One<String> upstream = Sinks.one();
+
+        Disposable first = flight.execute("k", upstream::asMono).subscribe();
+        List<String> received = new ArrayList<>();
+        flight.execute("k", upstream::asMono).subscribe(received::add);
+        first.dispose();
+        upstream.tryEmitValue("detail");
+
+        Assertions.assertEquals(List.of("detail"), received);
+    }
+
+    @Test
+    void shouldBoundWaitingTime() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", Duration.ofMillis(50), new SimpleMeterRegistry());
+        RuntimeException ex = Assertions.assertThrows(RuntimeException.class,
+                () -> flight.execute("k", Mono::never).block());
+        Assertions.assertInstanceOf(TimeoutException.class, ex.getCause());
+    }
+}
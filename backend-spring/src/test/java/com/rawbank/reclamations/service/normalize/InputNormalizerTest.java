@@ -0,0 +1,52 @@
+package com.rawbank.reclamations.service.normalize;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+class InputNormalizerTest {
+
+    @Test
+    void shouldValidateAndExtractDigits() {
+        Assertions.assertTrue(InputNormalizer.isDigits("12345678", 8));
+        Assertions.assertFalse(InputNormalizer.isDigits("1234567a", 8));
+        Assertions.assertFalse(InputNormalizer.isDigits("123456789", 8));
+        Assertions.assertFalse(InputNormalizer.isDigits(null, 8));
+
+        String clean = "0812345678";
+        Assertions.assertSame(clean, InputNormalizer.digitsOnly(clean));
+        Assertions.assertEquals("0812345678", InputNormalizer.digitsOnly("(081) 234-56 78"));
+        Assertions.assertEquals("0812345678", InputNormalizer.phoneDigits("081 234 5678", 10));
+        Assertions.assertNull(InputNormalizer.phoneDigits("+243 81 234 5678", 10));
+    }
+
+    @Test
+    void shouldStripSpacesFromCardNumber() {
+        Assertions.assertEquals("4111111111111111", InputNormalizer.cardNumber("4111 1111\t1111 1111"));
+        String clean = "4111111111111111";
+        Assertions.assertSame(clean, InputNormalizer.cardNumber(clean));
+    }
+
+    @Test
+    void shouldParseFrenchAmountsExactly() {
+        Assertions.assertEquals(new BigDecimal("1234.56"), InputNormalizer.parseAmount("1 234,56"));
+        Assertions.assertEquals(new BigDecimal("1234.56"), InputNormalizer.parseAmount("1.234,56"));
+        Assertions.assertEquals(new BigDecimal("1234567.8"), InputNormalizer.parseAmount("1 234 567,8"));
+        Assertions.assertEquals(new BigDecimal("0.05"), InputNormalizer.parseAmount("0,05"));
+        Assertions.assertEquals(new BigDecimal("-12"), InputNormalizer.parseAmount("-12"));
+        Assertions.assertEquals(new BigDecimal("0.10"), InputNormalizer.parseAmount("0,10"));
+        Assertions.assertEquals(new BigDecimal("1234567890123456789012.5"),
+                InputNormalizer.parseAmount("1 234 567 890 123 456 789 012,5"));
+        Assertions.assertNull(InputNormalizer.parseAmount("1,2,3"));
+        Assertions.assertNull(InputNormalizer.parseAmount("12 USD"));
+        Assertions.assertNull(InputNormalizer.parseAmount(" . "));
+        Assertions.assertNull(InputNormalizer.parseAmount("--5"));
+    }
+
+    @Test
+    void shouldKeepLegacyTextForInvalidAmounts() {
+        Assertions.assertEquals("1234.56", InputNormalizer.amountText("1.234,56"));
+        Assertions.assertEquals("12USD", InputNormalizer.amountText("12 USD"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.rawbank.reclamations.service.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class HedgerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private Hedger hedger(boolean enabled, double budget) {
+        return new Hedger("test", enabled, 0.95, Duration.ofMillis(20), Duration.ofMillis(20), budget, registry);
+    }
+
+    private double count(String outcome) {
+        return registry.get("reclamations.hedge.requests").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    void shouldLetHedgeWinWhenPrimaryIsSlow() {
+        Hedger hedger = hedger(true, 0.05);
+        AtomicInteger calls = new AtomicInteger();
+        AtomicBoolean primaryCancelled = new AtomicBoolean();
+
+        String result = hedger.execute(() -> calls.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofSeconds(5)).map(t -> "primary").doOnCancel(() -> primaryCancelled.set(true))
+                : Mono.just("hedge")).block(Duration.ofSeconds(2));
+
+        Assertions.assertEquals("hedge", result);
+        Assertions.assertEquals(2, calls.get());
+        Assertions.assertTrue(primaryCancelled.get());
+        Assertions.assertEquals(1.0, count("fired"));
+        Assertions.assertEquals(1.0, count("won"));
+    }
+
+    @Test
+    void shouldNotHedgeFastOrFailingPrimary() {
+        Hedger hedger = hedger(true, 0.05);
+        AtomicInteger calls = new AtomicInteger();
+
+        Assertions.assertEquals("ok", hedger.execute(() -> { calls.incrementAndGet(); return Mono.just("ok"); }).block());
+        Assertions.assertThrows(IllegalStateException.class, () -> hedger.execute(() -> {
+            calls.incrementAndGet();
+            return Mono.<String>error(new IllegalStateException("boom"));
+        }).block());
+
+        Assertions.assertEquals(2, calls.get());
+        Assertions.assertEquals(0.0, count("fired"));
+    }
+
+    @Test
+    void shouldStopHedgingWhenBudgetIsExhausted() {
+        Hedger hedger = hedger(true, 0.0);
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < Hedger.MAX_CREDITS + 2; i++) {
+            AtomicInteger attempt = new AtomicInteger();
+            hedger.execute(() -> {
+                calls.incrementAndGet();
+                return attempt.incrementAndGet() == 1 ? Mono.delay(Duration.ofMillis(300)).map(t -> "primary") : Mono.just("hedge");
+            }).block(Duration.ofSeconds(2));
+        }
+        Assertions.assertEquals(Hedger.MAX_CREDITS, count("fired"));
+        Assertions.assertEquals(2.0, count("denied"));
+        Assertions.assertEquals(2 * Hedger.MAX_CREDITS + 2, calls.get());
+    }
+
+    @Test
+    void shouldCallOnceWhenDisabled() {
+        Hedger hedger = hedger(false, 1.0);
+        AtomicInteger calls = new AtomicInteger();
+        hedger.execute(() -> {
+            calls.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(60)).map(t -> "ok");
+        }).block(Duration.ofSeconds(2));
+        Assertions.assertEquals(1, calls.get());
+    }
+}
@@ -0,0 +1,117 @@
+package com.rawbank.reclamations.service.resilience;
+
+import com.rawbank.reclamations.config.props.ResilienceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class UpstreamGuardTest {
+
+    static class MutableClock extends Clock {
+        Instant now = Instant.parse("2026-01-01T00:00:00Z");
+        @Override public ZoneId getZone() { return ZoneId.of("UTC"); }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MutableClock clock = new MutableClock();
+
+    private UpstreamGuard guard(int maxConcurrent) {
+        ResilienceProperties.Policy policy = ResilienceProperties.Policy.withDefaults();
+        policy.setSlidingWindowSize(4);
+        policy.setMinimumCalls(4);
+        policy.setFailureRateThreshold(0.5);
+        policy.setOpenDuration(Duration.ofSeconds(30));
+        policy.setHalfOpenCalls(1);
+        policy.setMaxConcurrentCalls(maxConcurrent);
+        return new UpstreamGuard("test", policy, registry, clock);
+    }
+
+    private double rejected(String reason) {
+        return registry.get("reclamations.resilience.rejected").tag("reason", reason).counter().count();
+    }
+
+    @Test
+    void shouldOpenOnErrorRateThenRecoverAfterTrialCall() {
+        UpstreamGuard guard = guard(10);
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            boolean fail = i % 2 == 0;
+            guard.protect(() -> {
+                calls.incrementAndGet();
+                return fail ? Mono.error(new UpstreamHttpException(503, "KO")) : Mono.just("ok");
+            }).onErrorResume(e -> Mono.empty()).block();
+        }
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, guard.state());
+
+        CallNotPermittedException ex = Assertions.assertThrows(CallNotPermittedException.class,
+                () -> guard.protect(() -> { calls.incrementAndGet(); return Mono.just("ok"); }).block());
+        Assertions.assertEquals("circuit_open", ex.getReason());
+        Assertions.assertEquals(4, calls.get());
+        Assertions.assertEquals(1.0, rejected("circuit_open"));
+        Assertions.assertEquals(1.0, registry.get("reclamations.circuit.state").tag("state", "open").gauge().value());
+
+        clock.now = clock.now.plusSeconds(31);
+        Assertions.assertEquals("ok", guard.protect(() -> Mono.just("ok")).block());
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, guard.state());
+    }
+
+    @Test
+    void shouldReopenWhenTrialCallFails() {
+        UpstreamGuard guard = guard(10);
+        for (int i = 0; i < 4; i++) {
+            guard.protect(() -> Mono.error(new UpstreamHttpException(503, "KO"))).onErrorResume(e -> Mono.empty()).block();
+        }
+        clock.now = clock.now.plusSeconds(31);
+        guard.protect(() -> Mono.error(new UpstreamHttpException(503, "KO"))).onErrorResume(e -> Mono.empty()).block();
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, guard.state());
+    }
+
+    @Test
+    void shouldNotCountClientErrorsAsFailures() {
+        UpstreamGuard guard = guard(10);
+        for (int i = 0; i < 8; i++) {
+            guard.protect(() -> Mono.error(new UpstreamHttpException(404, "KO"))).onErrorResume(e -> Mono.empty()).block();
+        }
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, guard.state());
+
+        for (int i = 0; i < 4; i++) {
+            guard.protect(() -> Mono.error(new IOException("Connection reset"))).onErrorResume(e -> Mono.empty()).block();
+        }
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, guard.state());
+    }
+
+    @Test
+    void shouldClassifyUpstreamFailures() {
+        Assertions.assertTrue(UpstreamGuard.isUpstreamFailure(new UpstreamHttpException(502, "KO")));
+        Assertions.assertTrue(UpstreamGuard.isUpstreamFailure(new TimeoutException("délai")));
+        Assertions.assertTrue(UpstreamGuard.isUpstreamFailure(new IllegalStateException("wrap", new IOException("reset"))));
+        Assertions.assertFalse(UpstreamGuard.isUpstreamFailure(new UpstreamHttpException(422, "KO")));
+        Assertions.assertFalse(UpstreamGuard.isUpstreamFailure(new IllegalArgumentException("payload")));
+    }
+
+    @Test
+    void shouldRejectBeyondBulkheadAndReleaseOnCancel() {
+        UpstreamGuard guard = guard(1);
+        Disposable pending = guard.protect(() -> Mono.never()).subscribe();
+
+        CallNotPermittedException ex = Assertions.assertThrows(CallNotPermittedException.class,
+                () -> guard.protect(() -> Mono.just("ok")).block());
+        Assertions.assertEquals("bulkhead_full", ex.getReason());
+        Assertions.assertEquals(1.0, rejected("bulkhead_full"));
+
+        pending.dispose();
+        Assertions.assertEquals("ok", guard.protect(() -> Mono.just("ok")).block());
+    }
+}
@@ -0,0 +1,58 @@
+package com.rawbank.reclamations.web;
+
+import com.rawbank.reclamations.model.AccountLookupResult;
+import com.rawbank.reclamations.service.accounts.AccountsService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+
+class AccountsControllerTest {
+
+    private final AccountsService service = Mockito.mock(AccountsService.class);
+    private final AccountsController controller = new AccountsController(service, 3);
+
+    @Test
+    void shouldRejectEmptyBatch() {
+        ResponseEntity<Flux<AccountLookupResult>> response = controller.getAccountsBatch(Map.of("clientIds", List.of()));
+
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        AccountLookupResult error = response.getBody().blockFirst(Duration.ofSeconds(1));
+        Assertions.assertFalse(error.ok());
+        Assertions.assertEquals("clientIds ou phones requis", error.error());
+        Mockito.verifyNoInteractions(service);
+    }
+
+    @Test
+    void shouldRejectOversizedBatch() {
+        ResponseEntity<Flux<AccountLookupResult>> response = controller.getAccountsBatch(
+                Map.of("clientIds", List.of("12345678", "12345679"), "phones", List.of("0810000000", "0810000001")));
+
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        Assertions.assertEquals("lot trop volumineux: 4 éléments (max 3)",
+                response.getBody().blockFirst(Duration.ofSeconds(1)).error());
+        Mockito.verifyNoInteractions(service);
+    }
+
+    @Test
+    void shouldStreamServiceResults() {
+        Mockito.when(service.getAccountsBatch(any(), any())).thenReturn(Flux.just(
+                AccountLookupResult.success("12345678", null, List.of("00011-12345678-40")),
+                AccountLookupResult.failure("50000000", null, "Erreur API détails (500)")));
+
+        ResponseEntity<Flux<AccountLookupResult>> response = controller.getAccountsBatch(
+                Map.of("clientIds", List.of("12345678", "50000000")));
+
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertEquals(2, response.getBody().collectList().block(Duration.ofSeconds(1)).size());
+        Mockito.verify(service).getAccountsBatch(List.of("12345678", "50000000"), List.of());
+    }
+}
@@ -0,0 +1,109 @@
+package com.rawbank.reclamations.web;
+
+import com.rawbank.reclamations.model.ComplaintDto;
+import com.rawbank.reclamations.service.ComplaintsService;
+import com.rawbank.reclamations.service.EventPublisherService;
+import com.rawbank.reclamations.service.MotifBccResolver;
+import com.rawbank.reclamations.service.PayloadBuilderService;
+import com.rawbank.reclamations.service.SharepointListService;
+import com.rawbank.reclamations.service.SubmissionTrackingService;
+import com.rawbank.reclamations.service.accounts.AccountsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+
+class ComplaintsControllerAsyncTest {
+
+    private final Sinks.One<Map<String, Object>> created = Sinks.one();
+    private SharepointListService sharepoint;
+    private ComplaintsController controller;
+
+    @BeforeEach
+    void setUp() {
+        sharepoint = Mockito.mock(SharepointListService.class);
+        EventPublisherService events = Mockito.mock(EventPublisherService.class);
+        PayloadBuilderService builder = Mockito.mock(PayloadBuilderService.class);
+        Mockito.when(builder.buildSubmission(any())).thenAnswer(inv -> new HashMap<String, Object>());
+        Mockito.when(events.publish(anyMap())).thenReturn(Mono.empty());
+        Mockito.when(sharepoint.createItem(anyMap())).thenReturn(created.asMono());
+
+        // Capacité 1, concurrence 1: une soumission en cours, une en file, la suivante est refusée
+        ComplaintsService service = new ComplaintsService(events, builder, Mockito.mock(AccountsService.class),
+                Mockito.mock(MotifBccResolver.class), new SubmissionTrackingService(Duration.ofHours(1)), sharepoint,
+                "async", 1, 1, Duration.ofSeconds(1), Duration.ofHours(1), 100, Duration.ofSeconds(5), new SimpleMeterRegistry());
+        controller = new ComplaintsController(service);
+    }
+
+    private ResponseEntity<Map<String, Object>> post() {
+        return controller.submit(new ComplaintDto(), null).block(Duration.ofSeconds(2));
+    }
+
+    private ResponseEntity<Map<String, Object>> status(Object trackingId) {
+        return controller.getStatus(String.valueOf(trackingId)).block(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void shouldAcceptThenCompleteSubmission() {
+        ResponseEntity<Map<String, Object>> accepted = post();
+
+        Assertions.assertEquals(HttpStatus.ACCEPTED, accepted.getStatusCode());
+        Object trackingId = accepted.getBody().get("trackingId");
+        Assertions.assertNotNull(trackingId);
+        Assertions.assertEquals("/api/complaints/" + trackingId, accepted.getHeaders().getLocation().toString());
+        Assertions.assertEquals("pending", status(trackingId).getBody().get("status"));
+
+        created.tryEmitValue(Map.of("id", "REC-7"));
+        ResponseEntity<Map<String, Object>> done = status(trackingId);
+        Assertions.assertEquals(HttpStatus.OK, done.getStatusCode());
+        Assertions.assertEquals("completed", done.getBody().get("status"));
+        Assertions.assertEquals("REC-7", done.getBody().get("complaintNumber"));
+    }
+
+    @Test
+    void shouldReportFailedSubmission() {
+        Object trackingId = post().getBody().get("trackingId");
+
+        created.tryEmitError(new IllegalStateException("Erreur SharePoint (500)"));
+        ResponseEntity<Map<String, Object>> failed = status(trackingId);
+        Assertions.assertEquals(HttpStatus.OK, failed.getStatusCode());
+        Assertions.assertEquals("failed", failed.getBody().get("status"));
+        Assertions.assertEquals("Erreur SharePoint (500)", failed.getBody().get("error"));
+    }
+
+    @Test
+    void shouldAnswer503WhenQueueIsFull() {
+        Assertions.assertEquals(HttpStatus.ACCEPTED, post().getStatusCode());
+        Assertions.assertEquals(HttpStatus.ACCEPTED, post().getStatusCode());
+
+        ResponseEntity<Map<String, Object>> rejected = post();
+        Assertions.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatusCode());
+        Assertions.assertEquals(false, rejected.getBody().get("ok"));
+        Mockito.verify(sharepoint, Mockito.times(1)).createItem(anyMap());
+    }
+
+    @Test
+    void shouldAnswer422WhenKeyIsReusedForAnotherComplaint() {
+        ComplaintDto other = new ComplaintDto();
+        other.setDOMAINE("VIREMENTS");
+        ResponseEntity<Map<String, Object>> accepted = controller.submit(new ComplaintDto(), "k1").block(Duration.ofSeconds(2));
+        ResponseEntity<Map<String, Object>> replay = controller.submit(new ComplaintDto(), "k1").block(Duration.ofSeconds(2));
+        ResponseEntity<Map<String, Object>> conflict = controller.submit(other, "k1").block(Duration.ofSeconds(2));
+
+        Assertions.assertEquals(HttpStatus.ACCEPTED, replay.getStatusCode());
+        Assertions.assertEquals(accepted.getBody().get("trackingId"), replay.getBody().get("trackingId"));
+        Assertions.assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, conflict.getStatusCode());
+    }
+}